@@ -98,7 +98,10 @@ public class MixinAgent implements IHotSwap {
         }
 
         /**
-         * Re-apply all mixins to the supplied list of target classes.
+         * Re-apply all mixins to the supplied list of target classes. All of
+         * the targets are re-transformed before any of them are redefined,
+         * the new definitions are then submitted to the instrumentation in a
+         * single batch so that either every target is redefined or none are.
          * 
          * @param targets Target classes to re-transform
          * @return true if all targets were transformed, false if transformation
@@ -107,6 +110,8 @@ public class MixinAgent implements IHotSwap {
         private boolean reApplyMixins(List<String> targets) {
             IMixinService service = MixinService.getService();
             
+            ClassDefinition[] definitions = new ClassDefinition[targets.size()];
+            int index = 0;
             for (String target : targets) {
                 String targetName = target.replace('/', '.');
                 MixinAgent.logger.debug("Re-transforming target class {}", target);
@@ -114,16 +119,28 @@ public class MixinAgent implements IHotSwap {
                     Class<?> targetClass = service.getClassProvider().findClass(targetName);
                     byte[] targetBytecode = MixinAgent.classLoader.getOriginalTargetBytecode(targetName);
                     if (targetBytecode == null) {
-                        MixinAgent.logger.error("Target class {} bytecode is not registered", targetName);
+                        MixinAgent.logger.error("Target class {} bytecode is not registered, no targets were redefined", targetName);
                         return false;
                     }
                     targetBytecode = MixinAgent.this.classTransformer.transformClassBytes(null, targetName, targetBytecode);
-                    MixinAgent.instrumentation.redefineClasses(new ClassDefinition(targetClass, targetBytecode));
+                    definitions[index++] = new ClassDefinition(targetClass, targetBytecode);
                 } catch (Throwable th) {
-                    MixinAgent.logger.error("Error while re-transforming target class {}", target, th);
+                    MixinAgent.logger.error("Error while re-transforming target class {}, no targets were redefined", target, th);
                     return false;
                 }
             }
+            
+            if (definitions.length == 0) {
+                return true;
+            }
+            
+            try {
+                MixinAgent.logger.debug("Redefining {} target class(es)", definitions.length);
+                MixinAgent.instrumentation.redefineClasses(definitions);
+            } catch (Throwable th) {
+                MixinAgent.logger.error("Error while redefining {} target class(es), no targets were redefined", definitions.length, th);
+                return false;
+            }
             return true;
         }
     }
@@ -26,6 +26,8 @@ package org.spongepowered.tools.agent;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.DataFormatException;
 
 import org.spongepowered.asm.logging.ILogger;
 import org.objectweb.asm.ClassWriter;
@@ -35,7 +37,11 @@ import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.Compression;
 import org.spongepowered.asm.util.Constants;
+import org.spongepowered.asm.util.perf.HeapAccounting;
+import org.spongepowered.asm.util.perf.HeapAccounting.Estimate;
+import org.spongepowered.asm.util.perf.HeapAccounting.ISource;
 
 /**
  * Class loader that is used to load fake mixin classes so that they can be
@@ -43,8 +49,60 @@ import org.spongepowered.asm.util.Constants;
  */
 class MixinAgentClassLoader extends ClassLoader {
 
+    /**
+     * Original bytecode of a target class, stored deflated since the original
+     * bytecode of every target is retained for the life of the JVM but only
+     * read back when a mixin is actually hot-swapped
+     */
+    static final class StoredBytecode {
+        
+        /**
+         * Deflated bytecode
+         */
+        private final byte[] data;
+        
+        /**
+         * Length of the original bytecode
+         */
+        private final int length;
+        
+        StoredBytecode(byte[] bytecode) {
+            this.data = Compression.deflate(bytecode);
+            this.length = bytecode.length;
+        }
+        
+        byte[] get() {
+            try {
+                return Compression.inflate(this.data, this.length);
+            } catch (DataFormatException ex) {
+                throw new IllegalStateException("Stored bytecode is corrupt", ex);
+            }
+        }
+        
+    }
+
     private static final ILogger logger = MixinService.getService().getLogger("mixin.agent");
 
+    /**
+     * Heap accounting source, counts the fake mixin classes and the stored
+     * bytecode of targets
+     */
+    private static final ISource<MixinAgentClassLoader> HEAP_SOURCE = new ISource<MixinAgentClassLoader>() {
+        @Override
+        public void estimate(MixinAgentClassLoader owner, Estimate estimate) {
+            estimate.add(Estimate.hashMap(owner.mixins.size()));
+            for (byte[] bytes : owner.mixins.values()) {
+                estimate.entry(Estimate.array(bytes.length, 1));
+            }
+            synchronized (owner.targets) {
+                estimate.add(Estimate.hashMap(owner.targets.size()));
+                for (Entry<String, StoredBytecode> target : owner.targets.entrySet()) {
+                    estimate.entry(Estimate.string(target.getKey()) + Estimate.object(1, 4) + Estimate.array(target.getValue().data.length, 1));
+                }
+            }
+        }
+    };
+
     /**
      * Mapping of mixin mixin classes to their fake classes
      */
@@ -54,7 +112,11 @@ class MixinAgentClassLoader extends ClassLoader {
      * Mapping that keep track of bytecode for classes that are targeted by
      * mixins
      */
-    private Map<String, byte[]> targets = new HashMap<String, byte[]>();
+    private Map<String, StoredBytecode> targets = new HashMap<String, StoredBytecode>();
+
+    MixinAgentClassLoader() {
+        HeapAccounting.register(HeapAccounting.AGENT_CLASSLOADER, this, MixinAgentClassLoader.HEAP_SOURCE);
+    }
 
     /**
      * Add a fake mixin class
@@ -89,7 +151,7 @@ class MixinAgentClassLoader extends ClassLoader {
             try {
                 ClassWriter cw = new ClassWriter(0);
                 classNode.accept(cw);
-                this.targets.put(name, cw.toByteArray());
+                this.targets.put(name, new StoredBytecode(cw.toByteArray()));
             } catch (Exception ex) {
                 MixinAgentClassLoader.logger.error("Error storing original class bytecode for {} in mixin hotswap agent. {}: {}",
                         name, ex.getClass().getName(), ex.getMessage());
@@ -115,9 +177,11 @@ class MixinAgentClassLoader extends ClassLoader {
      * @return Original bytecode
      */
     byte[] getOriginalTargetBytecode(String name) {
+        StoredBytecode bytecode;
         synchronized (this.targets) {
-            return this.targets.get(name);
+            bytecode = this.targets.get(name);
         }
+        return bytecode != null ? bytecode.get() : null;
     }
 
     /**
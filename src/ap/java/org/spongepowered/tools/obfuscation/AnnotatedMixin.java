@@ -169,6 +169,12 @@ class AnnotatedMixin implements IMixinContext, IAnnotatedElement {
      * True once the FINAL 
      */
     private boolean validated = false;
+    
+    /**
+     * True if the refmap entries and mappings for this mixin were restored
+     * from the incremental cache, in which case members are not processed
+     */
+    private boolean restored = false;
 
     public AnnotatedMixin(IMixinAnnotationProcessor ap, TypeElement type) {
         this.typeProvider = ap.getTypeProvider();
@@ -192,6 +198,10 @@ class AnnotatedMixin implements IMixinContext, IAnnotatedElement {
     }
 
     AnnotatedMixin runValidators(ValidationPass pass, Collection<IMixinValidator> validators) {
+        if (this.restored) {
+            return this;
+        }
+        
         for (IMixinValidator validator : validators) {
             if (!validator.validate(pass, this.mixin, this.annotation, this.targets)) {
                 break;
@@ -368,6 +378,21 @@ class AnnotatedMixin implements IMixinContext, IAnnotatedElement {
     public IMappingConsumer getMappings() {
         return this.mappings;
     }
+    
+    /**
+     * Get whether this mixin was restored from the incremental cache
+     */
+    public boolean isRestored() {
+        return this.restored;
+    }
+    
+    /**
+     * Mark this mixin as restored from the incremental cache, further members
+     * and validation passes for this mixin are ignored
+     */
+    void setRestored() {
+        this.restored = true;
+    }
 
     private void runFinalValidation() {
         for (MethodHandle method : this.methods) {
@@ -388,20 +413,32 @@ class AnnotatedMixin implements IMixinContext, IAnnotatedElement {
     }
 
     public void registerOverwrite(ExecutableElement method, AnnotationHandle overwrite, boolean shouldRemap) {
+        if (this.restored) {
+            return;
+        }
         this.removeMethod(method);
         this.overwrites.registerOverwrite(new AnnotatedElementOverwrite(method, overwrite, shouldRemap));
     }
 
     public void registerShadow(VariableElement field, AnnotationHandle shadow, boolean shouldRemap) {
+        if (this.restored) {
+            return;
+        }
         this.shadows.registerShadow(this.shadows.new AnnotatedElementShadowField(field, shadow, shouldRemap));
     }
 
     public void registerShadow(ExecutableElement method, AnnotationHandle shadow, boolean shouldRemap) {
+        if (this.restored) {
+            return;
+        }
         this.removeMethod(method);
         this.shadows.registerShadow(this.shadows.new AnnotatedElementShadowMethod(method, shadow, shouldRemap));
     }
 
     public void registerInjector(ExecutableElement method, AnnotationHandle inject, InjectorRemap remap) {
+        if (this.restored) {
+            return;
+        }
         this.removeMethod(method);
         AnnotatedElementInjector injectorElement = new AnnotatedElementInjector(method, inject, this, remap);
         this.injectors.registerInjector(injectorElement);
@@ -445,16 +482,25 @@ class AnnotatedMixin implements IMixinContext, IAnnotatedElement {
     }
     
     public void registerAccessor(ExecutableElement element, AnnotationHandle accessor, boolean shouldRemap) {
+        if (this.restored) {
+            return;
+        }
         this.removeMethod(element);
         this.accessors.registerAccessor(new AnnotatedElementAccessor(element, accessor, this, shouldRemap));
     }
 
     public void registerInvoker(ExecutableElement element, AnnotationHandle invoker, boolean shouldRemap) {
+        if (this.restored) {
+            return;
+        }
         this.removeMethod(element);
         this.accessors.registerAccessor(new AnnotatedElementInvoker(element, invoker, this, shouldRemap));
     }
 
     public void registerSoftImplements(AnnotationHandle implementsAnnotation) {
+        if (this.restored) {
+            return;
+        }
         this.softImplements.process(implementsAnnotation);
     }
 
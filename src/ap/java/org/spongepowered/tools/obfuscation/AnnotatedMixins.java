@@ -92,9 +92,11 @@ final class AnnotatedMixins implements IMixinAnnotationProcessor, ITokenProvider
     private static final String RECOMMENDED_MIXINGRADLE_VERSION = "0.7";
 
     /**
-     * Singleton instances for each ProcessingEnvironment
+     * Singleton instances for each compilation, keyed by element utils rather
+     * than by ProcessingEnvironment since build tools may supply each processor
+     * with its own wrapper around the same environment
      */
-    private static Map<ProcessingEnvironment, AnnotatedMixins> instances = new HashMap<ProcessingEnvironment, AnnotatedMixins>();
+    private static Map<Elements, AnnotatedMixins> instances = new HashMap<Elements, AnnotatedMixins>();
 
     /**
      * Detected compiler environment
@@ -142,12 +144,30 @@ final class AnnotatedMixins implements IMixinAnnotationProcessor, ITokenProvider
      */
     private Properties properties;
 
+    /**
+     * True if the AP is running as an incremental (aggregating) processor
+     */
+    private final boolean incremental;
+    
+    /**
+     * Incremental fragment cache, null if incremental processing is disabled
+     * or no cache directory was specified
+     */
+    private final FragmentCache fragments;
+    
+    /**
+     * True once fragments have been written, fragments are only written in
+     * the final round
+     */
+    private boolean fragmentsWritten;
+
     /**
      * Private constructor, get instances using {@link #getMixinsForEnvironment}
      */
     private AnnotatedMixins(ProcessingEnvironment processingEnv) {
         this.env = CompilerEnvironment.detect(processingEnv);
         this.processingEnv = processingEnv;
+        this.incremental = "true".equalsIgnoreCase(processingEnv.getOptions().get(SupportedOptions.INCREMENTAL));
 
         MessageType.applyOptions(this.env, this);
         MessageRouter.setMessager(processingEnv.getMessager());
@@ -166,6 +186,7 @@ final class AnnotatedMixins implements IMixinAnnotationProcessor, ITokenProvider
         );
         
         this.initTokenCache(this.getOption(SupportedOptions.TOKENS));
+        this.fragments = this.initFragmentCache();
     }
 
     /**
@@ -188,8 +209,21 @@ final class AnnotatedMixins implements IMixinAnnotationProcessor, ITokenProvider
     }
 
     protected TargetMap initTargetMap() {
+        if (this.incremental) {
+            // Every mixin is supplied to an aggregating processor in each
+            // compile, so the map is rebuilt instead of shared via temp files
+            TargetMap targets = TargetMap.create(null);
+            this.readTargetImports(targets);
+            return targets;
+        }
+        
         TargetMap targets = TargetMap.create(System.getProperty(AnnotatedMixins.MAPID_SYSTEM_PROPERTY));
         System.setProperty(AnnotatedMixins.MAPID_SYSTEM_PROPERTY, targets.getSessionId());
+        this.readTargetImports(targets);
+        return targets;
+    }
+
+    private void readTargetImports(TargetMap targets) {
         String targetsFileName = this.getOption(SupportedOptions.DEPENDENCY_TARGETS_FILE);
         if (targetsFileName != null) {
             try {
@@ -198,7 +232,21 @@ final class AnnotatedMixins implements IMixinAnnotationProcessor, ITokenProvider
                 this.printMessage(Kind.WARNING, "Could not read from specified imports file: " + targetsFileName);
             }
         }
-        return targets;
+    }
+    
+    private FragmentCache initFragmentCache() {
+        String cacheDir = this.getOption(SupportedOptions.INCREMENTAL_CACHE_DIR);
+        if (!this.incremental || cacheDir == null) {
+            return null;
+        }
+        return new FragmentCache(this, new File(cacheDir));
+    }
+    
+    /**
+     * Get whether the AP is running as an incremental (aggregating) processor
+     */
+    public boolean isIncremental() {
+        return this.incremental;
     }
 
     private void initTokenCache(String tokens) {
@@ -304,6 +352,10 @@ final class AnnotatedMixins implements IMixinAnnotationProcessor, ITokenProvider
     public Properties getProperties() {
         if (this.properties == null) {
             this.properties = new Properties();
+            if (this.incremental) {
+                // Incremental processors cannot read source path resources
+                return this.properties;
+            }
 
             try {
                 Filer filer = this.processingEnv.getFiler();
@@ -350,6 +402,9 @@ final class AnnotatedMixins implements IMixinAnnotationProcessor, ITokenProvider
 
         if (!this.mixins.containsKey(name)) {
             AnnotatedMixin mixin = new AnnotatedMixin(this, mixinType);
+            if (this.fragments != null && this.fragments.restore(mixin)) {
+                mixin.setRestored();
+            }
             this.targets.registerTargets(mixin);
             mixin.runValidators(ValidationPass.EARLY, this.validators);
             this.mixins.put(name, mixin);
@@ -519,13 +574,31 @@ final class AnnotatedMixins implements IMixinAnnotationProcessor, ITokenProvider
      * Called from each AP when a pass is completed
      */
     public void onPassCompleted(RoundEnvironment roundEnv) {
-        if (!"true".equalsIgnoreCase(this.getOption(SupportedOptions.DISABLE_TARGET_EXPORT))) {
+        if (!this.incremental && !"true".equalsIgnoreCase(this.getOption(SupportedOptions.DISABLE_TARGET_EXPORT))) {
             this.targets.write(true);
         }
         
         for (AnnotatedMixin mixin : roundEnv.processingOver() ? this.mixins.values() : this.mixinsForPass) {
             mixin.runValidators(roundEnv.processingOver() ? ValidationPass.FINAL : ValidationPass.LATE, this.validators);
         }
+        
+        if (roundEnv.processingOver()) {
+            this.writeFragments(roundEnv);
+        }
+    }
+
+    /**
+     * Write incremental fragments for the mixins processed in this compile.
+     * Fragments are not written if errors were raised since the entries for
+     * the failing mixins may be incomplete.
+     */
+    private void writeFragments(RoundEnvironment roundEnv) {
+        if (this.fragments == null || this.fragmentsWritten || roundEnv.errorRaised()) {
+            return;
+        }
+        
+        this.fragmentsWritten = true;
+        this.fragments.write(this.mixins.values());
     }
 
     private static boolean shouldRemap(AnnotatedMixin mixinClass, AnnotationHandle annotation) {
@@ -833,10 +906,10 @@ final class AnnotatedMixins implements IMixinAnnotationProcessor, ITokenProvider
      * Get the mixin manager instance for this environment
      */
     public static AnnotatedMixins getMixinsForEnvironment(ProcessingEnvironment processingEnv) {
-        AnnotatedMixins mixins = AnnotatedMixins.instances.get(processingEnv);
+        AnnotatedMixins mixins = AnnotatedMixins.instances.get(processingEnv.getElementUtils());
         if (mixins == null) {
             mixins = new AnnotatedMixins(processingEnv);
-            AnnotatedMixins.instances.put(processingEnv, mixins);
+            AnnotatedMixins.instances.put(processingEnv.getElementUtils(), mixins);
         }
         return mixins;
     }
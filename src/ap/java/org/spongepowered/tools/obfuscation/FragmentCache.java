@@ -0,0 +1,536 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.tools.obfuscation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.StandardLocation;
+
+import org.spongepowered.asm.launch.MixinBootstrap;
+import org.spongepowered.asm.mixin.refmap.ReferenceMapper;
+import org.spongepowered.asm.obfuscation.mapping.IMapping;
+import org.spongepowered.asm.obfuscation.mapping.common.MappingField;
+import org.spongepowered.asm.obfuscation.mapping.common.MappingMethod;
+import org.spongepowered.tools.obfuscation.interfaces.IMessagerEx.MessageType;
+import org.spongepowered.tools.obfuscation.interfaces.IMixinAnnotationProcessor;
+import org.spongepowered.tools.obfuscation.interfaces.IReferenceManager;
+import org.spongepowered.tools.obfuscation.mapping.IMappingConsumer;
+import org.spongepowered.tools.obfuscation.mapping.IMappingConsumer.MappingSet;
+import org.spongepowered.tools.obfuscation.mirror.MethodHandle;
+import org.spongepowered.tools.obfuscation.mirror.TypeHandle;
+import org.spongepowered.tools.obfuscation.mirror.TypeUtils;
+
+import com.google.common.io.Closeables;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Cache of the refmap entries and generated mappings produced for each mixin
+ * when the AP runs incrementally. Each fragment is stored with a fingerprint of
+ * the mixin's members and annotations, the members of its supertypes and of
+ * its targets and their supertypes, and of the AP options and the mapping
+ * files they name. When the fingerprint of a mixin is unchanged its fragment
+ * is merged into the refmap and mappings instead of processing the mixin
+ * again, so only changed mixins are remapped and validated.
+ * 
+ * <p>Fragments are only restored for mixins whose class file from the
+ * previous compile is still present in the class output. The build tool
+ * removes the class files of recompiled sources, and clears the output
+ * entirely for a full recompile (which it performs when the compile classpath
+ * changes), so a full recompile never restores fragments.</p>
+ */
+final class FragmentCache {
+    
+    private static final Gson GSON = new Gson();
+    
+    private static final String SUFFIX = ".fragment.json";
+    
+    /**
+     * Prefix of options which name output files
+     */
+    private static final String OUTPUT_PREFIX = "out";
+    
+    private static final String FIELD = "field";
+    
+    private static final String METHOD = "method";
+
+    /**
+     * Annotation processor
+     */
+    private final IMixinAnnotationProcessor ap;
+    
+    /**
+     * Directory which contains the fragments
+     */
+    private final File dir;
+    
+    /**
+     * Fingerprint of the AP environment, included in each mixin fingerprint
+     */
+    private final String environment;
+    
+    /**
+     * Fingerprints calculated during this session, by mixin class ref
+     */
+    private final Map<String, String> fingerprints = new HashMap<String, String>();
+    
+    /**
+     * Fingerprints of the types referenced by mixin fingerprints, by name
+     */
+    private final Map<String, String> typeFingerprints = new HashMap<String, String>();
+    
+    /**
+     * Number of mixins restored from fragments during this session
+     */
+    private int restored;
+    
+    FragmentCache(IMixinAnnotationProcessor ap, File dir) {
+        this.ap = ap;
+        this.dir = dir;
+        this.environment = FragmentCache.getEnvironmentKey(ap.getProcessingEnvironment());
+    }
+    
+    /**
+     * Restore the fragment for the specified mixin if the fragment exists and
+     * the mixin is unchanged since the fragment was written
+     * 
+     * @param mixin mixin to restore
+     * @return true if the fragment was restored and the mixin does not need to
+     *      be processed
+     */
+    boolean restore(AnnotatedMixin mixin) {
+        String fingerprint = this.getFingerprint(mixin);
+        File file = this.getFile(mixin);
+        if (!file.isFile() || !this.isCompiled(mixin)) {
+            return false;
+        }
+        
+        JsonObject fragment = null;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            fragment = FragmentCache.GSON.fromJson(reader, JsonObject.class);
+        } catch (Exception ex) {
+            this.ap.printMessage(MessageType.INFO, "Discarding unreadable fragment for " + mixin + ": " + ex.getMessage());
+            return false;
+        }
+        
+        if (fragment == null || !fragment.has("fingerprint") || !fingerprint.equals(fragment.get("fingerprint").getAsString())) {
+            return false;
+        }
+        
+        List<String[]> references = FragmentCache.readEntries(fragment.getAsJsonArray("references"), 3);
+        List<String[]> mappings = FragmentCache.readEntries(fragment.getAsJsonArray("mappings"), 8);
+        if (references == null || mappings == null) {
+            return false;
+        }
+        
+        Set<String> types = new HashSet<String>();
+        for (ObfuscationType type : ObfuscationType.types()) {
+            types.add(type.getKey());
+        }
+        for (String[] entry : references) {
+            if (!types.contains(entry[0])) {
+                return false;
+            }
+        }
+        for (String[] entry : mappings) {
+            if (!types.contains(entry[1])) {
+                return false;
+            }
+        }
+        
+        IReferenceManager refs = this.ap.getObfuscationManager().getReferenceManager();
+        for (String[] entry : references) {
+            refs.addMapping(ObfuscationType.get(entry[0]), mixin.getClassRef(), entry[1], entry[2]);
+        }
+        
+        IMappingConsumer consumer = mixin.getMappings();
+        for (String[] entry : mappings) {
+            ObfuscationType type = ObfuscationType.get(entry[1]);
+            if (FragmentCache.FIELD.equals(entry[0])) {
+                consumer.addFieldMapping(type, new MappingField(entry[2], entry[3], entry[4]), new MappingField(entry[5], entry[6], entry[7]));
+            } else {
+                consumer.addMethodMapping(type, new MappingMethod(entry[2], entry[3], entry[4]), new MappingMethod(entry[5], entry[6], entry[7]));
+            }
+        }
+        
+        this.restored++;
+        return true;
+    }
+    
+    /**
+     * Write fragments for all mixins which were processed in this session and
+     * remove fragments for mixins which no longer exist
+     * 
+     * @param mixins all mixins in this session
+     */
+    void write(Collection<AnnotatedMixin> mixins) {
+        if (!this.dir.isDirectory() && !this.dir.mkdirs()) {
+            this.ap.printMessage(MessageType.WARNING, "Could not create incremental cache directory " + this.dir);
+            return;
+        }
+        
+        ReferenceMapper refMapper = this.ap.getObfuscationManager().getReferenceManager().getMapper();
+        Set<String> fileNames = new HashSet<String>();
+        for (AnnotatedMixin mixin : mixins) {
+            File file = this.getFile(mixin);
+            fileNames.add(file.getName());
+            if (mixin.isRestored()) {
+                continue;
+            }
+            
+            JsonArray references = new JsonArray();
+            JsonArray mappings = new JsonArray();
+            for (ObfuscationType type : ObfuscationType.types()) {
+                for (Entry<String, String> mapping : refMapper.getMappings(type.getKey(), mixin.getClassRef()).entrySet()) {
+                    references.add(FragmentCache.toJson(type.getKey(), mapping.getKey(), mapping.getValue()));
+                }
+                FragmentCache.addMappings(mappings, FragmentCache.FIELD, type, mixin.getMappings().getFieldMappings(type));
+                FragmentCache.addMappings(mappings, FragmentCache.METHOD, type, mixin.getMappings().getMethodMappings(type));
+            }
+            
+            JsonObject fragment = new JsonObject();
+            fragment.addProperty("fingerprint", this.getFingerprint(mixin));
+            fragment.add("references", references);
+            fragment.add("mappings", mappings);
+            
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                FragmentCache.GSON.toJson(fragment, writer);
+            } catch (Exception ex) {
+                this.ap.printMessage(MessageType.WARNING, "Could not write incremental fragment for " + mixin + ": " + ex.getMessage());
+                file.delete();
+            }
+        }
+        
+        File[] files = this.dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(FragmentCache.SUFFIX) && !fileNames.contains(file.getName())) {
+                    file.delete();
+                }
+            }
+        }
+        
+        this.ap.printMessage(MessageType.INFO, String.format("Restored %d of %d mixins from the incremental cache", this.restored, mixins.size()));
+    }
+    
+    private File getFile(AnnotatedMixin mixin) {
+        return new File(this.dir, mixin.getClassRef().replace('/', '.') + FragmentCache.SUFFIX);
+    }
+    
+    /**
+     * Get whether the class file of the specified mixin from a previous
+     * compile is present in the class output, which is only the case if the
+     * mixin was not recompiled
+     */
+    private boolean isCompiled(AnnotatedMixin mixin) {
+        String classRef = mixin.getClassRef();
+        int pos = classRef.lastIndexOf('/');
+        String pkg = pos > -1 ? classRef.substring(0, pos).replace('/', '.') : "";
+        InputStream is = null;
+        try {
+            is = this.ap.getProcessingEnvironment().getFiler().getResource(StandardLocation.CLASS_OUTPUT, pkg,
+                    classRef.substring(pos + 1) + ".class").openInputStream();
+            return true;
+        } catch (Exception ex) {
+            return false;
+        } finally {
+            Closeables.closeQuietly(is);
+        }
+    }
+    
+    private String getFingerprint(AnnotatedMixin mixin) {
+        String fingerprint = this.fingerprints.get(mixin.getClassRef());
+        if (fingerprint == null) {
+            TypeElement mixinElement = mixin.getMixinElement();
+            StringBuilder description = new StringBuilder(this.environment).append('\n').append(FragmentCache.describe(mixinElement));
+            for (TypeElement supertype : FragmentCache.getSupertypes(mixinElement)) {
+                description.append("\nextends ").append(this.getTypeFingerprint(supertype));
+            }
+            for (TypeHandle target : mixin.getTargets()) {
+                description.append("\ntarget ").append(target.getName()).append(' ').append(this.getTypeFingerprint(target));
+            }
+            fingerprint = FragmentCache.hash(description.toString());
+            this.fingerprints.put(mixin.getClassRef(), fingerprint);
+        }
+        return fingerprint;
+    }
+    
+    /**
+     * Fingerprint a type and its supertypes
+     */
+    private String getTypeFingerprint(TypeElement type) {
+        String name = type.getQualifiedName().toString();
+        String fingerprint = this.typeFingerprints.get(name);
+        if (fingerprint == null) {
+            this.typeFingerprints.put(name, name); // guard against cycles in erroneous code
+            StringBuilder description = new StringBuilder(FragmentCache.describe(type));
+            for (TypeElement supertype : FragmentCache.getSupertypes(type)) {
+                description.append('\n').append(this.getTypeFingerprint(supertype));
+            }
+            fingerprint = FragmentCache.hash(description.toString());
+            this.typeFingerprints.put(name, fingerprint);
+        }
+        return fingerprint;
+    }
+    
+    /**
+     * Fingerprint a target type. Targets which were resolved from class files
+     * without an element only contribute their methods and supertypes, and
+     * imaginary targets only contribute their name.
+     */
+    private String getTypeFingerprint(TypeHandle type) {
+        if (type.getElement() != null) {
+            return this.getTypeFingerprint(type.getElement());
+        }
+        if (type.isImaginary()) {
+            return type.getName();
+        }
+        String fingerprint = this.typeFingerprints.get(type.getName());
+        if (fingerprint == null) {
+            this.typeFingerprints.put(type.getName(), type.getName());
+            List<String> methods = new ArrayList<String>();
+            for (MethodHandle method : type.getMethods()) {
+                methods.add(method.getName() + method.getDesc());
+            }
+            Collections.sort(methods);
+            StringBuilder description = new StringBuilder(type.getName()).append(' ').append(methods);
+            TypeHandle superclass = type.getSuperclass();
+            if (superclass != null) {
+                description.append('\n').append(this.getTypeFingerprint(superclass));
+            }
+            for (TypeHandle iface : type.getInterfaces()) {
+                description.append('\n').append(this.getTypeFingerprint(iface));
+            }
+            fingerprint = FragmentCache.hash(description.toString());
+            this.typeFingerprints.put(type.getName(), fingerprint);
+        }
+        return fingerprint;
+    }
+    
+    private static List<TypeElement> getSupertypes(TypeElement type) {
+        List<TypeElement> supertypes = new ArrayList<TypeElement>();
+        FragmentCache.addSupertype(supertypes, type.getSuperclass());
+        for (TypeMirror iface : type.getInterfaces()) {
+            FragmentCache.addSupertype(supertypes, iface);
+        }
+        return supertypes;
+    }
+    
+    private static void addSupertype(List<TypeElement> supertypes, TypeMirror type) {
+        if (type != null && type.getKind() == TypeKind.DECLARED) {
+            Element element = ((DeclaredType)type).asElement();
+            if (element instanceof TypeElement) {
+                supertypes.add((TypeElement)element);
+            }
+        }
+    }
+    
+    /**
+     * Describe the parts of a mixin which contribute to its refmap entries and
+     * generated mappings. Members are sorted since elements read from class
+     * files are not guaranteed to be in declaration order, and parameter names
+     * are omitted since they are not available from class files.
+     */
+    private static String describe(TypeElement mixin) {
+        StringBuilder description = new StringBuilder();
+        description.append(mixin.getQualifiedName()).append(' ').append(new TreeSet<Modifier>(mixin.getModifiers()))
+                .append(' ').append(mixin.getSuperclass());
+        for (TypeMirror iface : mixin.getInterfaces()) {
+            description.append(' ').append(iface);
+        }
+        FragmentCache.describeAnnotations(description, mixin);
+        
+        List<String> members = new ArrayList<String>();
+        for (Element element : mixin.getEnclosedElements()) {
+            StringBuilder member = new StringBuilder();
+            member.append(element.getKind()).append(' ').append(element.getSimpleName()).append(' ')
+                    .append(new TreeSet<Modifier>(element.getModifiers()));
+            if (element instanceof ExecutableElement) {
+                member.append(' ').append(TypeUtils.getDescriptor((ExecutableElement)element));
+                for (VariableElement parameter : ((ExecutableElement)element).getParameters()) {
+                    member.append(" (");
+                    FragmentCache.describeAnnotations(member, parameter);
+                    member.append(')');
+                }
+            } else if (element instanceof VariableElement) {
+                member.append(' ').append(TypeUtils.getInternalName((VariableElement)element));
+            }
+            FragmentCache.describeAnnotations(member, element);
+            members.add(member.toString());
+        }
+        Collections.sort(members);
+        
+        for (String member : members) {
+            description.append('\n').append(member);
+        }
+        return description.toString();
+    }
+    
+    private static void describeAnnotations(StringBuilder description, Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            description.append(' ');
+            FragmentCache.describeAnnotation(description, annotation);
+        }
+    }
+
+    private static void describeAnnotation(StringBuilder description, AnnotationMirror annotation) {
+        Map<String, AnnotationValue> values = new TreeMap<String, AnnotationValue>();
+        for (Entry<? extends ExecutableElement, ? extends AnnotationValue> value : annotation.getElementValues().entrySet()) {
+            values.put(value.getKey().getSimpleName().toString(), value.getValue());
+        }
+        description.append('@').append(annotation.getAnnotationType()).append('(');
+        for (Entry<String, AnnotationValue> value : values.entrySet()) {
+            description.append(value.getKey()).append('=');
+            FragmentCache.describeValue(description, value.getValue().getValue());
+            description.append(',');
+        }
+        description.append(')');
+    }
+
+    private static void describeValue(StringBuilder description, Object value) {
+        if (value instanceof AnnotationMirror) {
+            FragmentCache.describeAnnotation(description, (AnnotationMirror)value);
+        } else if (value instanceof List) {
+            description.append('{');
+            for (Object element : (List<?>)value) {
+                FragmentCache.describeValue(description, element instanceof AnnotationValue ? ((AnnotationValue)element).getValue() : element);
+                description.append(',');
+            }
+            description.append('}');
+        } else if (value instanceof VariableElement) {
+            description.append(((VariableElement)value).getSimpleName());
+        } else if (value instanceof String) {
+            description.append('"').append(value).append('"');
+        } else {
+            description.append(value);
+        }
+    }
+    
+    /**
+     * Describe the AP environment. Changes to the AP version, the processor
+     * options or the input files they name invalidate all fragments, output
+     * files are rewritten by every compile so only their names are included.
+     */
+    private static String getEnvironmentKey(ProcessingEnvironment processingEnv) {
+        StringBuilder key = new StringBuilder(MixinBootstrap.VERSION);
+        Pattern separator = Pattern.compile("[," + Pattern.quote(File.pathSeparator) + "]");
+        for (Entry<String, String> option : new TreeMap<String, String>(processingEnv.getOptions()).entrySet()) {
+            key.append('\n').append(option.getKey()).append('=').append(option.getValue());
+            if (option.getValue() == null || option.getKey().startsWith(FragmentCache.OUTPUT_PREFIX)) {
+                continue;
+            }
+            for (String path : separator.split(option.getValue())) {
+                File file = new File(path.trim());
+                if (file.isFile()) {
+                    key.append(' ').append(file.length()).append('@').append(file.lastModified());
+                }
+            }
+        }
+        return key.toString();
+    }
+    
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            return String.format("%040x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException ex) {
+            return Integer.toHexString(value.hashCode()) + Integer.toHexString(value.length());
+        }
+    }
+    
+    private static <TMapping extends IMapping<TMapping>> void addMappings(JsonArray entries, String kind, ObfuscationType type,
+            MappingSet<TMapping> mappings) {
+        for (MappingSet.Pair<TMapping> mapping : mappings) {
+            entries.add(FragmentCache.toJson(kind, type.getKey(), mapping.from.getOwner(), mapping.from.getSimpleName(), mapping.from.getDesc(),
+                    mapping.to.getOwner(), mapping.to.getSimpleName(), mapping.to.getDesc()));
+        }
+    }
+    
+    private static JsonArray toJson(String... values) {
+        JsonArray array = new JsonArray();
+        for (String value : values) {
+            array.add(value != null ? new JsonPrimitive(value) : JsonNull.INSTANCE);
+        }
+        return array;
+    }
+    
+    private static List<String[]> readEntries(JsonArray array, int length) {
+        if (array == null) {
+            return null;
+        }
+        List<String[]> entries = new ArrayList<String[]>();
+        for (JsonElement element : array) {
+            if (!element.isJsonArray() || element.getAsJsonArray().size() != length) {
+                return null;
+            }
+            String[] entry = new String[length];
+            for (int i = 0; i < length; i++) {
+                JsonElement value = element.getAsJsonArray().get(i);
+                entry[i] = value.isJsonNull() ? null : value.getAsString();
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+}
@@ -37,11 +37,19 @@ import javax.lang.model.element.TypeElement;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.tools.obfuscation.interfaces.IMessagerEx.MessageType;
 
+import com.google.common.collect.ImmutableSet;
+
 /**
  * Base class for mixin annotation processor modules
  */
 abstract class MixinObfuscationProcessor extends AbstractProcessor {
     
+    /**
+     * Option reported to Gradle by processors registered as dynamic to declare
+     * that they are aggregating incremental processors
+     */
+    private static final String GRADLE_AGGREGATING = "org.gradle.annotation.processing.aggregating";
+    
     /**
      * Mixin info manager 
      */
@@ -86,6 +94,9 @@ abstract class MixinObfuscationProcessor extends AbstractProcessor {
     
     @Override
     public Set<String> getSupportedOptions() {
+        if (this.mixins != null && this.mixins.isIncremental()) {
+            return ImmutableSet.<String>builder().addAll(SupportedOptions.getAllOptions()).add(MixinObfuscationProcessor.GRADLE_AGGREGATING).build();
+        }
         return SupportedOptions.getAllOptions();
     }
     
@@ -234,7 +234,13 @@ public class ReferenceManager implements IReferenceManager {
         }
     }
 
-    protected void addMapping(ObfuscationType type, String className, String reference, String newReference) {
+    /* (non-Javadoc)
+     * @see org.spongepowered.tools.obfuscation.interfaces.IReferenceManager
+     *      #addMapping(org.spongepowered.tools.obfuscation.ObfuscationType,
+     *      java.lang.String, java.lang.String, java.lang.String)
+     */
+    @Override
+    public void addMapping(ObfuscationType type, String className, String reference, String newReference) {
         String oldReference = this.refMapper.addMapping(type.getKey(), className, reference, newReference);
         if (type.isDefault()) {
             this.refMapper.addMapping(null, className, reference, newReference);
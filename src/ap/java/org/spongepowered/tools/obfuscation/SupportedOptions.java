@@ -50,6 +50,8 @@ public final class SupportedOptions {
     public static final String PLUGIN_VERSION            = "pluginVersion";
     public static final String QUIET                     = "quiet";
     public static final String SHOW_MESSAGE_TYPES        = "showMessageTypes";
+    public static final String INCREMENTAL               = "incremental";
+    public static final String INCREMENTAL_CACHE_DIR     = "incrementalCacheDir";
     
     private SupportedOptions() {}
 
@@ -70,7 +72,9 @@ public final class SupportedOptions {
             SupportedOptions.MAPPING_TYPES,
             SupportedOptions.PLUGIN_VERSION,
             SupportedOptions.QUIET,
-            SupportedOptions.SHOW_MESSAGE_TYPES
+            SupportedOptions.SHOW_MESSAGE_TYPES,
+            SupportedOptions.INCREMENTAL,
+            SupportedOptions.INCREMENTAL_CACHE_DIR
         );
         options.addAll(
             ObfuscationServices.getInstance().getSupportedOptions()
@@ -29,6 +29,7 @@ import org.spongepowered.asm.mixin.refmap.ReferenceMapper;
 import org.spongepowered.asm.obfuscation.mapping.common.MappingField;
 import org.spongepowered.asm.obfuscation.mapping.common.MappingMethod;
 import org.spongepowered.tools.obfuscation.ObfuscationData;
+import org.spongepowered.tools.obfuscation.ObfuscationType;
 import org.spongepowered.tools.obfuscation.ReferenceManager.ReferenceConflictException;
 
 /**
@@ -108,4 +109,17 @@ public interface IReferenceManager {
      */
     public abstract void addClassMapping(String className, String reference, ObfuscationData<String> obfClassData);
 
+    /**
+     * Adds an already remapped reference to the internal refmap, the mapping
+     * is also added to the default context if the type is the default type
+     * 
+     * @param type Obfuscation type which the remapped reference is for
+     * @param className Mixin class name which owns the refmap entry
+     * @param reference Original reference, as it appears in the annotation
+     * @param newReference Remapped reference
+     * @throws ReferenceConflictException if the reference is already mapped
+     *      to a different value and conflicts are not allowed
+     */
+    public abstract void addMapping(ObfuscationType type, String className, String reference, String newReference);
+
 }
@@ -0,0 +1,276 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.tools.obfuscation.mapping.common;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.spongepowered.asm.obfuscation.mapping.common.MappingField;
+import org.spongepowered.asm.obfuscation.mapping.common.MappingMethod;
+
+/**
+ * Compact storage for the package, class, field and method mappings read by
+ * mapping providers. Entries are stored as runs of strings in flat arrays
+ * with an open-addressed index over the source side of each entry, and the
+ * strings are pooled while mappings are being read so that owners and
+ * descriptors shared by many members are only stored once. Mapping objects
+ * are only created for entries which are actually looked up.
+ * 
+ * <p>Adding an entry whose source is already mapped replaces the existing
+ * entry.</p>
+ */
+public final class MappingTable {
+    
+    /**
+     * A table of entries, each entry is <tt>keys</tt> source strings followed
+     * by <tt>values</tt> destination strings
+     */
+    static final class Index {
+        
+        private static final int INITIAL_CAPACITY = 16;
+        
+        private final int keys;
+        
+        private final int stride;
+        
+        private String[] entries;
+        
+        private int[] slots;
+        
+        private int size;
+        
+        Index(int keys, int values) {
+            this.keys = keys;
+            this.stride = keys + values;
+            this.clear();
+        }
+        
+        void clear() {
+            this.entries = new String[Index.INITIAL_CAPACITY * this.stride];
+            this.slots = new int[Index.INITIAL_CAPACITY * 2];
+            Arrays.fill(this.slots, -1);
+            this.size = 0;
+        }
+        
+        int size() {
+            return this.size;
+        }
+        
+        String get(int entry, int offset) {
+            return this.entries[entry * this.stride + offset];
+        }
+        
+        /**
+         * Add or replace an entry, the first <tt>keys</tt> strings of the
+         * entry are its source
+         */
+        void put(String... entry) {
+            int slot = this.find(entry);
+            int index = this.slots[slot];
+            if (index > -1) {
+                System.arraycopy(entry, 0, this.entries, index * this.stride, this.stride);
+                return;
+            }
+            if (this.size == this.entries.length / this.stride) {
+                this.entries = Arrays.copyOf(this.entries, Math.max(this.entries.length * 2, Index.INITIAL_CAPACITY * this.stride));
+            }
+            index = this.size++;
+            System.arraycopy(entry, 0, this.entries, index * this.stride, this.stride);
+            this.slots[slot] = index;
+            if (this.size * 4 > this.slots.length * 3) {
+                this.rehash(this.slots.length * 2);
+            }
+        }
+        
+        /**
+         * Find the entry with the specified source
+         * 
+         * @return entry index or -1 if no entry has the specified source
+         */
+        int indexOf(String... key) {
+            return this.slots[this.find(key)];
+        }
+        
+        void trim() {
+            this.entries = Arrays.copyOf(this.entries, this.size * this.stride);
+        }
+        
+        private int find(String[] key) {
+            int mask = this.slots.length - 1;
+            for (int slot = Index.spread(this.hash(key)) & mask;; slot = (slot + 1) & mask) {
+                int index = this.slots[slot];
+                if (index < 0 || this.matches(index, key)) {
+                    return slot;
+                }
+            }
+        }
+        
+        private boolean matches(int index, String[] key) {
+            int base = index * this.stride;
+            for (int i = 0; i < this.keys; i++) {
+                String value = this.entries[base + i];
+                if (value == null ? key[i] != null : !value.equals(key[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private int hash(String[] key) {
+            int hash = 0;
+            for (int i = 0; i < this.keys; i++) {
+                hash = hash * 31 + (key[i] != null ? key[i].hashCode() : 0);
+            }
+            return hash;
+        }
+        
+        private void rehash(int capacity) {
+            int[] slots = new int[capacity];
+            Arrays.fill(slots, -1);
+            int mask = capacity - 1;
+            String[] key = new String[this.keys];
+            for (int index = 0; index < this.size; index++) {
+                System.arraycopy(this.entries, index * this.stride, key, 0, this.keys);
+                int slot = Index.spread(this.hash(key)) & mask;
+                while (slots[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = index;
+            }
+            this.slots = slots;
+        }
+        
+        private static int spread(int hash) {
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+        
+    }
+    
+    private final Index packages = new Index(1, 1);
+    
+    private final Index classes = new Index(1, 1);
+    
+    private final Index fields = new Index(2, 2);
+    
+    private final Index methods = new Index(3, 3);
+    
+    /**
+     * Pool of strings added since the table was last trimmed
+     */
+    private Map<String, String> pool = new HashMap<String, String>();
+    
+    public void clear() {
+        this.packages.clear();
+        this.classes.clear();
+        this.fields.clear();
+        this.methods.clear();
+        this.pool = new HashMap<String, String>();
+    }
+    
+    public boolean isEmpty() {
+        return this.packages.size() == 0 && this.classes.size() == 0 && this.fields.size() == 0 && this.methods.size() == 0;
+    }
+    
+    /**
+     * Get the total number of entries in the table
+     */
+    public int size() {
+        return this.packages.size() + this.classes.size() + this.fields.size() + this.methods.size();
+    }
+    
+    /**
+     * Release the string pool and any spare capacity once a set of mappings
+     * has been read. Strings added after the table is trimmed are pooled
+     * separately from those added before.
+     */
+    public void trim() {
+        this.packages.trim();
+        this.classes.trim();
+        this.fields.trim();
+        this.methods.trim();
+        this.pool = new HashMap<String, String>();
+    }
+    
+    /**
+     * Pool the specified string, returns the pooled instance
+     * 
+     * @param string string to pool, can be null
+     * @return pooled string
+     */
+    public String pool(String string) {
+        if (string == null) {
+            return null;
+        }
+        String pooled = this.pool.get(string);
+        if (pooled == null) {
+            this.pool.put(string, string);
+            return string;
+        }
+        return pooled;
+    }
+    
+    public void addPackage(String from, String to) {
+        this.packages.put(this.pool(from), this.pool(to));
+    }
+    
+    public void addClass(String from, String to) {
+        this.classes.put(this.pool(from), this.pool(to));
+    }
+    
+    public void addField(String owner, String name, String newOwner, String newName) {
+        this.fields.put(this.pool(owner), this.pool(name), this.pool(newOwner), this.pool(newName));
+    }
+    
+    public void addMethod(String owner, String name, String desc, String newOwner, String newName, String newDesc) {
+        this.methods.put(this.pool(owner), this.pool(name), this.pool(desc), this.pool(newOwner), this.pool(newName), this.pool(newDesc));
+    }
+    
+    public String getPackageMapping(String packageName) {
+        int index = this.packages.indexOf(packageName);
+        return index > -1 ? this.packages.get(index, 1) : null;
+    }
+    
+    public String getClassMapping(String className) {
+        int index = this.classes.indexOf(className);
+        return index > -1 ? this.classes.get(index, 1) : null;
+    }
+    
+    /**
+     * Get the mapping for the field with the specified owner and name, field
+     * mappings do not include descriptors
+     */
+    public MappingField getFieldMapping(String owner, String name) {
+        int index = this.fields.indexOf(owner, name);
+        return index > -1 ? new MappingField(this.fields.get(index, 2), this.fields.get(index, 3)) : null;
+    }
+    
+    public MappingMethod getMethodMapping(String owner, String name, String desc) {
+        int index = this.methods.indexOf(owner, name, desc);
+        return index > -1 ? new MappingMethod(this.methods.get(index, 3), this.methods.get(index, 4), this.methods.get(index, 5)) : null;
+    }
+
+}
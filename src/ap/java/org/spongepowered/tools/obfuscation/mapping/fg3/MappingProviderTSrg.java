@@ -24,9 +24,10 @@
  */
 package org.spongepowered.tools.obfuscation.mapping.fg3;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,11 +36,11 @@ import javax.annotation.processing.Messager;
 
 import org.spongepowered.asm.obfuscation.mapping.common.MappingField;
 import org.spongepowered.asm.obfuscation.mapping.common.MappingMethod;
-import org.spongepowered.asm.obfuscation.mapping.mcp.MappingFieldSrg;
 import org.spongepowered.tools.obfuscation.mapping.common.MappingProvider;
+import org.spongepowered.tools.obfuscation.mapping.common.MappingTable;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Strings;
-import com.google.common.collect.BiMap;
 import com.google.common.io.Files;
 
 /**
@@ -47,7 +48,13 @@ import com.google.common.io.Files;
  */
 public class MappingProviderTSrg extends MappingProvider {
     
-    private List<String> inputMappings = new ArrayList<String>();
+    private final MappingTable mappings = new MappingTable();
+    
+    /**
+     * Files read by this provider, the input mappings are streamed from these
+     * again when merging instead of being retained 
+     */
+    private final List<File> inputFiles = new ArrayList<File>();
 
     public MappingProviderTSrg(Messager messager, Filer filer) {
         super(messager, filer);
@@ -55,76 +62,111 @@ public class MappingProviderTSrg extends MappingProvider {
 
     @Override
     public void read(final File input) throws IOException {
-        // Locally scoped to avoid synthetic accessor
-        final BiMap<String, String> packageMap = this.packageMap;
-        final BiMap<String, String> classMap = this.classMap;
-        final BiMap<MappingField, MappingField> fieldMap = this.fieldMap;
-        final BiMap<MappingMethod, MappingMethod> methodMap = this.methodMap;
-        
         String fromClass = null, toClass = null;
-        this.inputMappings.addAll(Files.readLines(input, Charset.defaultCharset()));
+        this.inputFiles.add(input);
         
-        for (String line : this.inputMappings) {
-            if (Strings.isNullOrEmpty(line) || line.startsWith("#") || line.startsWith("tsrg2") || line.startsWith("\t\t")) {
-                continue;
-            }
-            
-            String[] parts = line.split(" ");
-            if (line.startsWith("\t")) {
-                if (fromClass == null) {
-                    throw new IllegalStateException("Error parsing TSRG file, found member declaration with no class: " + line);
-                }
-                parts[0] = parts[0].substring(1);
-                if (parts.length == 2) {
-                    fieldMap.forcePut(new MappingField(fromClass, parts[0]), new MappingField(toClass, parts[1]));
-                } else if (parts.length == 3) {
-                    methodMap.forcePut(new MappingMethod(fromClass, parts[0], parts[1]), new MappingMethodLazy(toClass, parts[2],
-                            parts[1], MappingProviderTSrg.this));
-                } else {
-                    throw new IllegalStateException("Error parsing TSRG file, too many arguments: " + line);
+        try (BufferedReader reader = Files.newReader(input, Charsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (Strings.isNullOrEmpty(line) || line.startsWith("#") || line.startsWith("tsrg2") || line.startsWith("\t\t")) {
+                    continue;
                 }
-            } else if (parts.length > 1) {
-                String from = parts[0];
-                if (parts.length == 2) {
-                    String to = parts[1];
-                    if (from.endsWith("/")) {
-                        packageMap.forcePut(from.substring(0, from.length() - 1), to.substring(0, to.length() - 1));
-                    } else {
-                        classMap.forcePut(from, to);
-                        fromClass = from;
-                        toClass = to;
+                
+                String[] parts = line.split(" ");
+                if (line.startsWith("\t")) {
+                    if (fromClass == null) {
+                        throw new IllegalStateException("Error parsing TSRG file, found member declaration with no class: " + line);
                     }
-                } else if (parts.length > 2) {
-                    String to = classMap.get(from);
-                    if (to == null) {
-                        throw new IllegalStateException("Error parsing TSRG file, found inline member before class mapping: " + line);
-                    }
-                    if (parts.length == 3) {
-                        fieldMap.forcePut(new MappingField(from, parts[1]), new MappingField(to, parts[2]));
-                    } else if (parts.length == 4) {
-                        methodMap.forcePut(new MappingMethod(from, parts[1], parts[2]), new MappingMethodLazy(to, parts[3], parts[2],
-                                MappingProviderTSrg.this));
+                    parts[0] = parts[0].substring(1);
+                    if (parts.length == 2) {
+                        this.mappings.addField(fromClass, parts[0], toClass, parts[1]);
+                    } else if (parts.length == 3) {
+                        this.mappings.addMethod(fromClass, parts[0], parts[1], toClass, parts[2], parts[1]);
                     } else {
                         throw new IllegalStateException("Error parsing TSRG file, too many arguments: " + line);
                     }
+                } else if (parts.length > 1) {
+                    String from = parts[0];
+                    if (parts.length == 2) {
+                        String to = parts[1];
+                        if (from.endsWith("/")) {
+                            this.mappings.addPackage(from.substring(0, from.length() - 1), to.substring(0, to.length() - 1));
+                        } else {
+                            this.mappings.addClass(from, to);
+                            fromClass = this.mappings.pool(from);
+                            toClass = this.mappings.pool(to);
+                        }
+                    } else if (parts.length > 2) {
+                        String to = this.mappings.getClassMapping(from);
+                        if (to == null) {
+                            throw new IllegalStateException("Error parsing TSRG file, found inline member before class mapping: " + line);
+                        }
+                        if (parts.length == 3) {
+                            this.mappings.addField(from, parts[1], to, parts[2]);
+                        } else if (parts.length == 4) {
+                            this.mappings.addMethod(from, parts[1], parts[2], to, parts[3], parts[2]);
+                        } else {
+                            throw new IllegalStateException("Error parsing TSRG file, too many arguments: " + line);
+                        }
+                    }
+                } else {
+                    throw new IllegalStateException("Error parsing TSRG, unrecognised directive: " + line);
                 }
-            } else {
-                throw new IllegalStateException("Error parsing TSRG, unrecognised directive: " + line);
             }
+        } finally {
+            this.mappings.trim();
         }
     }
     
     @Override
-    public MappingField getFieldMapping(MappingField field) {
-        // SRG fields do not have descriptors so strip the field descriptor before looking up
-        if (field.getDesc() != null) {
-            field = new MappingFieldSrg(field);
+    public void clear() {
+        super.clear();
+        this.mappings.clear();
+        this.inputFiles.clear();
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return super.isEmpty() && this.mappings.isEmpty();
+    }
+    
+    @Override
+    public MappingMethod getMethodMapping(MappingMethod method) {
+        MappingMethod mapped = this.mappings.getMethodMapping(method.getOwner(), method.getSimpleName(), method.getDesc());
+        if (mapped == null) {
+            return null;
         }
-        return this.fieldMap.get(field);
+        // TSRG does not contain mapped descriptors, the table stores the
+        // original descriptor which is remapped on demand
+        return new MappingMethodLazy(mapped.getOwner(), mapped.getSimpleName(), mapped.getDesc(), this);
+    }
+    
+    @Override
+    public MappingField getFieldMapping(MappingField field) {
+        // SRG fields do not have descriptors so the field descriptor is ignored
+        return this.mappings.getFieldMapping(field.getOwner(), field.getName());
+    }
+    
+    @Override
+    public String getClassMapping(String className) {
+        return this.mappings.getClassMapping(className);
+    }
+    
+    @Override
+    public String getPackageMapping(String packageName) {
+        return this.mappings.getPackageMapping(packageName);
     }
 
-    List<String> getInputMappings() {
-        return this.inputMappings;
+    /**
+     * Copy the contents of the input files to the supplied writer
+     */
+    void writeInputMappings(PrintWriter writer) throws IOException {
+        for (File input : this.inputFiles) {
+            try (BufferedReader reader = Files.newReader(input, Charsets.UTF_8)) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    writer.println(line);
+                }
+            }
+        }
     }
     
 }
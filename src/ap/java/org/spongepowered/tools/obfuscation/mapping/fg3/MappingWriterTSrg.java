@@ -56,11 +56,9 @@ public class MappingWriterTSrg extends MappingWriterSrg {
     }
 
     @Override
-    protected void writeHeader(PrintWriter writer) {
+    protected void writeHeader(PrintWriter writer) throws IOException {
         if (this.mergeExisting) {
-            for (String line : this.provider.getInputMappings()) {
-                writer.println(line);
-            }
+            this.provider.writeInputMappings(writer);
         }
     }
 
@@ -24,9 +24,9 @@
  */
 package org.spongepowered.tools.obfuscation.mapping.mcp;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
 
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
@@ -34,20 +34,24 @@ import javax.annotation.processing.Messager;
 import org.spongepowered.asm.mixin.throwables.MixinException;
 import org.spongepowered.asm.obfuscation.mapping.common.MappingField;
 import org.spongepowered.asm.obfuscation.mapping.common.MappingMethod;
-import org.spongepowered.asm.obfuscation.mapping.mcp.MappingFieldSrg;
 import org.spongepowered.tools.obfuscation.mapping.common.MappingProvider;
+import org.spongepowered.tools.obfuscation.mapping.common.MappingTable;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Strings;
-import com.google.common.collect.BiMap;
 import com.google.common.io.Files;
-import com.google.common.io.LineProcessor;
 
 /**
  * Ported from <strong>Srg2Source</strong> (
  * <a href=\"https://github.com/MinecraftForge/Srg2Source\">
  * github.com/MinecraftForge/Srg2Source</a>).
+ * 
+ * <p>Mappings are streamed from the input files into a {@link MappingTable}
+ * rather than being held in the maps provided by {@link MappingProvider}.</p>
  */
 public class MappingProviderSrg extends MappingProvider {
+    
+    protected final MappingTable mappings = new MappingTable();
 
     public MappingProviderSrg(Messager messager, Filer filer) {
         super(messager, filer);
@@ -55,50 +59,74 @@ public class MappingProviderSrg extends MappingProvider {
 
     @Override
     public void read(final File input) throws IOException {
-        // Locally scoped to avoid synthetic accessor
-        final BiMap<String, String> packageMap = this.packageMap;
-        final BiMap<String, String> classMap = this.classMap;
-        final BiMap<MappingField, MappingField> fieldMap = this.fieldMap;
-        final BiMap<MappingMethod, MappingMethod> methodMap = this.methodMap;
-
-        Files.readLines(input, Charset.defaultCharset(), new LineProcessor<String>() {
-            @Override
-            public String getResult() {
-                return null;
-            }
-            
-            @Override
-            public boolean processLine(String line) throws IOException {
+        try (BufferedReader reader = Files.newReader(input, Charsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
                 if (Strings.isNullOrEmpty(line) || line.startsWith("#")) {
-                    return true;
+                    continue;
                 }
-    
+                
                 String type = line.substring(0, 2);
                 String[] args = line.substring(4).split(" ");
-    
+                
                 if (type.equals("PK")) {
-                    packageMap.forcePut(args[0], args[1]);
+                    this.mappings.addPackage(args[0], args[1]);
                 } else if (type.equals("CL")) {
-                    classMap.forcePut(args[0], args[1]);
+                    this.mappings.addClass(args[0], args[1]);
                 } else if (type.equals("FD")) {
-                    fieldMap.forcePut(new MappingFieldSrg(args[0]).copy(), new MappingFieldSrg(args[1]).copy());
+                    this.mappings.addField(MappingProviderSrg.getOwner(args[0]), MappingProviderSrg.getName(args[0]),
+                            MappingProviderSrg.getOwner(args[1]), MappingProviderSrg.getName(args[1]));
                 } else if (type.equals("MD")) {
-                    methodMap.forcePut(new MappingMethod(args[0], args[1]), new MappingMethod(args[2], args[3]));
+                    this.mappings.addMethod(MappingProviderSrg.getOwner(args[0]), MappingProviderSrg.getName(args[0]), args[1],
+                            MappingProviderSrg.getOwner(args[2]), MappingProviderSrg.getName(args[2]), args[3]);
                 } else {
                     throw new MixinException("Invalid SRG file: " + input);
                 }
-                
-                return true;
             }
-        });
+        } finally {
+            this.mappings.trim();
+        }
+    }
+    
+    @Override
+    public void clear() {
+        super.clear();
+        this.mappings.clear();
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return super.isEmpty() && this.mappings.isEmpty();
+    }
+    
+    @Override
+    public MappingMethod getMethodMapping(MappingMethod method) {
+        return this.mappings.getMethodMapping(method.getOwner(), method.getSimpleName(), method.getDesc());
     }
     
     @Override
     public MappingField getFieldMapping(MappingField field) {
-        // SRG fields do not have descriptors so strip the field descriptor before looking up
-        if (field.getDesc() != null) {
-            field = new MappingFieldSrg(field);
-        }
-        return this.fieldMap.get(field);
+        // SRG fields do not have descriptors so the field descriptor is ignored
+        return this.mappings.getFieldMapping(field.getOwner(), field.getName());
     }
+    
+    @Override
+    public String getClassMapping(String className) {
+        return this.mappings.getClassMapping(className);
+    }
+    
+    @Override
+    public String getPackageMapping(String packageName) {
+        return this.mappings.getPackageMapping(packageName);
+    }
+    
+    private static String getOwner(String name) {
+        int pos = name.lastIndexOf('/');
+        return pos > -1 ? name.substring(0, pos) : null;
+    }
+    
+    private static String getName(String name) {
+        int pos = name.lastIndexOf('/');
+        return pos > -1 ? name.substring(pos + 1) : name;
+    }
+
 }
@@ -0,0 +1,252 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.tools.obfuscation.mapping;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+import org.spongepowered.asm.obfuscation.mapping.common.MappingField;
+import org.spongepowered.asm.obfuscation.mapping.common.MappingMethod;
+import org.spongepowered.tools.obfuscation.mapping.fg3.MappingProviderTSrg;
+import org.spongepowered.tools.obfuscation.mapping.mcp.MappingProviderSrg;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * Benchmark for the SRG and TSRG mapping providers used by the AP. A synthetic
+ * mapping set is generated in both formats and read by each provider, and the
+ * time taken to read the mappings, the heap retained by the provider once the
+ * mappings are loaded, and the time taken to look up every mapping in the set
+ * are reported.
+ * 
+ * <p>Run using the <tt>benchmarkMappings</tt> task. To compare providers
+ * across revisions, run the task on each revision with the same arguments.
+ * Retained heap is measured as the change in used heap after forcing
+ * collection, so the task runs with a fixed heap to keep this stable.</p>
+ */
+public final class MappingBenchmark {
+    
+    private static final int FIELDS_PER_CLASS = 10;
+    
+    private static final int METHODS_PER_CLASS = 20;
+    
+    private static final int PACKAGES = 50;
+    
+    /**
+     * Method descriptors, only JDK types are used since TSRG mappings do not
+     * remap descriptors
+     */
+    private static final String[] DESCRIPTORS = { "()V", "()I", "(I)V", "(Ljava/lang/String;)Z", "(IJ)Ljava/lang/Object;" };
+    
+    private int classes = 20000;
+    
+    private int runs = 3;
+    
+    private File dir;
+    
+    private MappingBenchmark() {
+    }
+    
+    public static void main(String[] args) {
+        MappingBenchmark benchmark = new MappingBenchmark();
+        try {
+            benchmark.parseArgs(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println("Usage: MappingBenchmark [--classes <n>] [--runs <n>] [--dir <dir>]");
+            System.exit(2);
+            return;
+        }
+        
+        try {
+            benchmark.run();
+        } catch (Throwable th) {
+            th.printStackTrace();
+            System.exit(1);
+        }
+    }
+    
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for argument " + arg);
+            }
+            String value = args[++i];
+            if ("--classes".equals(arg)) {
+                this.classes = MappingBenchmark.parseCount(arg, value);
+            } else if ("--runs".equals(arg)) {
+                this.runs = MappingBenchmark.parseCount(arg, value);
+            } else if ("--dir".equals(arg)) {
+                this.dir = new File(value);
+            } else {
+                throw new IllegalArgumentException("Unrecognised argument " + arg);
+            }
+        }
+    }
+    
+    private static int parseCount(String arg, String value) {
+        try {
+            return Math.max(1, Integer.parseInt(value));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+        }
+    }
+    
+    private void run() throws Exception {
+        File dir = this.dir != null ? this.dir : Files.createTempDir();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create directory " + dir);
+        }
+        
+        File srg = new File(dir, "benchmark.srg");
+        File tsrg = new File(dir, "benchmark.tsrg");
+        this.generate(srg, tsrg);
+        System.out.printf("Generated %d classes, %d fields and %d methods (SRG %.1fMB, TSRG %.1fMB) in %s%n", this.classes,
+                this.classes * MappingBenchmark.FIELDS_PER_CLASS, this.classes * MappingBenchmark.METHODS_PER_CLASS,
+                srg.length() / 1048576.0, tsrg.length() / 1048576.0, dir);
+        
+        this.measure("SRG", srg, new Callable<IMappingProvider>() {
+            @Override
+            public IMappingProvider call() {
+                return new MappingProviderSrg(null, null);
+            }
+        });
+        this.measure("TSRG", tsrg, new Callable<IMappingProvider>() {
+            @Override
+            public IMappingProvider call() {
+                return new MappingProviderTSrg(null, null);
+            }
+        });
+        
+        if (this.dir == null) {
+            srg.delete();
+            tsrg.delete();
+            dir.delete();
+        }
+    }
+    
+    /**
+     * Write the same mappings in SRG and TSRG format
+     */
+    private void generate(File srg, File tsrg) throws IOException {
+        try (BufferedWriter srgWriter = Files.newWriter(srg, Charsets.UTF_8); BufferedWriter tsrgWriter = Files.newWriter(tsrg, Charsets.UTF_8)) {
+            int member = 0;
+            for (int c = 0; c < this.classes; c++) {
+                String from = MappingBenchmark.getClassName(c);
+                String to = MappingBenchmark.getMappedClassName(c);
+                srgWriter.append("CL: ").append(from).append(' ').append(to).append('\n');
+                tsrgWriter.append(from).append(' ').append(to).append('\n');
+                for (int f = 0; f < MappingBenchmark.FIELDS_PER_CLASS; f++) {
+                    String name = "f" + f;
+                    String mapped = "field_" + ++member + "_a";
+                    srgWriter.append("FD: ").append(from).append('/').append(name).append(' ').append(to).append('/').append(mapped).append('\n');
+                    tsrgWriter.append('\t').append(name).append(' ').append(mapped).append('\n');
+                }
+                for (int m = 0; m < MappingBenchmark.METHODS_PER_CLASS; m++) {
+                    String name = "m" + m;
+                    String desc = MappingBenchmark.getDescriptor(m);
+                    String mapped = "func_" + ++member + "_a";
+                    srgWriter.append("MD: ").append(from).append('/').append(name).append(' ').append(desc).append(' ')
+                            .append(to).append('/').append(mapped).append(' ').append(desc).append('\n');
+                    tsrgWriter.append('\t').append(name).append(' ').append(desc).append(' ').append(mapped).append('\n');
+                }
+            }
+        }
+    }
+    
+    private void measure(String format, File file, Callable<IMappingProvider> factory) throws Exception {
+        long bestLoad = Long.MAX_VALUE, bestLookup = Long.MAX_VALUE, retained = 0;
+        int hits = 0;
+        IMappingProvider provider = null;
+        for (int run = 0; run < this.runs; run++) {
+            provider = null; // release the provider from the previous run before measuring
+            long before = MappingBenchmark.getUsedHeap();
+            long start = System.nanoTime();
+            provider = factory.call();
+            provider.read(file);
+            bestLoad = Math.min(bestLoad, System.nanoTime() - start);
+            retained = MappingBenchmark.getUsedHeap() - before;
+            
+            start = System.nanoTime();
+            hits = this.lookup(provider);
+            bestLookup = Math.min(bestLookup, System.nanoTime() - start);
+        }
+        
+        int expected = this.classes * (1 + MappingBenchmark.FIELDS_PER_CLASS + MappingBenchmark.METHODS_PER_CLASS);
+        System.out.printf("%-5s load %dms, retained heap %.1fMB, lookups %dms, hits %d of %d%n", format, bestLoad / 1000000,
+                retained / 1048576.0, bestLookup / 1000000, hits, expected);
+    }
+    
+    /**
+     * Look up every class, field and method in the generated set, also used
+     * to keep the provider reachable until the retained heap is measured
+     */
+    private int lookup(IMappingProvider provider) {
+        int hits = 0;
+        for (int c = 0; c < this.classes; c++) {
+            String owner = MappingBenchmark.getClassName(c);
+            if (provider.getClassMapping(owner) != null) {
+                hits++;
+            }
+            for (int f = 0; f < MappingBenchmark.FIELDS_PER_CLASS; f++) {
+                if (provider.getFieldMapping(new MappingField(owner, "f" + f, null)) != null) {
+                    hits++;
+                }
+            }
+            for (int m = 0; m < MappingBenchmark.METHODS_PER_CLASS; m++) {
+                if (provider.getMethodMapping(new MappingMethod(owner, "m" + m, MappingBenchmark.getDescriptor(m))) != null) {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+    
+    private static String getClassName(int index) {
+        return "c" + index;
+    }
+    
+    private static String getMappedClassName(int index) {
+        return "net/minecraft/pkg" + (index % MappingBenchmark.PACKAGES) + "/Class" + index;
+    }
+    
+    private static String getDescriptor(int method) {
+        return MappingBenchmark.DESCRIPTORS[method % MappingBenchmark.DESCRIPTORS.length];
+    }
+    
+    private static long getUsedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -26,7 +26,9 @@ package org.spongepowered.asm.mixin.transformer;
 
 import net.minecraft.launchwrapper.IClassTransformer;
 import org.spongepowered.asm.service.ILegacyClassTransformer;
+import org.spongepowered.asm.service.IMixinService;
 import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.service.mojang.MixinServiceLaunchWrapper;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -68,6 +70,10 @@ public final class Proxy implements IClassTransformer, ILegacyClassTransformer {
     @Override
     public byte[] transform(String name, String transformedName, byte[] basicClass) {
         if (this.isActive) {
+            IMixinService service = MixinService.getService();
+            if (service instanceof MixinServiceLaunchWrapper) {
+                ((MixinServiceLaunchWrapper)service).onClassLoading(transformedName);
+            }
             return Proxy.transformer.transformClassBytes(name, transformedName, basicClass);
         }
         
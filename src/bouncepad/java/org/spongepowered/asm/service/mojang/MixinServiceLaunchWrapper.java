@@ -50,6 +50,7 @@ import org.spongepowered.asm.service.*;
 import org.spongepowered.asm.transformers.MixinClassReader;
 import org.spongepowered.asm.util.Constants;
 import org.spongepowered.asm.util.Files;
+import org.spongepowered.asm.util.ResourceIndex;
 import org.spongepowered.asm.util.perf.Profiler;
 import org.spongepowered.asm.util.perf.Profiler.Section;
 
@@ -87,6 +88,12 @@ public class MixinServiceLaunchWrapper extends MixinServiceAbstract implements I
         "cpw.mods.fml.common.asm.transformers.TerminalTransformer"
     );
     
+    /**
+     * Maximum number of delegate-transformed classes to retain for metadata
+     * requests
+     */
+    private static final int TRANSFORMED_CLASS_CACHE_SIZE = 128;
+    
     /**
      * Log4j2 logger
      */
@@ -110,6 +117,48 @@ public class MixinServiceLaunchWrapper extends MixinServiceAbstract implements I
      */
     private IClassNameTransformer nameTransformer;
     
+    /**
+     * Index of resources in the launch classloader sources, built on first use
+     * and extended when new sources are added to the classloader
+     */
+    private final ResourceIndex resourceIndex = new ResourceIndex();
+    
+    /**
+     * Number of launch classloader sources already added to the index
+     */
+    private int indexedSources;
+    
+    /**
+     * Classloader with no sources and no parent, used to look up resources
+     * which the launch classloader would find in the bootstrap classloader
+     * when a complete index does not contain the resource
+     */
+    private final ClassLoader bootResources = new URLClassLoader(new URL[0], null);
+    
+    /**
+     * Classloader used to find class bytes not available from the launch
+     * classloader, created once if the application classloader is not a
+     * URLClassLoader
+     */
+    private URLClassLoader appClassLoader;
+    
+    /**
+     * Bytecode of classes which have been run through the delegated
+     * transformer chain for metadata purposes but not yet loaded. Entries are
+     * removed when the class is loaded, when the delegation list changes, or
+     * when the cache is full and the entry is the least recently used.
+     */
+    private final Map<String, byte[]> transformedClasses = new LinkedHashMap<String, byte[]>(16, 0.75F, true) {
+        
+        private static final long serialVersionUID = 1L;
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+            return this.size() > MixinServiceLaunchWrapper.TRANSFORMED_CLASS_CACHE_SIZE;
+        }
+        
+    };
+    
     public MixinServiceLaunchWrapper() {
         this.classLoaderUtil = new LaunchClassLoaderUtil(Launch.classLoader);
     }
@@ -319,6 +368,7 @@ public class MixinServiceLaunchWrapper extends MixinServiceAbstract implements I
     public void beginPhase() {
         Launch.classLoader.registerTransformer(MixinServiceLaunchWrapper.TRANSFORMER_PROXY_CLASS);
         this.delegatedTransformers = null;
+        this.clearTransformedClasses();
     }
     
     /* (non-Javadoc)
@@ -338,9 +388,43 @@ public class MixinServiceLaunchWrapper extends MixinServiceAbstract implements I
      */
     @Override
     public InputStream getResourceAsStream(String name) {
+        ResourceIndex index = this.getResourceIndex();
+        try {
+            InputStream stream = index.getResourceAsStream(name);
+            if (stream != null) {
+                return stream;
+            }
+            if (index.isComplete()) {
+                // The launch classloader has no parent, so a resource missing
+                // from its indexed sources can only come from the bootstrap
+                return this.bootResources.getResourceAsStream(name);
+            }
+        } catch (IOException ex) {
+            MixinServiceLaunchWrapper.logger.debug("Failed reading indexed resource {}: {}", name, ex.getMessage());
+        }
         return Launch.classLoader.getResourceAsStream(name);
     }
     
+    /**
+     * Get the resource index, adding any sources which were added to the launch
+     * classloader since the index was last used
+     */
+    private ResourceIndex getResourceIndex() {
+        synchronized (this.resourceIndex) {
+            if (Launch.classLoader.getSources().size() != this.indexedSources) {
+                URL[] sources = this.getClassPath();
+                for (URL source : sources) {
+                    if (!this.resourceIndex.add(source)) {
+                        MixinServiceLaunchWrapper.logger.debug("Could not index class path source {}, resource lookups will fall back", source);
+                    }
+                }
+                this.indexedSources = sources.length;
+                MixinServiceLaunchWrapper.logger.debug("Indexed {} resources in {} class path sources", this.resourceIndex.size(), sources.length);
+            }
+        }
+        return this.resourceIndex;
+    }
+    
     /* (non-Javadoc)
      * @see org.spongepowered.asm.service.IClassProvider#getClassPath()
      */
@@ -394,6 +478,7 @@ public class MixinServiceLaunchWrapper extends MixinServiceAbstract implements I
 
     public void setDelegatedTransformers(List<ILegacyClassTransformer> dtf) {
         this.delegatedTransformers = dtf;
+        this.clearTransformedClasses();
     }
 
     /**
@@ -441,6 +526,7 @@ public class MixinServiceLaunchWrapper extends MixinServiceAbstract implements I
         
         // Force rebuild of the list
         this.delegatedTransformers = null;
+        this.clearTransformedClasses();
     }
 
     /**
@@ -455,22 +541,29 @@ public class MixinServiceLaunchWrapper extends MixinServiceAbstract implements I
      */
     @Deprecated
     public byte[] getClassBytes(String name, String transformedName) throws IOException {
-        byte[] classBytes = Launch.classLoader.getClassBytes(name);
+        ResourceIndex index = this.getResourceIndex();
+        boolean indexed = false;
+        try {
+            byte[] classBytes = index.getResourceBytes(name.replace('.', '/').concat(".class"));
+            if (classBytes != null) {
+                return classBytes;
+            }
+            indexed = index.isComplete();
+        } catch (IOException ex) {
+            MixinServiceLaunchWrapper.logger.debug("Failed reading indexed class {}: {}", name, ex.getMessage());
+        }
+        
+        // The launch classloader only reads class bytes from its own sources,
+        // so it cannot supply a class which is missing from a complete index
+        byte[] classBytes = indexed ? null : Launch.classLoader.getClassBytes(name);
         if (classBytes != null) {
             return classBytes;
         }
 
-        URLClassLoader appClassLoader;
-        if (Launch.class.getClassLoader() instanceof URLClassLoader) {
-            appClassLoader = (URLClassLoader) Launch.class.getClassLoader();
-        } else {
-            appClassLoader = new URLClassLoader(new URL[]{}, Launch.class.getClassLoader());
-        }
-
         InputStream classStream = null;
         try {
             final String resourcePath = transformedName.replace('.', '/').concat(".class");
-            classStream = appClassLoader.getResourceAsStream(resourcePath);
+            classStream = this.getAppClassLoader().getResourceAsStream(resourcePath);
             return ByteStreams.toByteArray(classStream);
         } catch (Exception ex) {
             return null;
@@ -479,6 +572,17 @@ public class MixinServiceLaunchWrapper extends MixinServiceAbstract implements I
         }
     }
     
+    private URLClassLoader getAppClassLoader() {
+        if (this.appClassLoader == null) {
+            if (Launch.class.getClassLoader() instanceof URLClassLoader) {
+                this.appClassLoader = (URLClassLoader) Launch.class.getClassLoader();
+            } else {
+                this.appClassLoader = new URLClassLoader(new URL[]{}, Launch.class.getClassLoader());
+            }
+        }
+        return this.appClassLoader;
+    }
+    
     /**
      * Loads class bytecode from the classpath
      * 
@@ -492,6 +596,15 @@ public class MixinServiceLaunchWrapper extends MixinServiceAbstract implements I
     @Deprecated
     public byte[] getClassBytes(String className, boolean runTransformers) throws ClassNotFoundException, IOException {
         String transformedName = className.replace('/', '.');
+        if (runTransformers) {
+            synchronized (this.transformedClasses) {
+                byte[] cached = this.transformedClasses.get(transformedName);
+                if (cached != null) {
+                    return cached.clone();
+                }
+            }
+        }
+        
         String name = this.unmapClassName(transformedName);
         
         Profiler profiler = Profiler.getProfiler("mixin");
@@ -509,8 +622,34 @@ public class MixinServiceLaunchWrapper extends MixinServiceAbstract implements I
             throw new ClassNotFoundException(String.format("The specified class '%s' was not found", transformedName));
         }
 
+        if (runTransformers && this.delegatedTransformers != null) {
+            synchronized (this.transformedClasses) {
+                this.transformedClasses.put(transformedName, classBytes.clone());
+            }
+        }
+
         return classBytes;
     }
+    
+    /**
+     * Callback from the mixin transformer proxy when a class is being loaded
+     * by the launch classloader. Discards delegate-transformed bytecode which
+     * was retained for metadata requests since the class is now being loaded
+     * and will no longer be requested.
+     * 
+     * @param transformedName transformed name of the class being loaded
+     */
+    public void onClassLoading(String transformedName) {
+        synchronized (this.transformedClasses) {
+            this.transformedClasses.remove(transformedName);
+        }
+    }
+    
+    private void clearTransformedClasses() {
+        synchronized (this.transformedClasses) {
+            this.transformedClasses.clear();
+        }
+    }
 
     /**
      * Since we obtain the class bytes with getClassBytes(), we need to apply
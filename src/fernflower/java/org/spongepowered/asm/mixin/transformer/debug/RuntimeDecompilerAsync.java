@@ -26,50 +26,148 @@ package org.spongepowered.asm.mixin.transformer.debug;
 
 import java.io.File;
 import java.lang.Thread.UncaughtExceptionHandler;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
 
 /**
- * Asynchronous decompiler, runs mixin export task in a separate thread to avoid
- * slowing down loading time
+ * Asynchronous decompiler, runs mixin export task in a pool of worker threads
+ * to avoid slowing down loading time. A class which is exported again whilst
+ * still waiting to be decompiled is only decompiled once, and classes still
+ * queued at shutdown are decompiled before the JVM exits, up to the configured
+ * {@link Option#DEBUG_EXPORT_DECOMPILE_FLUSH_TIMEOUT deadline}.
  */
-public class RuntimeDecompilerAsync extends RuntimeDecompiler implements Runnable, UncaughtExceptionHandler {
+public class RuntimeDecompilerAsync extends RuntimeDecompiler implements UncaughtExceptionHandler {
+    
+    /**
+     * Progress is logged each time this many classes have been decompiled
+     */
+    private static final int PROGRESS_INTERVAL = 100;
+    
+    /**
+     * Files waiting to be decompiled, used to discard repeated requests
+     */
+    private final Set<File> pending = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+    
+    private final AtomicInteger submitted = new AtomicInteger();
+    
+    private final AtomicInteger completed = new AtomicInteger();
     
-    private final BlockingQueue<File> queue = new LinkedBlockingQueue<File>();
+    private final AtomicInteger discarded = new AtomicInteger();
     
-    private final Thread thread;
+    private final AtomicInteger threadCount = new AtomicInteger();
     
-    private boolean run = true;
+    private final ExecutorService executor;
+    
+    private final int threads;
+    
+    private final int flushTimeout;
+    
+    private volatile boolean run = true;
 
     public RuntimeDecompilerAsync(File outputPath) {
         super(outputPath);
-        this.thread = new Thread(this, "Decompiler thread");
-        this.thread.setDaemon(true);
-        this.thread.setPriority(Thread.MIN_PRIORITY);
-        this.thread.setUncaughtExceptionHandler(this);
-        this.thread.start();
+        MixinEnvironment env = MixinEnvironment.getCurrentEnvironment();
+        this.threads = this.getIntOption(env, Option.DEBUG_EXPORT_DECOMPILE_THREADS, 1);
+        this.flushTimeout = this.getIntOption(env, Option.DEBUG_EXPORT_DECOMPILE_FLUSH_TIMEOUT, 30);
+        this.executor = Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "Decompiler thread #" + RuntimeDecompilerAsync.this.threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                thread.setUncaughtExceptionHandler(RuntimeDecompilerAsync.this);
+                return thread;
+            }
+        });
+        
+        Runtime.getRuntime().addShutdownHook(new Thread("Decompiler shutdown") {
+            @Override
+            public void run() {
+                RuntimeDecompilerAsync.this.shutdown();
+            }
+        });
+    }
+    
+    private int getIntOption(MixinEnvironment env, Option option, int defaultValue) {
+        String value = env.getOptionValue(option);
+        try {
+            return Math.max(Integer.parseInt(value), 1);
+        } catch (NumberFormatException ex) {
+            this.logger.warn("Invalid value '{}' for {}, using {}", value, option, defaultValue);
+            return defaultValue;
+        }
     }
 
     @Override
-    public void decompile(File file) {
-        if (this.run) {
-            this.queue.offer(file);
-        } else {
-            super.decompile(file);
-        }
+    public String toString() {
+        return super.toString() + " using " + this.threads + " thread(s)";
+    }
+    
+    /**
+     * Get the number of classes waiting to be decompiled
+     */
+    public int getQueueDepth() {
+        return this.pending.size();
+    }
+    
+    /**
+     * Get the number of classes decompiled so far
+     */
+    public int getCompletedCount() {
+        return this.completed.get();
+    }
+    
+    /**
+     * Get the number of decompile requests discarded because the class was
+     * already waiting to be decompiled
+     */
+    public int getDiscardedCount() {
+        return this.discarded.get();
     }
 
     @Override
-    public void run() {
-        while (this.run) {
-            try {
-                File file = this.queue.take();
-                super.decompile(file);
-            } catch (InterruptedException ex) {
-                this.run = false;
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            }
+    public void decompile(final File file) {
+        if (!this.run) {
+            super.decompile(file);
+            return;
+        }
+        
+        if (!this.pending.add(file)) {
+            this.discarded.incrementAndGet();
+            return;
+        }
+        
+        this.submitted.incrementAndGet();
+        try {
+            this.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    RuntimeDecompilerAsync.this.decompileQueued(file);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            this.pending.remove(file);
+            super.decompile(file);
+        }
+    }
+    
+    void decompileQueued(File file) {
+        // Remove before decompiling so that a later export is not discarded
+        this.pending.remove(file);
+        super.decompile(file);
+        int count = this.completed.incrementAndGet();
+        if (count % RuntimeDecompilerAsync.PROGRESS_INTERVAL == 0) {
+            this.logger.info("Decompiled {} of {} classes, {} waiting", count, this.submitted.get(), this.pending.size());
         }
     }
 
@@ -77,13 +175,33 @@ public class RuntimeDecompilerAsync extends RuntimeDecompiler implements Runnabl
     public void uncaughtException(Thread thread, Throwable ex) {
         this.logger.error("Async decompiler encountered an error and will terminate. Further decompile requests will be handled synchronously. {} {}",
                 ex.getClass().getName(), ex.getMessage());
-        this.flush();
+        this.run = false;
+        this.executor.shutdown();
     }
 
-    private void flush() {
+    /**
+     * Stop accepting new work and wait until the queued classes are
+     * decompiled or the flush deadline passes
+     */
+    void shutdown() {
         this.run = false;
-        for (File file; (file = this.queue.poll()) != null;) {
-            this.decompile(file);
+        this.executor.shutdown();
+        int waiting = this.pending.size();
+        if (waiting > 0) {
+            this.logger.info("Waiting up to {}s for {} queued classes to be decompiled", this.flushTimeout, waiting);
+        }
+        
+        try {
+            if (!this.executor.awaitTermination(this.flushTimeout, TimeUnit.SECONDS)) {
+                this.logger.warn("Decompiler flush timed out, {} classes were not decompiled", this.pending.size());
+                this.executor.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            this.executor.shutdownNow();
+            Thread.currentThread().interrupt();
         }
+        
+        this.logger.info("Decompiled {} classes, {} repeated requests were discarded", this.completed.get(), this.discarded.get());
     }
+    
 }
@@ -42,6 +42,7 @@ import org.objectweb.asm.Opcodes;
 import org.spongepowered.asm.mixin.extensibility.IEnvironmentTokenProvider;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.InjectionPoint;
 import org.spongepowered.asm.mixin.throwables.MixinException;
 import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
 import org.spongepowered.asm.obfuscation.RemapperChain;
@@ -228,6 +229,15 @@ public final class MixinEnvironment implements ITokenProvider {
          */
         DEBUG_EXPORT_FILTER(Option.DEBUG_EXPORT, "filter", false),
         
+        /**
+         * Export classes into a single jar (<tt>.mixin.out/class.jar</tt>)
+         * which is written by a background thread, instead of writing each
+         * class to disk on the transforming thread. This makes export cheap
+         * enough to leave enabled under load. Classes exported this way do not
+         * contain stack map frames and are not decompiled.
+         */
+        DEBUG_EXPORT_ARCHIVE(Option.DEBUG_EXPORT, Inherit.INDEPENDENT, "archive"),
+        
         /**
          * Allow fernflower to be disabled even if it is found on the classpath
          */
@@ -241,6 +251,18 @@ public final class MixinEnvironment implements ITokenProvider {
          */
         DEBUG_EXPORT_DECOMPILE_THREADED(Option.DEBUG_EXPORT_DECOMPILE, Inherit.ALLOW_OVERRIDE, "async"),
         
+        /**
+         * Number of worker threads to use for threaded decompilation, defaults
+         * to a single thread
+         */
+        DEBUG_EXPORT_DECOMPILE_THREADS(Option.DEBUG_EXPORT_DECOMPILE_THREADED, "threads", "1"),
+        
+        /**
+         * Time in seconds to wait at shutdown for queued classes to be
+         * decompiled when threaded decompilation is enabled
+         */
+        DEBUG_EXPORT_DECOMPILE_FLUSH_TIMEOUT(Option.DEBUG_EXPORT_DECOMPILE_THREADED, "flushTimeout", "30"),
+        
         /**
          * By default, if the runtime export decompiler is active, mixin generic
          * signatures are merged into target classes. However this can cause
@@ -257,6 +279,30 @@ public final class MixinEnvironment implements ITokenProvider {
          */
         DEBUG_VERIFY(Option.DEBUG_ALL, "verify"),
         
+        /**
+         * Run the post-mixin verification enabled by {@link #DEBUG_VERIFY} on
+         * a snapshot of each class in a background thread instead of on the
+         * transforming thread. Failures are logged rather than affecting the
+         * class being transformed. Stack map frames are not recomputed in this
+         * mode since doing so requires class hierarchy information which is
+         * only available on the transforming thread.
+         */
+        DEBUG_VERIFY_ASYNC(Option.DEBUG_VERIFY, Inherit.INDEPENDENT, "async"),
+        
+        /**
+         * Number of worker threads to use for background verification
+         */
+        DEBUG_VERIFY_ASYNC_THREADS(Option.DEBUG_VERIFY_ASYNC, "threads", "1"),
+        
+        /**
+         * Raise failures detected by background verification as a
+         * <tt>ValidationFailedException</tt> on the transforming thread at the
+         * next phase change, and when the environment is audited. Failures
+         * detected after the last opportunity to raise them are only reported
+         * in the summary logged at shutdown.
+         */
+        DEBUG_VERIFY_ASYNC_FAIL(Option.DEBUG_VERIFY_ASYNC, Inherit.INDEPENDENT, "fail"),
+        
         /**
          * Enable verbose mixin logging (elevates all DEBUG level messages to
          * INFO level) 
@@ -327,6 +373,65 @@ public final class MixinEnvironment implements ITokenProvider {
          */
         HOT_SWAP("hotSwap"),
         
+        /**
+         * Discover injection points for the injectors in each target class on
+         * a pool of worker threads. Discovery only reads the target methods,
+         * located injection points are still registered and injected on the
+         * transforming thread in the usual order. Injectors whose injection
+         * points are not {@link InjectionPoint#isThreadSafe thread-safe} are
+         * always discovered on the transforming thread.
+         */
+        PARALLEL_DISCOVERY("parallelDiscovery"),
+        
+        /**
+         * Number of worker threads to use for parallel injection point
+         * discovery, defaults to the number of available processors
+         */
+        PARALLEL_DISCOVERY_THREADS(Option.PARALLEL_DISCOVERY, "threads", "0"),
+        
+        /**
+         * Path to a manifest of classes woven ahead of time by the offline
+         * weaver. Mixins recorded in the manifest are not applied again to
+         * woven classes whose bytes are unchanged. A listed class whose bytes
+         * have changed raises an error, as does a listed class transformed by
+         * a service which does not pass class bytes to the transformer.
+         */
+        WOVEN_MANIFEST("wovenManifest", ""),
+        
+        /**
+         * Collect transformer metrics and publish them through the platform
+         * MBean server as <tt>org.spongepowered.mixin:type=Metrics</tt>.
+         * Metrics are also collected when an {@link
+         * org.spongepowered.asm.service.IMixinMetrics} listener is registered.
+         * When enabled, an estimate of the heap retained by mixin structures
+         * is also logged when the environment is audited.
+         */
+        METRICS("metrics"),
+        
+        /**
+         * Defer loading, parsing and validating mixins until one of their
+         * targets is first loaded. The declared targets are read from the
+         * header of each mixin class without running the transformer chain
+         * over it, the full mixin is read when it is prepared. Ignored when {@link
+         * #DEBUG_STRICT} is enabled so that all mixins are validated up front.
+         */
+        LAZY_PREPARE("lazyPrepare"),
+        
+        /**
+         * Release the tree of each mixin once all of its targets have been
+         * processed, keeping only compressed bytecode from which the tree is
+         * read again if the mixin is needed for a late target or hot swap
+         */
+        RELEASE_TREES("releaseTrees"),
+        
+        /**
+         * Name of the phase at which the trees of all prepared mixins are
+         * released regardless of whether their targets have been processed,
+         * for example <tt>DEFAULT</tt>. Trees are only released per-mixin when
+         * this is empty.
+         */
+        RELEASE_TREES_PHASE(Option.RELEASE_TREES, "phase", ""),
+        
         /**
          * Parent for environment settings
          */
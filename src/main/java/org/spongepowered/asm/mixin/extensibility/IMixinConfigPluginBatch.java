@@ -0,0 +1,119 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.extensibility;
+
+import java.util.List;
+import java.util.Set;
+
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * <p>Extension of {@link IMixinConfigPlugin} for plugins which want to observe
+ * mixin application once per target class rather than once per mixin, or
+ * which have no interest in some of the per-mixin hooks at all.</p>
+ * 
+ * <p>The hooks the plugin wishes to receive are queried once via {@link
+ * #getHooks} immediately after {@link #onLoad}, hooks which are not returned
+ * are never invoked and the transformer skips the plugin entirely for those
+ * phases. For example a plugin which only makes decisions in {@link
+ * #acceptTargets} can return an empty set to avoid being called for every
+ * mixin and target.</p>
+ * 
+ * <p>When batch hooks are requested, {@link #preApplyTarget} is called before
+ * the per-mixin {@link #preApply} hook for any mixin in the companion config
+ * being applied to the target, and {@link #postApplyTarget} is called after
+ * the per-mixin {@link #postApply} hook for every such mixin.</p>
+ */
+public interface IMixinConfigPluginBatch extends IMixinConfigPlugin {
+    
+    /**
+     * Plugin hooks which can be requested by a plugin
+     */
+    public static enum Hook {
+        
+        /**
+         * {@link IMixinConfigPlugin#shouldApplyMixin}, if not requested all
+         * mixins in the config are applied to their declared targets 
+         */
+        SHOULD_APPLY,
+        
+        /**
+         * {@link IMixinConfigPlugin#preApply}, called for each mixin
+         */
+        PRE_APPLY,
+        
+        /**
+         * {@link IMixinConfigPlugin#postApply}, called for each mixin
+         */
+        POST_APPLY,
+        
+        /**
+         * {@link IMixinConfigPluginBatch#preApplyTarget}, called once for each
+         * target class
+         */
+        PRE_APPLY_TARGET,
+        
+        /**
+         * {@link IMixinConfigPluginBatch#postApplyTarget}, called once for
+         * each target class
+         */
+        POST_APPLY_TARGET
+        
+    }
+    
+    /**
+     * Called after {@link #onLoad} to determine which hooks this plugin wishes
+     * to receive. Returning <code>null</code> requests all of the hooks
+     * defined by {@link IMixinConfigPlugin} but neither of the batch hooks.
+     * 
+     * @return set of hooks to invoke on this plugin
+     */
+    public abstract Set<Hook> getHooks();
+    
+    /**
+     * Called <b>before</b> the mixins from the companion config are applied to
+     * a target class, allows any pre-application transformations to be
+     * applied once for all mixins.
+     * 
+     * @param targetClassName Transformed name of the target class
+     * @param targetClass Target class tree
+     * @param mixins Mixins from the companion config which are about to be
+     *      applied to the target, in application order
+     */
+    public abstract void preApplyTarget(String targetClassName, ClassNode targetClass, List<IMixinInfo> mixins);
+    
+    /**
+     * Called <b>after</b> the mixins from the companion config have been
+     * applied to a target class, allows any post-application transformations
+     * to be applied once for all mixins.
+     * 
+     * @param targetClassName Transformed name of the target class
+     * @param targetClass Target class tree
+     * @param mixins Mixins from the companion config which were applied to
+     *      the target, in application order
+     */
+    public abstract void postApplyTarget(String targetClassName, ClassNode targetClass, List<IMixinInfo> mixins);
+
+}
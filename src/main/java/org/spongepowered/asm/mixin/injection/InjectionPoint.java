@@ -31,6 +31,7 @@ import java.lang.annotation.Target;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -161,6 +162,50 @@ public abstract class InjectionPoint {
         
     }
     
+    /**
+     * Factory for injection points. Injection points registered with a factory
+     * are created by calling the factory directly, injection points registered
+     * without one are instanced reflectively via their constructor which
+     * accepts an {@link InjectionPointData}.
+     */
+    public interface Factory {
+        
+        /**
+         * Create a new injection point from the supplied data
+         * 
+         * @param data parsed injection point data
+         * @return new injection point
+         */
+        public abstract InjectionPoint create(InjectionPointData data);
+        
+    }
+    
+    /**
+     * Factory which calls the injection point constructor reflectively, used
+     * for injection points registered without a factory. The constructor is
+     * resolved once per injection point class.
+     */
+    static final class ReflectiveFactory implements Factory {
+        
+        private final Constructor<? extends InjectionPoint> ctor;
+        
+        ReflectiveFactory(Constructor<? extends InjectionPoint> ctor) {
+            this.ctor = ctor;
+        }
+        
+        @Override
+        public InjectionPoint create(InjectionPointData data) {
+            try {
+                return this.ctor.newInstance(data);
+            } catch (InvocationTargetException ex) {
+                throw new UndeclaredThrowableException(ex.getCause());
+            } catch (ReflectiveOperationException ex) {
+                throw new UndeclaredThrowableException(ex);
+            }
+        }
+        
+    }
+    
     /**
      * Selector type for slice delmiters, ignored for normal injection points.
      * <tt>Selectors</tt> can be supplied in {@link At} annotations by including
@@ -259,20 +304,86 @@ public abstract class InjectionPoint {
      */
     private static Map<String, Class<? extends InjectionPoint>> types = new HashMap<String, Class<? extends InjectionPoint>>();
     
+    /**
+     * Factories for injection point types, populated by registration and
+     * lazily with reflective factories for types registered without one
+     */
+    private static Map<Class<? extends InjectionPoint>, Factory> factories = new HashMap<Class<? extends InjectionPoint>, Factory>();
+    
     static {
         // Standard Injection Points
-        InjectionPoint.registerBuiltIn(BeforeFieldAccess.class);
-        InjectionPoint.registerBuiltIn(BeforeInvoke.class);
-        InjectionPoint.registerBuiltIn(BeforeNew.class);
-        InjectionPoint.registerBuiltIn(BeforeReturn.class);
-        InjectionPoint.registerBuiltIn(BeforeStringInvoke.class);
-        InjectionPoint.registerBuiltIn(JumpInsnPoint.class);
-        InjectionPoint.registerBuiltIn(MethodHead.class);
-        InjectionPoint.registerBuiltIn(AfterInvoke.class);
-        InjectionPoint.registerBuiltIn(BeforeLoadLocal.class);
-        InjectionPoint.registerBuiltIn(AfterStoreLocal.class);
-        InjectionPoint.registerBuiltIn(BeforeFinalReturn.class);
-        InjectionPoint.registerBuiltIn(BeforeConstant.class);
+        InjectionPoint.registerBuiltIn(BeforeFieldAccess.class, new Factory() {
+            @Override
+            public InjectionPoint create(InjectionPointData data) {
+                return new BeforeFieldAccess(data);
+            }
+        });
+        InjectionPoint.registerBuiltIn(BeforeInvoke.class, new Factory() {
+            @Override
+            public InjectionPoint create(InjectionPointData data) {
+                return new BeforeInvoke(data);
+            }
+        });
+        InjectionPoint.registerBuiltIn(BeforeNew.class, new Factory() {
+            @Override
+            public InjectionPoint create(InjectionPointData data) {
+                return new BeforeNew(data);
+            }
+        });
+        InjectionPoint.registerBuiltIn(BeforeReturn.class, new Factory() {
+            @Override
+            public InjectionPoint create(InjectionPointData data) {
+                return new BeforeReturn(data);
+            }
+        });
+        InjectionPoint.registerBuiltIn(BeforeStringInvoke.class, new Factory() {
+            @Override
+            public InjectionPoint create(InjectionPointData data) {
+                return new BeforeStringInvoke(data);
+            }
+        });
+        InjectionPoint.registerBuiltIn(JumpInsnPoint.class, new Factory() {
+            @Override
+            public InjectionPoint create(InjectionPointData data) {
+                return new JumpInsnPoint(data);
+            }
+        });
+        InjectionPoint.registerBuiltIn(MethodHead.class, new Factory() {
+            @Override
+            public InjectionPoint create(InjectionPointData data) {
+                return new MethodHead(data);
+            }
+        });
+        InjectionPoint.registerBuiltIn(AfterInvoke.class, new Factory() {
+            @Override
+            public InjectionPoint create(InjectionPointData data) {
+                return new AfterInvoke(data);
+            }
+        });
+        InjectionPoint.registerBuiltIn(BeforeLoadLocal.class, new Factory() {
+            @Override
+            public InjectionPoint create(InjectionPointData data) {
+                return new BeforeLoadLocal(data);
+            }
+        });
+        InjectionPoint.registerBuiltIn(AfterStoreLocal.class, new Factory() {
+            @Override
+            public InjectionPoint create(InjectionPointData data) {
+                return new AfterStoreLocal(data);
+            }
+        });
+        InjectionPoint.registerBuiltIn(BeforeFinalReturn.class, new Factory() {
+            @Override
+            public InjectionPoint create(InjectionPointData data) {
+                return new BeforeFinalReturn(data);
+            }
+        });
+        InjectionPoint.registerBuiltIn(BeforeConstant.class, new Factory() {
+            @Override
+            public InjectionPoint create(InjectionPointData data) {
+                return new BeforeConstant(data);
+            }
+        });
     }
     
     private final String slice;
@@ -367,6 +478,20 @@ public abstract class InjectionPoint {
         return RestrictTargetLevel.METHODS_ONLY;
     }
 
+    /**
+     * Get whether {@link #find} only inspects the supplied insn list and can
+     * therefore be called from a worker thread when injection point discovery
+     * is running in parallel. Injection points which consult class metadata,
+     * shared caches or other global state must return <tt>false</tt>, which is
+     * the default so that custom injection points are always discovered on the
+     * transforming thread unless they opt in.
+     * 
+     * @return true if this injection point can be searched concurrently
+     */
+    public boolean isThreadSafe() {
+        return false;
+    }
+
     /**
      * Find injection points in the supplied insn list
      * 
@@ -420,6 +545,16 @@ public abstract class InjectionPoint {
             this.components = components;
         }
 
+        @Override
+        public boolean isThreadSafe() {
+            for (InjectionPoint component : this.components) {
+                if (!component.isThreadSafe()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         /* (non-Javadoc)
          * @see org.spongepowered.asm.mixin.injection.InjectionPoint#toString()
          */
@@ -524,6 +659,11 @@ public abstract class InjectionPoint {
             return "InjectionPoint(" + this.getClass().getSimpleName() + ")[" + this.input + "]";
         }
 
+        @Override
+        public boolean isThreadSafe() {
+            return this.input.isThreadSafe();
+        }
+
         @Override
         public boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes) {
             List<AbstractInsnNode> list = (nodes instanceof List) ? (List<AbstractInsnNode>) nodes : new ArrayList<AbstractInsnNode>(nodes);
@@ -795,18 +935,22 @@ public abstract class InjectionPoint {
     }
     
     private static InjectionPoint create(IMixinContext context, InjectionPointData data, Class<? extends InjectionPoint> ipClass) {
-        Constructor<? extends InjectionPoint> ipCtor = null;
-        try {
-            ipCtor = ipClass.getDeclaredConstructor(InjectionPointData.class);
-            ipCtor.setAccessible(true);
-        } catch (NoSuchMethodException ex) {
-            throw new InvalidInjectionException(context, ipClass.getName() + " must contain a constructor which accepts an InjectionPointData", ex);
+        Factory factory = InjectionPoint.factories.get(ipClass);
+        if (factory == null) {
+            try {
+                Constructor<? extends InjectionPoint> ipCtor = ipClass.getDeclaredConstructor(InjectionPointData.class);
+                ipCtor.setAccessible(true);
+                factory = new ReflectiveFactory(ipCtor);
+            } catch (NoSuchMethodException ex) {
+                throw new InvalidInjectionException(context, ipClass.getName() + " must contain a constructor which accepts an InjectionPointData", ex);
+            }
+            InjectionPoint.factories.put(ipClass, factory);
         }
 
         InjectionPoint point = null;
         try {
-            point = ipCtor.newInstance(data);
-        } catch (InvocationTargetException ex) {
+            point = factory.create(data);
+        } catch (UndeclaredThrowableException ex) {
             throw new InvalidInjectionException(context, "Error whilst instancing injection point " + ipClass.getName() + " for " + data.getAt(), ex.getCause());
         } catch (Exception ex) {
             throw new InvalidInjectionException(context, "Error whilst instancing injection point " + ipClass.getName() + " for " + data.getAt(), ex);
@@ -891,6 +1035,21 @@ public abstract class InjectionPoint {
      * @param namespace namespace for AtCode
      */
     public static void register(Class<? extends InjectionPoint> type, String namespace) {
+        InjectionPoint.register(type, namespace, null);
+    }
+    
+    /**
+     * Register an injection point class with a factory which will be used to
+     * create instances of the injection point instead of reflectively calling
+     * its constructor. The supplied class must be decorated with an
+     * {@link AtCode} annotation for registration purposes.
+     * 
+     * @param type injection point type to register
+     * @param namespace namespace for AtCode
+     * @param factory factory for the injection point, can be null to use the
+     *      constructor which accepts an {@link InjectionPointData}
+     */
+    public static void register(Class<? extends InjectionPoint> type, String namespace, Factory factory) {
         AtCode code = type.<AtCode>getAnnotation(AtCode.class);
         if (code == null) {
             throw new IllegalArgumentException("Injection point class " + type + " is not annotated with @AtCode");
@@ -916,6 +1075,11 @@ public abstract class InjectionPoint {
         }
         
         InjectionPoint.types.put(id, type);
+        if (factory != null) {
+            InjectionPoint.factories.put(type, factory);
+        } else {
+            InjectionPoint.factories.remove(type);
+        }
     }
     
     /**
@@ -923,11 +1087,13 @@ public abstract class InjectionPoint {
      * namespacing checks
      * 
      * @param type injection point type to register
+     * @param factory factory for the injection point
      */
-    private static void registerBuiltIn(Class<? extends InjectionPoint> type) {
+    private static void registerBuiltIn(Class<? extends InjectionPoint> type, Factory factory) {
         String code = type.<AtCode>getAnnotation(AtCode.class).value().toUpperCase(Locale.ROOT);
         InjectionPoint.types.put(code, type);
         InjectionPoint.types.put("MIXIN:" + code, type);
+        InjectionPoint.factories.put(type, factory);
     }
 
 }
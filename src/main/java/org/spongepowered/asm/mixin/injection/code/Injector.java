@@ -234,11 +234,38 @@ public abstract class Injector {
      * @return discovered injection points
      */
     public final List<InjectionNode> find(InjectorTarget injectorTarget, List<InjectionPoint> injectionPoints) {
+        return this.addTargetNodes(injectorTarget.getTarget(), this.discover(injectorTarget, injectionPoints));
+    }
+
+    /**
+     * Locate the target nodes nominated by the supplied injection points
+     * without registering them with the target. This phase only reads the
+     * target method and can therefore be run for several injectors at once,
+     * the returned nodes must then be passed to {@link #addTargetNodes} in the
+     * usual order.
+     * 
+     * @param injectorTarget Target method to inject into
+     * @param injectionPoints InjectionPoint instances which will identify
+     *      target insns in the target method 
+     * @return nominated target nodes, in instruction order
+     */
+    public final Collection<TargetNode> discover(InjectorTarget injectorTarget, List<InjectionPoint> injectionPoints) {
         this.sanityCheck(injectorTarget.getTarget(), injectionPoints);
+        return this.findTargetNodes(injectorTarget, injectionPoints);
+    }
 
+    /**
+     * Register target nodes previously returned by {@link #discover} with the
+     * target
+     * 
+     * @param target Target method to inject into
+     * @param targetNodes nodes returned by {@link #discover}
+     * @return injection nodes for this injector
+     */
+    public final List<InjectionNode> addTargetNodes(Target target, Collection<TargetNode> targetNodes) {
         List<InjectionNode> myNodes = new ArrayList<InjectionNode>();
-        for (TargetNode node : this.findTargetNodes(injectorTarget, injectionPoints)) {
-            this.addTargetNode(injectorTarget.getTarget(), myNodes, node.insn, node.nominators);
+        for (TargetNode node : targetNodes) {
+            this.addTargetNode(target, myNodes, node.insn, node.nominators);
         }
         return myNodes;
     }
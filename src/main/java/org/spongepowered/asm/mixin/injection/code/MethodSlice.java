@@ -353,6 +353,14 @@ public final class MethodSlice {
         return this.id;
     }
     
+    /**
+     * Get whether the injection points which bound this slice can be searched
+     * concurrently, see {@link InjectionPoint#isThreadSafe}
+     */
+    public boolean isThreadSafe() {
+        return (this.from == null || this.from.isThreadSafe()) && (this.to == null || this.to.isThreadSafe());
+    }
+    
     /**
      * Get a sliced insn list based on the parameters specified in this slice
      * 
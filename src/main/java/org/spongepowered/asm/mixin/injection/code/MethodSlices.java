@@ -82,6 +82,19 @@ public final class MethodSlices {
         return this.slices.get(id);
     }
     
+    /**
+     * Get whether all slices in this collection can be computed concurrently,
+     * see {@link MethodSlice#isThreadSafe}
+     */
+    public boolean isThreadSafe() {
+        for (MethodSlice slice : this.slices.values()) {
+            if (!slice.isThreadSafe()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     /* (non-Javadoc)
      * @see java.lang.Object#toString()
      */
@@ -186,7 +186,7 @@ public class BeforeLoadLocal extends LocalVariableInjectionPoint {
      */
     private boolean opcodeAfter;
     
-    protected BeforeLoadLocal(InjectionPointData data) {
+    public BeforeLoadLocal(InjectionPointData data) {
         this(data, Opcodes.ILOAD, false);
     }
 
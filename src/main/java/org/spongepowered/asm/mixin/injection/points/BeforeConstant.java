@@ -222,6 +222,11 @@ public class BeforeConstant extends InjectionPoint {
         return Ints.toArray(opcodes);
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes) {
         boolean found = false;
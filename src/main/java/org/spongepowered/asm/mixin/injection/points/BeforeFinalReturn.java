@@ -77,6 +77,11 @@ public class BeforeFinalReturn extends InjectionPoint {
         return RestrictTargetLevel.ALLOW_ALL;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes) {
         AbstractInsnNode ret = null;
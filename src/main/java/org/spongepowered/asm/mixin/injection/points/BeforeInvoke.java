@@ -158,6 +158,11 @@ public class BeforeInvoke extends InjectionPoint {
         return this;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     /* (non-Javadoc)
      * @see org.spongepowered.asm.mixin.injection.InjectionPoint
      *      #find(java.lang.String, org.objectweb.asm.tree.InsnList,
@@ -128,6 +128,11 @@ public class BeforeNew extends InjectionPoint {
         return this.desc != null;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes) {
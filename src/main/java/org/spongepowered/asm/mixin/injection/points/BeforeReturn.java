@@ -90,6 +90,11 @@ public class BeforeReturn extends InjectionPoint {
         return RestrictTargetLevel.ALLOW_ALL;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes) {
         boolean found = false;
@@ -81,6 +81,11 @@ public class JumpInsnPoint extends InjectionPoint {
         this.ordinal = data.getOrdinal();
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes) {
         boolean found = false;
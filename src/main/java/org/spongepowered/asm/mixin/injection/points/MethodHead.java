@@ -55,6 +55,11 @@ public class MethodHead extends InjectionPoint {
         return true;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes) {
         nodes.add(insns.getFirst());
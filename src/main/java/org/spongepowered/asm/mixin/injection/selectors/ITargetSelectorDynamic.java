@@ -29,6 +29,8 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 
+import org.spongepowered.asm.util.asm.IAnnotationHandle;
+
 /**
  * Decoration interface for dynamic target selectors
  */
@@ -75,4 +77,32 @@ public interface ITargetSelectorDynamic extends ITargetSelector {
         
     }
 
+    /**
+     * Factory for dynamic selectors. Selectors registered with a factory are
+     * parsed by calling the factory directly, selectors registered without one
+     * are parsed by reflectively invoking their static <tt>parse</tt> methods.
+     */
+    public interface Factory {
+        
+        /**
+         * Parse a selector from the supplied string
+         * 
+         * @param input selector arguments
+         * @param context selector context
+         * @return parsed selector
+         */
+        public abstract ITargetSelectorDynamic parse(String input, ISelectorContext context);
+        
+        /**
+         * Parse a selector from the supplied annotation. Only called for
+         * selectors decorated with {@link SelectorAnnotation}.
+         * 
+         * @param input selector annotation
+         * @param context selector context
+         * @return parsed selector
+         */
+        public abstract ITargetSelectorDynamic parse(IAnnotationHandle input, ISelectorContext context);
+        
+    }
+
 }
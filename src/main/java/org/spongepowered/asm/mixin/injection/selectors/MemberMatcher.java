@@ -24,10 +24,17 @@
  */
 package org.spongepowered.asm.mixin.injection.selectors;
 
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
+import org.spongepowered.asm.util.perf.HeapAccounting;
+import org.spongepowered.asm.util.perf.HeapAccounting.Estimate;
+import org.spongepowered.asm.util.perf.HeapAccounting.ISource;
+
 /**
  * A {@link ITargetSelector Target Selector} which matches an element of
  * candidate members using a regular expression. This selector is not remappable
@@ -84,6 +91,36 @@ public final class MemberMatcher implements ITargetSelector {
     private static final int SOURCE_NAME = 1;
     private static final int SOURCE_DESC = 2;
     
+    /**
+     * Previously parsed matchers, keyed by input. Matchers are immutable and
+     * do not depend on the selector context, so identical regex selectors can
+     * share the same compiled patterns.
+     */
+    private static final Map<String, MemberMatcher> parsed = new ConcurrentHashMap<String, MemberMatcher>();
+    
+    /**
+     * Maximum number of parsed matchers to retain, the cache is flushed when
+     * it reaches this size
+     */
+    private static final int PARSED_CACHE_SIZE = 1024;
+    
+    static {
+        HeapAccounting.register(HeapAccounting.SELECTORS, MemberMatcher.class, new ISource<Class<?>>() {
+            @Override
+            public void estimate(Class<?> owner, Estimate estimate) {
+                estimate.add(Estimate.hashMap(MemberMatcher.parsed.size()));
+                for (Entry<String, MemberMatcher> entry : MemberMatcher.parsed.entrySet()) {
+                    long size = Estimate.string(entry.getKey()) + Estimate.object(3, 0) + Estimate.references(3);
+                    for (Pattern pattern : entry.getValue().patterns) {
+                        // Compiled pattern nodes are not visible, count the source twice as an approximation
+                        size += pattern != null ? Estimate.object(8, 12) + 2 * Estimate.string(pattern.pattern()) : 0L;
+                    }
+                    estimate.entry(size);
+                }
+            }
+        });
+    }
+    
     /**
      * Positional patterns. The match sources are packed into 3-element arrays
      * just to make the iteration for matching simpler
@@ -117,6 +154,26 @@ public final class MemberMatcher implements ITargetSelector {
      * @return parsed MemberMatcher
      */
     public static MemberMatcher parse(final String input, ISelectorContext context) {
+        MemberMatcher memberMatcher = MemberMatcher.parsed.get(input);
+        if (memberMatcher == null) {
+            memberMatcher = MemberMatcher.parse(input);
+            if (MemberMatcher.parsed.size() >= MemberMatcher.PARSED_CACHE_SIZE) {
+                MemberMatcher.parsed.clear();
+            }
+            MemberMatcher.parsed.put(input, memberMatcher);
+        }
+        return memberMatcher;
+    }
+    
+    /**
+     * Discard previously parsed matchers, called by the processor when a new
+     * phase is selected
+     */
+    public static void clearCache() {
+        MemberMatcher.parsed.clear();
+    }
+    
+    private static MemberMatcher parse(final String input) {
         Matcher matcher = MemberMatcher.PATTERN.matcher(input);
         Pattern[] patterns = new Pattern[3];
         Exception parseException = null;
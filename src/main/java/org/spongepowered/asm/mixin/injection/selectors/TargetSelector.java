@@ -121,12 +121,25 @@ public final class TargetSelector {
         
         final Class<? extends Annotation> annotation;
         
+        final ITargetSelectorDynamic.Factory factory;
+        
         final Method mdParseString, mdParseAnnotation;
         
-        DynamicSelectorEntry(String namespace, String id, Class<? extends ITargetSelectorDynamic> type) throws NoSuchMethodException {
+        DynamicSelectorEntry(String namespace, String id, Class<? extends ITargetSelectorDynamic> type, ITargetSelectorDynamic.Factory factory)
+                throws NoSuchMethodException {
             this.namespace = namespace;
             this.id = id;
             this.type = type;
+            this.factory = factory;
+            
+            if (factory != null) {
+                SelectorAnnotation selectorAnnotation = type.<SelectorAnnotation>getAnnotation(SelectorAnnotation.class);
+                this.annotation = selectorAnnotation != null ? selectorAnnotation.value() : null;
+                this.mdParseString = null;
+                this.mdParseAnnotation = null;
+                return;
+            }
+            
             this.mdParseString = type.getDeclaredMethod("parse", String.class, ISelectorContext.class);
             if (!Modifier.isStatic(this.mdParseString.getModifiers())) {
                 throw new MixinError("parse method for dynamic target selector [" + this.type.getName() + "] must be static");
@@ -162,10 +175,16 @@ public final class TargetSelector {
         }
         
         ITargetSelectorDynamic parse(String input, ISelectorContext context) throws ReflectiveOperationException {
+            if (this.factory != null) {
+                return this.factory.parse(input, context);
+            }
             return this.parse(input, context, this.mdParseString);
         }
         
         ITargetSelectorDynamic parse(IAnnotationHandle input, ISelectorContext context) throws ReflectiveOperationException {
+            if (this.factory != null) {
+                return this.factory.parse(input, context);
+            }
             return this.parse(input, context, this.mdParseAnnotation);
         }
         
@@ -199,7 +218,17 @@ public final class TargetSelector {
     private static Map<String, DynamicSelectorEntry> dynamicSelectors = new LinkedHashMap<String, DynamicSelectorEntry>();
     
     static {
-        TargetSelector.registerBuiltIn(DynamicSelectorDesc.class);
+        TargetSelector.registerBuiltIn(DynamicSelectorDesc.class, new ITargetSelectorDynamic.Factory() {
+            @Override
+            public ITargetSelectorDynamic parse(String input, ISelectorContext context) {
+                return DynamicSelectorDesc.parse(input, context);
+            }
+            
+            @Override
+            public ITargetSelectorDynamic parse(IAnnotationHandle input, ISelectorContext context) {
+                return DynamicSelectorDesc.parse(input, context);
+            }
+        });
     }
     
     private TargetSelector() {
@@ -214,6 +243,22 @@ public final class TargetSelector {
      * @param namespace namespace for SelectorId
      */
     public static void register(Class<? extends ITargetSelectorDynamic> type, String namespace) {
+        TargetSelector.register(type, namespace, null);
+    }
+    
+    /**
+     * Register a dynamic target selector class with a factory which will be
+     * used to parse the selector instead of reflectively invoking the static
+     * <tt>parse</tt> methods of the class. The supplied class must be
+     * decorated with an {@link SelectorId} annotation for registration to
+     * succeed.
+     * 
+     * @param type ITargetSelectorDynamic to register
+     * @param namespace namespace for SelectorId
+     * @param factory factory for the selector, can be null to use the static
+     *      <tt>parse</tt> methods of the class
+     */
+    public static void register(Class<? extends ITargetSelectorDynamic> type, String namespace, ITargetSelectorDynamic.Factory factory) {
         SelectorId selectorId = type.<SelectorId>getAnnotation(SelectorId.class);
         if (selectorId == null) {
             throw new IllegalArgumentException("Dynamic target selector class " + type + " is not annotated with @SelectorId");
@@ -231,7 +276,7 @@ public final class TargetSelector {
 
         DynamicSelectorEntry entry;
         try {
-            entry = new DynamicSelectorEntry(namespace.toLowerCase(Locale.ROOT), selectorId.value().toLowerCase(Locale.ROOT), type);
+            entry = new DynamicSelectorEntry(namespace.toLowerCase(Locale.ROOT), selectorId.value().toLowerCase(Locale.ROOT), type, factory);
         } catch (NoSuchMethodException ex) {
             throw new MixinError("Dynamic target selector class " + type.getName() + " does not contain a valid parse method");
         }
@@ -259,12 +304,13 @@ public final class TargetSelector {
      * namespacing checks
      * 
      * @param type ITargetSelectorDynamic to register
+     * @param factory factory for the selector
      */
-    private static void registerBuiltIn(Class<? extends ITargetSelectorDynamic> type) {
+    private static void registerBuiltIn(Class<? extends ITargetSelectorDynamic> type, ITargetSelectorDynamic.Factory factory) {
         SelectorId selectorId = type.<SelectorId>getAnnotation(SelectorId.class);
         DynamicSelectorEntry entry;
         try {
-            entry = new DynamicSelectorEntry(null, selectorId.value().toLowerCase(Locale.ROOT), type);
+            entry = new DynamicSelectorEntry(null, selectorId.value().toLowerCase(Locale.ROOT), type, factory);
         } catch (NoSuchMethodException ex) {
             throw new MixinError("Dynamic target selector class " + type.getName() + " does not contain a valid parse method");
         }
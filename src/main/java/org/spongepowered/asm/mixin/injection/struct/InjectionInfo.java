@@ -53,6 +53,7 @@ import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.InjectionPoint;
 import org.spongepowered.asm.mixin.injection.code.ISliceContext;
 import org.spongepowered.asm.mixin.injection.code.Injector;
+import org.spongepowered.asm.mixin.injection.code.Injector.TargetNode;
 import org.spongepowered.asm.mixin.injection.code.InjectorTarget;
 import org.spongepowered.asm.mixin.injection.code.MethodSlice;
 import org.spongepowered.asm.mixin.injection.code.MethodSlices;
@@ -78,6 +79,7 @@ import org.spongepowered.asm.util.Bytecode;
 import org.spongepowered.asm.util.asm.ASM;
 import org.spongepowered.asm.util.asm.MethodNodeEx;
 import org.spongepowered.asm.util.logging.MessageRouter;
+import org.spongepowered.asm.util.perf.MixinMetrics;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
@@ -250,6 +252,17 @@ public abstract class InjectionInfo extends SpecialMethodInfo implements ISliceC
      */
     protected final Map<Target, List<InjectionNode>> targetNodes = new LinkedHashMap<Target, List<InjectionNode>>();
     
+    /**
+     * Target nodes located by {@link #discover}, consumed by {@link #prepare} 
+     */
+    private Map<Target, Collection<TargetNode>> discoveredNodes;
+    
+    /**
+     * Failure raised by {@link #discover}, rethrown by {@link #prepare} so that
+     * it is reported on the transforming thread in the usual order 
+     */
+    private RuntimeException discoveryFailure;
+    
     /**
      * Number of target methods identified by the injection points 
      */
@@ -410,21 +423,78 @@ public abstract class InjectionInfo extends SpecialMethodInfo implements ISliceC
     }
     
     /**
-     * Discover injection points
+     * Get whether the injection points and slices of this injector can be
+     * searched on a worker thread, see {@link InjectionPoint#isThreadSafe}
+     * 
+     * @return true if {@link #discover} can be called concurrently
+     */
+    public boolean isThreadSafe() {
+        for (InjectionPoint injectionPoint : this.injectionPoints) {
+            if (!injectionPoint.isThreadSafe()) {
+                return false;
+            }
+        }
+        return this.slices.isThreadSafe();
+    }
+    
+    /**
+     * Locate injection points in the target methods without registering them
+     * with the targets. This only reads the target methods and so may be run
+     * on a worker thread for injectors which are {@link #isThreadSafe thread
+     * safe}, the located nodes are registered by the subsequent call to
+     * {@link #prepare}. Any failure is deferred until {@link #prepare}.
+     */
+    public void discover() {
+        Map<Target, Collection<TargetNode>> discovered = new LinkedHashMap<Target, Collection<TargetNode>>();
+        try {
+            for (SelectedTarget targetMethod : this.targets) {
+                Target target = this.mixin.getTargetMethod(targetMethod.method);
+                discovered.put(target, this.discover(target, targetMethod));
+            }
+            this.discoveredNodes = discovered;
+        } catch (RuntimeException ex) {
+            this.discoveryFailure = ex;
+        }
+    }
+    
+    /**
+     * Discover injection points, or register the injection points already
+     * located by {@link #discover}
      */
     public void prepare() {
         this.targetNodes.clear();
+        
+        Map<Target, Collection<TargetNode>> discovered = this.discoveredNodes;
+        RuntimeException failure = this.discoveryFailure;
+        this.discoveredNodes = null;
+        this.discoveryFailure = null;
+        
+        if (failure != null) {
+            throw failure;
+        }
+        
+        if (discovered != null) {
+            for (Entry<Target, Collection<TargetNode>> entry : discovered.entrySet()) {
+                this.targetNodes.put(entry.getKey(), this.injector.addTargetNodes(entry.getKey(), entry.getValue()));
+            }
+            return;
+        }
+        
         for (SelectedTarget targetMethod : this.targets) {
             Target target = this.mixin.getTargetMethod(targetMethod.method);
-            InjectorTarget injectorTarget = new InjectorTarget(this, target, targetMethod.selector);
-            try {
-                this.targetNodes.put(target, this.injector.find(injectorTarget, this.injectionPoints));
-            } catch (SelectorException ex) {
-                throw new InvalidInjectionException(this, String.format("Injection validation failed: %s on %s: %s. %s%s",
-                        this.annotationType, this.methodName, ex.getMessage(), this.mixin.getReferenceMapper().getStatus(), this.getDynamicInfo()));
-            } finally {
-                injectorTarget.dispose();
-            }
+            this.targetNodes.put(target, this.injector.addTargetNodes(target, this.discover(target, targetMethod)));
+        }
+    }
+    
+    private Collection<TargetNode> discover(Target target, SelectedTarget targetMethod) {
+        InjectorTarget injectorTarget = new InjectorTarget(this, target, targetMethod.selector);
+        try {
+            return this.injector.discover(injectorTarget, this.injectionPoints);
+        } catch (SelectorException ex) {
+            throw new InvalidInjectionException(this, String.format("Injection validation failed: %s on %s: %s. %s%s",
+                    this.annotationType, this.methodName, ex.getMessage(), this.mixin.getReferenceMapper().getStatus(), this.getDynamicInfo()));
+        } finally {
+            injectorTarget.dispose();
         }
     }
     
@@ -455,6 +525,8 @@ public abstract class InjectionInfo extends SpecialMethodInfo implements ISliceC
             this.classNode.methods.add(method);
         }
         
+        MixinMetrics.injection(this.annotationType, this.injectedCallbackCount);
+        
         String description = this.getDescription();
         String refMapStatus = this.mixin.getReferenceMapper().getStatus();
         String extraInfo = this.getDynamicInfo() + this.getMessages();
@@ -24,6 +24,11 @@
  */
 package org.spongepowered.asm.mixin.injection.struct;
 
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.FieldInsnNode;
@@ -45,6 +50,9 @@ import org.spongepowered.asm.util.Constants;
 import org.spongepowered.asm.util.Quantifier;
 import org.spongepowered.asm.util.SignaturePrinter;
 import org.spongepowered.asm.util.asm.ASM;
+import org.spongepowered.asm.util.perf.HeapAccounting;
+import org.spongepowered.asm.util.perf.HeapAccounting.Estimate;
+import org.spongepowered.asm.util.perf.HeapAccounting.ISource;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Strings;
@@ -222,6 +230,40 @@ public final class MemberInfo implements ITargetSelectorRemappable, ITargetSelec
      */
     private static final String ARROW = "->";
     
+    /**
+     * Whitespace is stripped from selector strings before parsing
+     */
+    private static final Pattern WHITESPACE = Pattern.compile("\\s");
+    
+    /**
+     * Previously parsed selectors. Since MemberInfo is immutable, identical
+     * selector strings (which are very common across mixins) can share the
+     * same parsed instance. Entries are keyed by the input string and the name
+     * returned by the context's refmap, so that the same input remapped in
+     * different ways is cached separately.
+     */
+    private static final Map<String, MemberInfo> parsed = new ConcurrentHashMap<String, MemberInfo>();
+    
+    /**
+     * Maximum number of parsed selectors to retain, the cache is flushed when
+     * it reaches this size
+     */
+    private static final int PARSED_CACHE_SIZE = 4096;
+    
+    static {
+        HeapAccounting.register(HeapAccounting.SELECTORS, MemberInfo.class, new ISource<Class<?>>() {
+            @Override
+            public void estimate(Class<?> owner, Estimate estimate) {
+                estimate.add(Estimate.hashMap(MemberInfo.parsed.size()));
+                for (Entry<String, MemberInfo> entry : MemberInfo.parsed.entrySet()) {
+                    MemberInfo memberInfo = entry.getValue();
+                    estimate.entry(Estimate.string(entry.getKey()) + Estimate.object(7, 1) + Estimate.string(memberInfo.owner)
+                            + Estimate.string(memberInfo.name) + Estimate.string(memberInfo.desc));
+                }
+            }
+        });
+    }
+    
     /**
      * Member owner in internal form but without L;, can be null
      */
@@ -869,9 +911,7 @@ public final class MemberInfo implements ITargetSelectorRemappable, ITargetSelec
      * @return parsed MemberInfo
      */
     public static MemberInfo parse(final String input, final ISelectorContext context) {
-        String desc = null;
-        String owner = null;
-        String name = Strings.nullToEmpty(input).replaceAll("\\s", "");
+        String name = MemberInfo.WHITESPACE.matcher(Strings.nullToEmpty(input)).replaceAll("");
         String tail = null;
         
         int arrowPos = name.indexOf(MemberInfo.ARROW);
@@ -884,6 +924,34 @@ public final class MemberInfo implements ITargetSelectorRemappable, ITargetSelec
             name = context.remap(name);
         }
         
+        if (input == null) {
+            return MemberInfo.parse(input, name, tail);
+        }
+        
+        String key = input + '\u0000' + name;
+        MemberInfo memberInfo = MemberInfo.parsed.get(key);
+        if (memberInfo == null) {
+            memberInfo = MemberInfo.parse(input, name, tail);
+            if (MemberInfo.parsed.size() >= MemberInfo.PARSED_CACHE_SIZE) {
+                MemberInfo.parsed.clear();
+            }
+            MemberInfo.parsed.put(key, memberInfo);
+        }
+        return memberInfo;
+    }
+    
+    /**
+     * Discard previously parsed selectors, called by the processor when a new
+     * phase is selected
+     */
+    public static void clearCache() {
+        MemberInfo.parsed.clear();
+    }
+    
+    private static MemberInfo parse(String input, String name, String tail) {
+        String desc = null;
+        String owner = null;
+        
         int lastDotPos = name.lastIndexOf('.');
         int semiColonPos = name.indexOf(';');
         if (lastDotPos > -1) {
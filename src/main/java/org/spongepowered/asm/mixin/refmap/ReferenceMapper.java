@@ -28,14 +28,19 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.TreeMap;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import javax.tools.Diagnostic.Kind;
 
 import org.spongepowered.asm.service.IMixinService;
 import org.spongepowered.asm.service.MixinService;
 import org.spongepowered.asm.util.logging.MessageRouter;
+import org.spongepowered.asm.util.perf.HeapAccounting;
+import org.spongepowered.asm.util.perf.HeapAccounting.Estimate;
+import org.spongepowered.asm.util.perf.HeapAccounting.ISource;
 
 import com.google.common.collect.Maps;
 import com.google.common.io.Closeables;
@@ -65,6 +70,20 @@ public final class ReferenceMapper implements IReferenceMapper, Serializable {
     /**
      * Passthrough mapper, used as failover 
      */
+    /**
+     * Heap accounting source, counts the mapping tables of each refmap
+     */
+    private static final ISource<ReferenceMapper> HEAP_SOURCE = new ISource<ReferenceMapper>() {
+        @Override
+        public void estimate(ReferenceMapper owner, Estimate estimate) {
+            long size = ReferenceMapper.estimateSize(owner.mappings);
+            for (Entry<String, Map<String, Map<String, String>>> context : owner.data.entrySet()) {
+                size += Estimate.string(context.getKey()) + ReferenceMapper.estimateSize(context.getValue());
+            }
+            estimate.entry(size + Estimate.treeMap(owner.data.size()));
+        }
+    };
+
     public static final ReferenceMapper DEFAULT_MAPPER = new ReferenceMapper(true, "invalid");
 
     /**
@@ -111,6 +130,7 @@ public final class ReferenceMapper implements IReferenceMapper, Serializable {
     private ReferenceMapper(boolean readOnly, String resource) {
         this.readOnly = readOnly;
         this.resource = resource;
+        HeapAccounting.register(HeapAccounting.REFERENCE_MAPS, this, ReferenceMapper.HEAP_SOURCE);
     }
     
     /* (non-Javadoc)
@@ -121,6 +141,17 @@ public final class ReferenceMapper implements IReferenceMapper, Serializable {
         return this.readOnly;
     }
     
+    private static long estimateSize(Map<String, Map<String, String>> mappings) {
+        long size = Estimate.treeMap(mappings.size());
+        for (Entry<String, Map<String, String>> owner : mappings.entrySet()) {
+            size += Estimate.string(owner.getKey()) + Estimate.treeMap(owner.getValue().size());
+            for (Entry<String, String> mapping : owner.getValue().entrySet()) {
+                size += Estimate.string(mapping.getKey()) + Estimate.string(mapping.getValue());
+            }
+        }
+        return size;
+    }
+    
     private void setResourceName(String resource) {
         if (!this.readOnly) {
             this.resource = resource != null ? resource : "<unknown resource>";
@@ -237,6 +268,21 @@ public final class ReferenceMapper implements IReferenceMapper, Serializable {
         return classMappings.put(conformedReference, newReference);
     }
     
+    /**
+     * Get the mappings owned by the specified class in the specified context,
+     * mappings are not inherited from the default context
+     * 
+     * @param context Obfuscation context, can be null for the default context
+     * @param className Class which owns the mappings
+     * @return read-only view of the mappings, empty if the class has no
+     *      mappings in the context
+     */
+    public Map<String, String> getMappings(String context, String className) {
+        Map<String, Map<String, String>> mappings = context != null ? this.data.get(context) : this.mappings;
+        Map<String, String> classMappings = mappings != null ? mappings.get(className) : null;
+        return classMappings != null ? Collections.<String, String>unmodifiableMap(classMappings) : Collections.<String, String>emptyMap();
+    }
+    
     /**
      * Write this refmap out to the specified writer
      * 
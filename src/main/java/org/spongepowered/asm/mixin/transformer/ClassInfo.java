@@ -24,14 +24,18 @@
  */
 package org.spongepowered.asm.mixin.transformer;
 
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.spongepowered.asm.logging.Level;
@@ -62,12 +66,18 @@ import org.spongepowered.asm.util.ClassSignature;
 import org.spongepowered.asm.util.LanguageFeatures;
 import org.spongepowered.asm.util.Locals;
 import org.spongepowered.asm.util.asm.ClassNodeAdapter;
+import org.spongepowered.asm.util.perf.HeapAccounting;
+import org.spongepowered.asm.util.perf.HeapAccounting.Estimate;
+import org.spongepowered.asm.util.perf.HeapAccounting.ISource;
+import org.spongepowered.asm.util.perf.MixinMetrics;
 import org.spongepowered.asm.util.perf.Profiler;
 import org.spongepowered.asm.util.perf.Profiler.Section;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 /**
  * Information about a class, used as a way of keeping track of class hierarchy
@@ -470,7 +480,7 @@ public final class ClassInfo {
 
         @Override
         public int hashCode() {
-            return this.toString().hashCode();
+            return 31 * this.memberName.hashCode() + this.memberDesc.hashCode();
         }
 
         @Override
@@ -506,7 +516,7 @@ public final class ClassInfo {
 
         @SuppressWarnings("unchecked")
         public Method(MethodNode method, boolean injected) {
-            super(Type.METHOD, method.name, method.desc, method.access, injected);
+            super(Type.METHOD, ClassInfo.symbol(method.name), ClassInfo.symbol(method.desc), method.access, injected);
             this.frames = this.gatherFrames(method);
             this.setUnique(Annotations.getVisible(method, Unique.class) != null);
             this.isAccessor = Annotations.getSingleVisible(method, Accessor.class, Invoker.class) != null;
@@ -531,20 +541,31 @@ public final class ClassInfo {
         }
 
         private List<FrameData> gatherFrames(MethodNode method) {
-            List<FrameData> frames = new ArrayList<FrameData>();
+            List<FrameData> frames = null;
             for (Iterator<AbstractInsnNode> iter = method.instructions.iterator(); iter.hasNext();) {
                 AbstractInsnNode insn = iter.next();
                 if (insn instanceof FrameNode) {
+                    if (frames == null) {
+                        frames = new ArrayList<FrameData>();
+                    }
                     frames.add(new FrameData(method.instructions.indexOf(insn), (FrameNode)insn, Bytecode.getFirstNonArgLocalIndex(method)));
                 }
             }
-            return frames;
+            return frames != null ? frames : Collections.<FrameData>emptyList();
         }
 
         public List<FrameData> getFrames() {
             return this.frames;
         }
         
+        long estimateSize() {
+            long size = Estimate.object(8, 12);
+            if (this.frames != null && !this.frames.isEmpty()) {
+                size += Estimate.list(this.frames.size()) + this.frames.size() * Estimate.object(0, 20);
+            }
+            return size;
+        }
+        
         @Override
         public ClassInfo getOwner() {
             return ClassInfo.this;
@@ -631,7 +652,7 @@ public final class ClassInfo {
         }
 
         public Field(FieldNode field, boolean injected) {
-            super(Type.FIELD, field.name, field.desc, field.access, injected);
+            super(Type.FIELD, ClassInfo.symbol(field.name), ClassInfo.symbol(field.desc), field.access, injected);
             
             this.setUnique(Annotations.getVisible(field, Unique.class) != null);
             
@@ -670,6 +691,139 @@ public final class ClassInfo {
         }
     }
 
+    /**
+     * Compact set backed by a single array, used for the member and interface
+     * tables. If an ordering is supplied then elements are kept sorted and
+     * lookups use a binary search, otherwise elements are kept in insertion
+     * order and lookups scan the array, which is fine for short lists such as
+     * interfaces.
+     */
+    static final class ArraySet<E> extends AbstractSet<E> {
+        
+        private static final Object[] EMPTY = {};
+
+        private final Comparator<? super E> order;
+
+        private Object[] elements;
+
+        private int size;
+
+        ArraySet(Comparator<? super E> order, int capacity) {
+            this.order = order;
+            this.elements = capacity > 0 ? new Object[capacity] : ArraySet.EMPTY;
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            return obj != null && this.indexOf(obj) >= 0;
+        }
+
+        @Override
+        public boolean add(E element) {
+            int index = this.indexOf(element);
+            if (index >= 0) {
+                return false;
+            }
+            index = -(index + 1);
+            if (this.size == this.elements.length) {
+                this.elements = Arrays.copyOf(this.elements, Math.max(4, this.size + (this.size >> 1)));
+            }
+            System.arraycopy(this.elements, index, this.elements, index + 1, this.size - index);
+            this.elements[index] = element;
+            this.size++;
+            return true;
+        }
+
+        @Override
+        public boolean remove(Object obj) {
+            int index = obj != null ? this.indexOf(obj) : -1;
+            if (index < 0) {
+                return false;
+            }
+            this.removeAt(index);
+            return true;
+        }
+
+        void removeAt(int index) {
+            System.arraycopy(this.elements, index + 1, this.elements, index, this.size - index - 1);
+            this.elements[--this.size] = null;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                
+                private int next;
+                
+                private int last = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return this.next < ArraySet.this.size;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public E next() {
+                    if (this.next >= ArraySet.this.size) {
+                        throw new NoSuchElementException();
+                    }
+                    this.last = this.next++;
+                    return (E)ArraySet.this.elements[this.last];
+                }
+
+                @Override
+                public void remove() {
+                    if (this.last < 0) {
+                        throw new IllegalStateException();
+                    }
+                    ArraySet.this.removeAt(this.last);
+                    this.next = this.last;
+                    this.last = -1;
+                }
+                
+            };
+        }
+
+        /**
+         * Returns the index of the element if present, otherwise
+         * <tt>-(insertion point + 1)</tt> as per
+         * {@link Arrays#binarySearch(Object[], Object)}
+         */
+        @SuppressWarnings("unchecked")
+        private int indexOf(Object obj) {
+            if (this.order == null) {
+                for (int i = 0; i < this.size; i++) {
+                    if (this.elements[i].equals(obj)) {
+                        return i;
+                    }
+                }
+                return -(this.size + 1);
+            }
+            
+            E key = (E)obj;
+            int low = 0, high = this.size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = this.order.compare((E)this.elements[mid], key);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+    }
+
     /**
      * Callbacks for when ClassInfos are initialized
      */
@@ -680,6 +834,25 @@ public final class ClassInfo {
     private static final Profiler profiler = Profiler.getProfiler("meta");
 
     private static final String JAVA_LANG_OBJECT = "java/lang/Object";
+    
+    /**
+     * Member tables are ordered by original name and descriptor, which is
+     * consistent with {@link Member#equals} for members of the same type since
+     * the original name and descriptor never change
+     */
+    private static final Comparator<Member> MEMBER_ORDER = new Comparator<Member>() {
+        @Override
+        public int compare(Member a, Member b) {
+            int cmp = a.memberName.compareTo(b.memberName);
+            return cmp != 0 ? cmp : a.memberDesc.compareTo(b.memberDesc);
+        }
+    };
+    
+    /**
+     * Shared symbol table for class names, member names and descriptors, which
+     * are heavily duplicated across the metadata for a large number of classes
+     */
+    private static final Interner<String> symbols = Interners.newWeakInterner();
 
     /**
      * Loading and parsing classes is expensive, so keep a cache of all the
@@ -691,6 +864,17 @@ public final class ClassInfo {
 
     static {
         ClassInfo.cache.put(ClassInfo.JAVA_LANG_OBJECT, ClassInfo.OBJECT);
+        HeapAccounting.register(HeapAccounting.CLASS_INFO, ClassInfo.class, new ISource<Class<?>>() {
+            @Override
+            public void estimate(Class<?> owner, Estimate estimate) {
+                estimate.add(Estimate.hashMap(ClassInfo.cache.size()));
+                for (ClassInfo info : ClassInfo.cache.values()) {
+                    if (info != null) {
+                        estimate.entry(info.estimateSize());
+                    }
+                }
+            }
+        });
     }
 
     /**
@@ -740,22 +924,25 @@ public final class ClassInfo {
     private final Set<Field> fields;
 
     /**
-     * Mixins which target this class
+     * Mixins which target this class, empty set until a mixin is added
      */
-    private final Set<MixinInfo> mixins;
+    private Set<MixinInfo> mixins = Collections.<MixinInfo>emptySet();
 
     /**
      * Map of mixin types to corresponding supertypes, to avoid repeated
-     * lookups
+     * lookups. Created on first use
      */
-    private final Map<ClassInfo, ClassInfo> correspondingTypes = new HashMap<ClassInfo, ClassInfo>();
+    private Map<ClassInfo, ClassInfo> correspondingTypes;
 
     /**
      * Mixin info if this class is a mixin itself
      */
     private final MixinInfo mixin;
     
-    private final MethodMapper methodMapper;
+    /**
+     * Method mapper, created on first use
+     */
+    private MethodMapper methodMapper;
     
     /**
      * True if this is a mixin rather than a class
@@ -833,8 +1020,6 @@ public final class ClassInfo {
         this.access = Opcodes.ACC_PUBLIC;
         this.isMixin = false;
         this.mixin = null;
-        this.mixins = Collections.<MixinInfo>emptySet();
-        this.methodMapper = null;
     }
 
     /**
@@ -846,17 +1031,24 @@ public final class ClassInfo {
         Section timer = ClassInfo.profiler.begin(Profiler.ROOT, "class.meta");
         try {
             this.name = classNode.name;
-            this.superName = classNode.superName != null ? classNode.superName : ClassInfo.JAVA_LANG_OBJECT;
-            this.initialisers = new HashSet<Method>();
-            this.methods = new HashSet<Method>();
-            this.fields = new HashSet<Field>();
+            this.superName = classNode.superName != null ? ClassInfo.symbol(classNode.superName) : ClassInfo.JAVA_LANG_OBJECT;
+            int initialiserCount = 0;
+            for (MethodNode method : classNode.methods) {
+                if (method.name.startsWith("<")) {
+                    initialiserCount++;
+                }
+            }
+            this.initialisers = new ArraySet<Method>(ClassInfo.MEMBER_ORDER, initialiserCount);
+            this.methods = new ArraySet<Method>(ClassInfo.MEMBER_ORDER, classNode.methods.size() - initialiserCount);
+            this.fields = new ArraySet<Field>(ClassInfo.MEMBER_ORDER, classNode.fields.size());
             this.isInterface = ((classNode.access & Opcodes.ACC_INTERFACE) != 0);
-            this.interfaces = new HashSet<String>();
+            this.interfaces = new ArraySet<String>(null, classNode.interfaces.size());
             this.isMixin = classNode instanceof MixinClassNode;
             this.mixin = this.isMixin ? ((MixinClassNode)classNode).getMixin() : null;
-            this.mixins = this.isMixin ? Collections.<MixinInfo>emptySet() : new HashSet<MixinInfo>();
 
-            this.interfaces.addAll(classNode.interfaces);
+            for (String iface : classNode.interfaces) {
+                this.interfaces.add(ClassInfo.symbol(iface));
+            }
 
             for (MethodNode method : classNode.methods) {
                 this.addMethod(method, this.isMixin);
@@ -881,7 +1073,6 @@ public final class ClassInfo {
             }
 
             this.isProbablyStatic = isProbablyStatic;
-            this.methodMapper = new MethodMapper(MixinEnvironment.getCurrentEnvironment(), this);
             this.signature = ClassSignature.ofLazy(classNode);
             
             int access = classNode.access;
@@ -897,7 +1088,7 @@ public final class ClassInfo {
             
             this.access = access;
             this.isInner = isInner;
-            this.outerName = outerName;
+            this.outerName = ClassInfo.symbol(outerName);
 
             if (MixinEnvironment.getCompatibilityLevel().supports(LanguageFeatures.NESTING)) {
                 this.nestHost = ClassNodeAdapter.getNestHostClass(classNode);
@@ -916,7 +1107,7 @@ public final class ClassInfo {
     }
 
     void addInterface(String iface) {
-        this.interfaces.add(iface);
+        this.interfaces.add(ClassInfo.symbol(iface));
         this.getSignature().addInterface(iface);
     }
 
@@ -939,6 +1130,9 @@ public final class ClassInfo {
         if (this.isMixin) {
             throw new IllegalArgumentException("Cannot add target " + this.name + " for " + mixin.getClassName() + " because the target is a mixin");
         }
+        if (this.mixins.isEmpty()) {
+            this.mixins = new HashSet<MixinInfo>();
+        }
         this.mixins.add(mixin);
     }
     
@@ -1071,6 +1265,9 @@ public final class ClassInfo {
     }
     
     MethodMapper getMethodMapper() {
+        if (this.methodMapper == null && this != ClassInfo.OBJECT) {
+            this.methodMapper = new MethodMapper(MixinEnvironment.getCurrentEnvironment(), this);
+        }
         return this.methodMapper;
     }
 
@@ -1506,6 +1703,9 @@ public final class ClassInfo {
             return null;
         }
 
+        if (this.correspondingTypes == null) {
+            this.correspondingTypes = new HashMap<ClassInfo, ClassInfo>(4);
+        }
         ClassInfo correspondingType = this.correspondingTypes.get(mixin);
         if (correspondingType == null) {
             correspondingType = this.findSuperTypeForMixin(mixin);
@@ -2005,6 +2205,59 @@ public final class ClassInfo {
         return this.name.hashCode();
     }
 
+    /**
+     * Estimate the heap retained by this ClassInfo, symbols shared through the
+     * symbol table are not counted
+     */
+    private long estimateSize() {
+        long size = Estimate.object(22, 12) + Estimate.string(this.name);
+        size += Estimate.object(2, 4) + Estimate.references(this.interfaces.size());
+        size += Estimate.object(2, 4) * 3 + Estimate.references(this.methods.size())
+                + Estimate.references(this.initialisers.size()) + Estimate.references(this.fields.size());
+        for (Method method : this.methods) {
+            size += method.estimateSize();
+        }
+        for (Method method : this.initialisers) {
+            size += method.estimateSize();
+        }
+        size += this.fields.size() * Estimate.object(6, 12);
+        if (!this.mixins.isEmpty()) {
+            size += Estimate.hashMap(this.mixins.size());
+        }
+        if (this.appliedMixins != null) {
+            size += Estimate.hashMap(this.appliedMixins.size());
+        }
+        if (this.correspondingTypes != null) {
+            size += Estimate.hashMap(this.correspondingTypes.size());
+        }
+        if (this.methodMapper != null) {
+            size += Estimate.object(1, 0);
+        }
+        if (this.nestMembers != null) {
+            size += Estimate.hashMap(this.nestMembers.size());
+        }
+        return size;
+    }
+
+    /**
+     * Get the number of entries in the metadata cache, including classes which
+     * failed to load
+     */
+    public static int getCacheSize() {
+        return ClassInfo.cache.size();
+    }
+
+    /**
+     * Get the shared instance of the supplied class name, member name or
+     * descriptor from the symbol table
+     * 
+     * @param symbol symbol to intern
+     * @return shared instance, or null if the symbol is null
+     */
+    static String symbol(String symbol) {
+        return symbol != null ? ClassInfo.symbols.intern(symbol) : null;
+    }
+
     /**
      * Return a ClassInfo for the supplied {@link ClassNode}. If a ClassInfo for
      * the class was already defined, then the original ClassInfo is returned
@@ -2016,6 +2269,7 @@ public final class ClassInfo {
      */
     static ClassInfo fromClassNode(ClassNode classNode) {
         ClassInfo info = ClassInfo.cache.get(classNode.name);
+        MixinMetrics.classInfoLookup(info != null);
         if (info == null) {
             info = new ClassInfo(classNode);
             ClassInfo.cache.put(classNode.name, info);
@@ -2036,8 +2290,14 @@ public final class ClassInfo {
         className = className.replace('.', '/');
 
         ClassInfo info = ClassInfo.cache.get(className);
+        MixinMetrics.classInfoLookup(info != null);
+        if (info == null && MixinConfig.prepareDeferredMixin(className)) {
+            // Preparing a deferred mixin populates the cache with its metadata
+            info = ClassInfo.cache.get(className);
+        }
         if (info == null) {
             try {
+                MixinMetrics.metadataLoad(className);
                 ClassNode classNode = MixinService.getService().getBytecodeProvider().getClassNode(className);
                 info = new ClassInfo(classNode);
             } catch (Exception ex) {
@@ -0,0 +1,255 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Shared index of the targets of a batch of mixin configs, used to supply the
+ * <tt>otherTargets</tt> argument to {@link
+ * org.spongepowered.asm.mixin.extensibility.IMixinConfigPlugin#acceptTargets
+ * IMixinConfigPlugin.acceptTargets}.
+ * 
+ * <p>Rather than building a fresh set containing the targets of every other
+ * config for each plugin, which is quadratic in the number of configs, the
+ * index stores every target once along with the number of configs which
+ * target it. Each plugin then receives a read-only view of the index which
+ * excludes the targets contributed by its own config, a target being visible
+ * if at least one <em>other</em> config also targets it.</p>
+ * 
+ * <p>Targets removed by a plugin during <tt>acceptTargets</tt> are withdrawn
+ * from the index once the call returns, so that plugins called later observe
+ * the same targets they would have observed with a freshly built set. Since
+ * plugins may retain the set they were given, views which have already been
+ * released are frozen into a copy before any target is withdrawn, so a view
+ * never changes once it has been handed out.</p>
+ */
+final class ConfigTargetIndex {
+    
+    /**
+     * View of the index which excludes the targets of a single config
+     */
+    final class OtherTargets extends AbstractSet<String> {
+        
+        /**
+         * Snapshot of the targets of the excluded config, taken before the
+         * plugin is given the chance to modify them
+         */
+        private final Set<String> excluded;
+        
+        /**
+         * Copy of this view taken before the index was modified, once set the
+         * view no longer reads the index
+         */
+        private Set<String> frozen;
+        
+        /**
+         * Lazily computed size, the index is not modified while the view is
+         * live so the size remains valid until the view is frozen
+         */
+        private int size = -1;
+
+        OtherTargets(Set<String> excluded) {
+            this.excluded = excluded;
+        }
+        
+        Set<String> getExcluded() {
+            return this.excluded;
+        }
+
+        /**
+         * Detach this view from the index by copying its current contents
+         */
+        void freeze() {
+            if (this.frozen == null) {
+                this.frozen = Collections.<String>unmodifiableSet(new HashSet<String>(this));
+            }
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (this.frozen != null) {
+                return this.frozen.contains(o);
+            }
+            int[] count = ConfigTargetIndex.this.counts.get(o);
+            if (count == null) {
+                return false;
+            }
+            return count[0] > (this.excluded.contains(o) ? 1 : 0);
+        }
+        
+        @Override
+        public int size() {
+            if (this.frozen != null) {
+                return this.frozen.size();
+            }
+            if (this.size < 0) {
+                int size = ConfigTargetIndex.this.counts.size();
+                for (String target : this.excluded) {
+                    int[] count = ConfigTargetIndex.this.counts.get(target);
+                    if (count != null && count[0] == 1) {
+                        size--;
+                    }
+                }
+                this.size = size;
+            }
+            return this.size;
+        }
+        
+        @Override
+        public boolean isEmpty() {
+            return this.size() == 0;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            if (this.frozen != null) {
+                return this.frozen.iterator();
+            }
+            final Iterator<Entry<String, int[]>> iter = ConfigTargetIndex.this.counts.entrySet().iterator();
+            return new Iterator<String>() {
+                
+                private String next = this.advance();
+
+                private String advance() {
+                    while (iter.hasNext()) {
+                        Entry<String, int[]> entry = iter.next();
+                        if (entry.getValue()[0] > (OtherTargets.this.excluded.contains(entry.getKey()) ? 1 : 0)) {
+                            return entry.getKey();
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return this.next != null;
+                }
+
+                @Override
+                public String next() {
+                    if (this.next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    String next = this.next;
+                    this.next = this.advance();
+                    return next;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("Target set is read-only");
+                }
+                
+            };
+        }
+        
+    }
+    
+    /**
+     * Number of configs targeting each target class 
+     */
+    final Map<String, int[]> counts = new HashMap<String, int[]>();
+    
+    /**
+     * Views which have been released but still read the index, these are
+     * frozen before the index is next modified
+     */
+    private final List<OtherTargets> released = new ArrayList<OtherTargets>();
+    
+    /**
+     * Add the targets of the specified config to the index
+     * 
+     * @param config config to add
+     */
+    void add(MixinConfig config) {
+        for (String target : config.getTargets()) {
+            int[] count = this.counts.get(target);
+            if (count == null) {
+                this.counts.put(target, new int[] { 1 });
+            } else {
+                count[0]++;
+            }
+        }
+    }
+    
+    /**
+     * Get a read-only view of the targets of every indexed config except the
+     * specified config. The returned view must be released by passing it to
+     * {@link #release} once the consumer has finished with it.
+     * 
+     * @param config config whose targets should be excluded
+     * @return view of other targets
+     */
+    OtherTargets except(MixinConfig config) {
+        return new OtherTargets(new HashSet<String>(config.getTargets()));
+    }
+    
+    /**
+     * Withdraw from the index any targets which were removed from the config
+     * while the specified view was in use. If any targets are withdrawn then
+     * every released view, including this one, is frozen first.
+     * 
+     * @param view view returned from {@link #except}
+     * @param config config the view was created for
+     */
+    void release(OtherTargets view, MixinConfig config) {
+        this.released.add(view);
+        Set<String> remaining = config.getTargets();
+        List<String> withdrawn = null;
+        for (String target : view.getExcluded()) {
+            if (!remaining.contains(target)) {
+                if (withdrawn == null) {
+                    withdrawn = new ArrayList<String>();
+                }
+                withdrawn.add(target);
+            }
+        }
+        if (withdrawn == null) {
+            return;
+        }
+        for (OtherTargets releasedView : this.released) {
+            releasedView.freeze();
+        }
+        this.released.clear();
+        for (String target : withdrawn) {
+            int[] count = this.counts.get(target);
+            if (count != null && --count[0] < 1) {
+                this.counts.remove(target);
+            }
+        }
+    }
+
+}
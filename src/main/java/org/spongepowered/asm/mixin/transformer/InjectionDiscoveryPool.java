@@ -0,0 +1,177 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.mixin.injection.struct.InjectionInfo;
+import org.spongepowered.asm.mixin.throwables.MixinError;
+import org.spongepowered.asm.service.MixinService;
+
+/**
+ * Worker pool which discovers injection points for the injectors in a target
+ * class concurrently when {@link Option#PARALLEL_DISCOVERY} is enabled. Only
+ * the read-only discovery phase runs on the pool, the located injection points
+ * are registered and injected by the transforming thread in the usual order.
+ */
+final class InjectionDiscoveryPool {
+    
+    /**
+     * Thread factory for discovery worker threads
+     */
+    static final class WorkerFactory implements ThreadFactory {
+        
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Mixin Discovery Thread-" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+        
+    }
+
+    /**
+     * Logger
+     */
+    private static final ILogger logger = MixinService.getService().getLogger("mixin");
+    
+    /**
+     * Worker pool, created on first use
+     */
+    private static ExecutorService executor;
+    
+    private InjectionDiscoveryPool() {
+    }
+    
+    /**
+     * Discover injection points for all thread-safe injectors in the supplied
+     * mixins, blocking until discovery is complete. Injectors which are not
+     * thread-safe are left to discover their injection points when they are
+     * prepared.
+     * 
+     * @param env Mixin environment
+     * @param targetClass target class being transformed
+     * @param mixins mixins being applied to the target class
+     */
+    static void discover(MixinEnvironment env, ClassNode targetClass, List<MixinTargetContext> mixins) {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (MixinTargetContext mixin : mixins) {
+            for (final InjectionInfo injectInfo : mixin.getInjectors()) {
+                if (injectInfo.isThreadSafe()) {
+                    tasks.add(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            injectInfo.discover();
+                            return null;
+                        }
+                    });
+                }
+            }
+        }
+        
+        if (tasks.size() < 2) {
+            return; // Nothing to be gained, discover on the transforming thread
+        }
+        
+        // InsnList populates its index cache lazily, populate it here so that
+        // the workers only ever read it
+        for (MethodNode method : targetClass.methods) {
+            if (method.instructions.size() > 0) {
+                method.instructions.get(0);
+            }
+        }
+        
+        ExecutorService executor = InjectionDiscoveryPool.getExecutor(env);
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+        for (Callable<Void> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        
+        // Workers must all be finished before the results are consumed, so
+        // wait for every task even if this thread is interrupted
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (Future<Void> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                } catch (ExecutionException ex) {
+                    if (failure == null) {
+                        failure = ex.getCause() != null ? ex.getCause() : ex;
+                    }
+                    break;
+                }
+            }
+        }
+        
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        
+        if (failure instanceof Error) {
+            throw (Error)failure;
+        } else if (failure != null) {
+            throw new MixinError("Unexpected " + failure.getClass().getSimpleName() + " discovering injection points in " + targetClass.name,
+                    failure);
+        }
+    }
+    
+    private static synchronized ExecutorService getExecutor(MixinEnvironment env) {
+        if (InjectionDiscoveryPool.executor == null) {
+            int threads = 0;
+            String value = env.getOptionValue(Option.PARALLEL_DISCOVERY_THREADS);
+            try {
+                threads = Integer.parseInt(value);
+            } catch (NumberFormatException ex) {
+                InjectionDiscoveryPool.logger.warn("Invalid injection point discovery thread count '{}', using the default", value);
+            }
+            if (threads < 1) {
+                threads = Runtime.getRuntime().availableProcessors();
+            }
+            InjectionDiscoveryPool.logger.debug("Starting injection point discovery pool with {} worker thread(s)", threads);
+            InjectionDiscoveryPool.executor = Executors.newFixedThreadPool(threads, new WorkerFactory());
+        }
+        return InjectionDiscoveryPool.executor;
+    }
+
+}
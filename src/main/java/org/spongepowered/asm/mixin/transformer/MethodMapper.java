@@ -40,6 +40,9 @@ import org.spongepowered.asm.mixin.transformer.MixinInfo.MixinMethodNode;
 import org.spongepowered.asm.service.MixinService;
 import org.spongepowered.asm.util.Counter;
 import org.spongepowered.asm.util.asm.MethodNodeEx;
+import org.spongepowered.asm.util.perf.HeapAccounting;
+import org.spongepowered.asm.util.perf.HeapAccounting.Estimate;
+import org.spongepowered.asm.util.perf.HeapAccounting.ISource;
 
 import com.google.common.base.Strings;
 import com.google.common.primitives.Chars;
@@ -61,6 +64,18 @@ class MethodMapper {
      * unique 
      */
     private static final Map<String, Counter> methods = new HashMap<String, Counter>();
+    
+    static {
+        HeapAccounting.register(HeapAccounting.METHOD_MAPPER, MethodMapper.class, new ISource<Class<?>>() {
+            @Override
+            public void estimate(Class<?> owner, Estimate estimate) {
+                estimate.add(Estimate.list(MethodMapper.classes.size()) + Estimate.hashMap(MethodMapper.methods.size()));
+                for (String descriptor : MethodMapper.methods.keySet()) {
+                    estimate.entry(Estimate.string(descriptor) + Estimate.object(0, 4));
+                }
+            }
+        });
+    }
 
     private final ClassInfo info;
 
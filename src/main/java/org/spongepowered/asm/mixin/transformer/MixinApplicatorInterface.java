@@ -140,6 +140,21 @@ class MixinApplicatorInterface extends MixinApplicatorStandard {
         }
     }
     
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.mixin.transformer.MixinApplicatorStandard
+     *      #registerInjections(
+     *      org.spongepowered.asm.mixin.transformer.MixinTargetContext)
+     */
+    @Override
+    protected void registerInjections(MixinTargetContext mixin) {
+        try {
+            super.registerInjections(mixin);
+        } catch (InvalidInjectionException ex) {
+            String description = ex.getContext() != null ? ex.getContext().toString() : "Injection";
+            throw new InvalidInterfaceMixinException(mixin, description + " is not supported in interface mixin", ex);
+        }
+    }
+    
     @Override
     protected void checkMethodVisibility(MixinTargetContext mixin, MethodNode mixinMethod) {
         //Allow injecting into static interface methods where it isn't possible to control the access of the injection method
@@ -41,6 +41,8 @@ import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.mixin.MixinEnvironment.Option;
 import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.extensibility.IActivityContext.IActivity;
+import org.spongepowered.asm.mixin.extensibility.IMixinConfigPluginBatch.Hook;
+import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
 import org.spongepowered.asm.mixin.gen.Accessor;
 import org.spongepowered.asm.mixin.gen.Invoker;
 import org.spongepowered.asm.mixin.injection.Inject;
@@ -64,6 +66,7 @@ import org.spongepowered.asm.util.Bytecode.DelegateInitialiser;
 import org.spongepowered.asm.util.Constants;
 import org.spongepowered.asm.util.ConstraintParser;
 import org.spongepowered.asm.util.ConstraintParser.Constraint;
+import org.spongepowered.asm.util.perf.MixinMetrics;
 import org.spongepowered.asm.util.perf.Profiler;
 import org.spongepowered.asm.util.perf.Profiler.Section;
 import org.spongepowered.asm.util.throwables.ConstraintViolationException;
@@ -295,6 +298,7 @@ class MixinApplicatorStandard {
                 if (this.auditTrail != null) {
                     this.auditTrail.onApply(this.targetName, mixin.toString());
                 }
+                MixinMetrics.mixinApplied(this.targetName, mixin.toString());
             } catch (InvalidMixinException ex) {
                 if (mixin.isRequired()) {
                     throw ex;
@@ -309,6 +313,7 @@ class MixinApplicatorStandard {
         this.activities.clear();
         try {
             IActivity activity = this.activities.begin("PreApply Phase");
+            this.applyPluginBatches(mixinContexts, Hook.PRE_APPLY_TARGET);
             IActivity preApplyActivity = this.activities.begin("Mixin");
             for (MixinTargetContext context : mixinContexts) {
                 preApplyActivity.next(context.toString());
@@ -334,6 +339,11 @@ class MixinApplicatorStandard {
                     }
                 }
                 applyActivity.end();
+                
+                if (pass == ApplicatorPass.PREINJECT && this.context.isParallelDiscovery()) {
+                    activity.next("Discover Injections");
+                    current = this.discoverInjections(mixinContexts);
+                }
                 timer.end();
             }
             
@@ -352,6 +362,8 @@ class MixinApplicatorStandard {
                     iter.remove();
                 }
             }
+            postApplyActivity.end();
+            this.applyPluginBatches(mixinContexts, Hook.POST_APPLY_TARGET);
             activity.end();
         } catch (InvalidMixinException ex) {
             ex.prepend(this.activities);
@@ -365,6 +377,64 @@ class MixinApplicatorStandard {
         this.context.processDebugTasks();
     }
 
+    /**
+     * Invoke the specified per-target hook on each companion plugin which
+     * requested it, passing the mixins from the plugin's config in
+     * application order
+     * 
+     * @param mixinContexts mixins being applied
+     * @param hook batch hook to invoke
+     */
+    protected void applyPluginBatches(List<MixinTargetContext> mixinContexts, Hook hook) {
+        Map<PluginHandle, List<MixinTargetContext>> batches = null;
+        for (MixinTargetContext context : mixinContexts) {
+            PluginHandle plugin = context.getInfo().getPluginHandle();
+            if (!plugin.hasHook(hook)) {
+                continue;
+            }
+            if (batches == null) {
+                batches = new LinkedHashMap<PluginHandle, List<MixinTargetContext>>();
+            }
+            List<MixinTargetContext> batch = batches.get(plugin);
+            if (batch == null) {
+                batches.put(plugin, batch = new ArrayList<MixinTargetContext>());
+            }
+            batch.add(context);
+        }
+        
+        if (batches == null) {
+            return;
+        }
+        
+        IActivity pluginActivity = this.activities.begin("Plugin");
+        Section pluginTimer = this.profiler.begin("plugin");
+        try {
+            for (Entry<PluginHandle, List<MixinTargetContext>> batch : batches.entrySet()) {
+                List<MixinTargetContext> contexts = batch.getValue();
+                List<IMixinInfo> mixins = new ArrayList<IMixinInfo>(contexts.size());
+                for (MixinTargetContext context : contexts) {
+                    mixins.add(context.getMixin());
+                }
+                pluginActivity.next(contexts.get(0).getInfo().getParent().toString());
+                try {
+                    if (hook == Hook.PRE_APPLY_TARGET) {
+                        batch.getKey().preApplyTarget(this.targetName, this.targetClass, Collections.<IMixinInfo>unmodifiableList(mixins));
+                    } else {
+                        batch.getKey().postApplyTarget(this.targetName, this.targetClass, Collections.<IMixinInfo>unmodifiableList(mixins));
+                    }
+                } catch (InvalidMixinException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new MixinApplicatorException(contexts.get(0), "Unexpected " + ex.getClass().getSimpleName()
+                            + " in companion plugin whilst applying the mixin class:", ex);
+                }
+            }
+        } finally {
+            pluginTimer.end();
+        }
+        pluginActivity.end();
+    }
+
     /**
      * Apply the mixin described by mixin to the supplied ClassNode
      * 
@@ -1053,6 +1123,47 @@ class MixinApplicatorStandard {
         mixin.prepareInjections();
     }
     
+    /**
+     * Discover injection points for the injectors prepared in the previous
+     * pass on the discovery worker pool, then register them with the target
+     * in mixin order. Only runs when parallel discovery is enabled.
+     * 
+     * @param mixinContexts Mixins being applied
+     * @return the last mixin processed
+     */
+    protected MixinTargetContext discoverInjections(List<MixinTargetContext> mixinContexts) {
+        Section timer = this.profiler.begin("discover");
+        InjectionDiscoveryPool.discover(MixinEnvironment.getCurrentEnvironment(), this.targetClass, mixinContexts);
+        timer.end();
+        
+        MixinTargetContext current = null;
+        IActivity registerActivity = this.activities.begin("Mixin");
+        for (Iterator<MixinTargetContext> iter = mixinContexts.iterator(); iter.hasNext();) {
+            current = iter.next();
+            registerActivity.next(current.toString());
+            try {
+                this.registerInjections(current);
+            } catch (InvalidMixinException ex) {
+                if (current.isRequired()) {
+                    throw ex;
+                }
+                this.context.addSuppressed(ex);
+                iter.remove(); // Do not process this mixin further
+            }
+        }
+        registerActivity.end();
+        return current;
+    }
+    
+    /**
+     * Register injection points located by parallel discovery
+     * 
+     * @param mixin Mixin being applied
+     */
+    protected void registerInjections(MixinTargetContext mixin) {
+        mixin.registerInjections();
+    }
+    
     /**
      * Apply all injectors discovered in the previous pass
      * 
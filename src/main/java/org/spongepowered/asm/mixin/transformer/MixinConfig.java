@@ -28,6 +28,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Constructor;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -35,8 +36,12 @@ import org.spongepowered.asm.launch.GlobalProperties;
 import org.spongepowered.asm.logging.Level;
 import org.spongepowered.asm.logging.ILogger;
 import org.spongepowered.asm.launch.MixinInitialisationError;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AnnotationNode;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.InsnList;
+import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.mixin.MixinEnvironment.CompatibilityLevel;
 import org.spongepowered.asm.mixin.MixinEnvironment.Option;
@@ -57,10 +62,13 @@ import org.spongepowered.asm.mixin.transformer.ext.Extensions;
 import org.spongepowered.asm.mixin.transformer.throwables.InvalidMixinException;
 import org.spongepowered.asm.service.IMixinService;
 import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.Annotations;
 import org.spongepowered.asm.util.CompareUtil;
 import org.spongepowered.asm.util.VersionNumber;
+import org.spongepowered.asm.util.perf.HeapAccounting.Estimate;
 
 import com.google.common.base.Strings;
+import com.google.common.io.Closeables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 import com.google.gson.Gson;
@@ -147,6 +155,40 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
 
     }
     
+    /**
+     * A mixin whose preparation has been deferred until one of its targets is
+     * loaded, see {@link Option#LAZY_PREPARE}
+     */
+    static final class DeferredMixin {
+        
+        /**
+         * Mixin class name (without the package) 
+         */
+        final String name;
+        
+        /**
+         * Whether the config plugin should be ignored for this mixin
+         */
+        final boolean ignorePlugin;
+        
+        /**
+         * Order allocated to the mixin when it was declared
+         */
+        final int order;
+        
+        /**
+         * Target class names read from the mixin header
+         */
+        final List<String> targets = new ArrayList<String>();
+        
+        DeferredMixin(String name, boolean ignorePlugin) {
+            this.name = name;
+            this.ignorePlugin = ignorePlugin;
+            this.order = MixinInfo.mixinOrder++;
+        }
+        
+    }
+    
     /**
      * Global order of mixin configs, used to determine ordering between configs
      * with equivalent priority
@@ -158,6 +200,18 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
      */
     private static final Set<String> globalMixinList = new HashSet<String>();
     
+    /**
+     * Configs which own deferred mixins, by mixin class reference, used to
+     * prepare a deferred mixin when its metadata is requested
+     */
+    private static final Map<String, MixinConfig> deferredMixinOwners = new ConcurrentHashMap<String, MixinConfig>();
+    
+    /**
+     * Mixin classes which are extended by another mixin, by mixin class name.
+     * These are never deferred, see {@link #deferMixin}
+     */
+    private static final Set<String> parentMixins = new HashSet<String>();
+    
     /**
      * Log even more things
      */
@@ -183,6 +237,26 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
      */
     private final transient List<MixinInfo> mixins = new ArrayList<MixinInfo>();
     
+    /**
+     * Mixins whose preparation is deferred, by mixin class name
+     */
+    private final transient Map<String, DeferredMixin> deferredMixins = new LinkedHashMap<String, DeferredMixin>();
+    
+    /**
+     * Map of target classes to deferred mixins which target them
+     */
+    private final transient Map<String, List<DeferredMixin>> deferredMapping = new HashMap<String, List<DeferredMixin>>();
+    
+    /**
+     * True if mixins should be prepared lazily
+     */
+    private transient boolean lazyPrepare;
+    
+    /**
+     * Extensions, retained for preparing deferred mixins
+     */
+    private transient Extensions extensions;
+    
     /**
      * Marshal 
      */
@@ -369,6 +443,12 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
      */
     private transient boolean prepared = false;
     
+    /**
+     * Set once {@link #postInitialise} begins validating mixins, deferred
+     * mixins prepared before this point are validated with the others
+     */
+    private transient boolean postInitialised = false;
+    
     /**
      * Track whether this mixin has been evaluated for selection yet 
      */
@@ -774,6 +854,8 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
             return;
         }
         this.prepared = true;
+        this.extensions = extensions;
+        this.lazyPrepare = this.env.getOption(Option.LAZY_PREPARE) && !this.env.getOption(Option.DEBUG_STRICT);
         
         this.prepareMixins("mixins", this.mixinClasses, false, extensions);
         
@@ -790,6 +872,10 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
                 this.logger.warn("Mixin environment was unable to detect the current side, sided mixins will not be applied");
                 break;
         }
+        
+        if (this.deferredMixins.size() > 0) {
+            this.logger.debug("Deferred preparation of {} mixins in {} until their targets are loaded", this.deferredMixins.size(), this);
+        }
     }
     
     void postInitialise(Extensions extensions) {
@@ -798,8 +884,10 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
             this.prepareMixins("companion plugin", pluginMixins, true, extensions);
         }
         
-        for (Iterator<MixinInfo> iter = this.mixins.iterator(); iter.hasNext();) {
-            MixinInfo mixin = iter.next();
+        // Validating a mixin can prepare a deferred mixin in this config, which
+        // is validated immediately and added to the list, so iterate a copy
+        this.postInitialised = true;
+        for (MixinInfo mixin : new ArrayList<MixinInfo>(this.mixins)) {
             try {
                 mixin.validate();
                 for (IListener listener : this.listeners) {
@@ -808,11 +896,11 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
             } catch (InvalidMixinException ex) {
                 this.logger.error(ex.getMixin() + ": " + ex.getMessage(), ex);
                 this.removeMixin(mixin);
-                iter.remove();
+                this.mixins.remove(mixin);
             } catch (Exception ex) {
                 this.logger.error(ex.getMessage(), ex);
                 this.removeMixin(mixin);
-                iter.remove();
+                this.mixins.remove(mixin);
             }
         }
     }
@@ -847,6 +935,11 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
                 continue;
             }
             
+            if (this.lazyPrepare && this.deferMixin(mixinClass, fqMixinClass, ignorePlugin)) {
+                MixinConfig.globalMixinList.add(fqMixinClass);
+                continue;
+            }
+            
             MixinInfo mixin = null;
             
             try {
@@ -895,6 +988,254 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
         this.pendingMixins.clear();
     }
 
+    /**
+     * Defer preparation of the specified mixin, registering the targets
+     * declared in its {@link Mixin} annotation so that they are visible to the
+     * config plugin and to {@link #hasMixinsFor}. The targets are read from the
+     * raw mixin bytes without running the transformer chain, the mixin is not
+     * deferred if the bytes are not available or the annotation is missing so
+     * that the error is raised by the normal preparation path.
+     * 
+     * <p>Mixins which belong to a mixin hierarchy are never deferred. A child
+     * must be registered with the {@link MixinInheritanceTracker} before its
+     * parent is applied, otherwise the parent's callback handlers do not see
+     * the child's overrides. When a child is found its parent is recorded so
+     * that it is not deferred, or prepared now if it was already deferred.</p>
+     * 
+     * @return true if the mixin was deferred
+     */
+    private boolean deferMixin(String mixinClass, String fqMixinClass, boolean ignorePlugin) {
+        if (MixinConfig.parentMixins.contains(fqMixinClass)) {
+            return false;
+        }
+        
+        String mixinRef = fqMixinClass.replace('.', '/');
+        ClassNode header = this.readClassHeader(mixinRef);
+        AnnotationNode annotation = header != null ? Annotations.getInvisible(header, Mixin.class) : null;
+        if (annotation == null) {
+            return false;
+        }
+        
+        if (this.isMixinClass(header.superName)) {
+            MixinConfig.parentMixins.add(header.superName.replace('/', '.'));
+            MixinConfig.prepareDeferredMixin(header.superName);
+            return false;
+        }
+        
+        List<String> targetNames = new ArrayList<String>();
+        List<Type> publicTargets = Annotations.<List<Type>>getValue(annotation, "value");
+        if (publicTargets != null) {
+            for (Type target : publicTargets) {
+                targetNames.add(target.getInternalName());
+            }
+        }
+        List<String> privateTargets = Annotations.<List<String>>getValue(annotation, "targets");
+        if (privateTargets != null) {
+            for (String target : privateTargets) {
+                targetNames.add(this.remapClassName(mixinRef, target));
+            }
+        }
+        
+        DeferredMixin deferred = new DeferredMixin(mixinClass, ignorePlugin);
+        for (String targetName : targetNames) {
+            if (targetName == null) {
+                continue;
+            }
+            String targetClassName = targetName.replace('/', '.');
+            deferred.targets.add(targetClassName);
+            List<DeferredMixin> deferredFor = this.deferredMapping.get(targetClassName);
+            if (deferredFor == null) {
+                this.deferredMapping.put(targetClassName, deferredFor = new ArrayList<DeferredMixin>());
+            }
+            deferredFor.add(deferred);
+            this.mixinsFor(targetClassName);
+            this.unhandledTargets.add(targetClassName);
+        }
+        
+        this.deferredMixins.put(fqMixinClass, deferred);
+        MixinConfig.deferredMixinOwners.put(mixinRef, this);
+        return true;
+    }
+    
+    /**
+     * Get whether the specified class is a mixin, reads the class header if
+     * the class is not a mixin which has already been declared
+     * 
+     * @param classRef Class reference (internal name), can be null
+     */
+    private boolean isMixinClass(String classRef) {
+        if (classRef == null || "java/lang/Object".equals(classRef)) {
+            return false;
+        }
+        if (MixinConfig.globalMixinList.contains(classRef.replace('/', '.'))) {
+            return true;
+        }
+        ClassNode header = this.readClassHeader(classRef);
+        return header != null && Annotations.getInvisible(header, Mixin.class) != null;
+    }
+    
+    /**
+     * Read the class header and annotations of the specified class, skipping
+     * method bodies
+     * 
+     * @param classRef Class reference (internal name)
+     * @return header classnode or null if the class bytes could not be read
+     */
+    private ClassNode readClassHeader(String classRef) {
+        InputStream resource = null;
+        try {
+            resource = this.service.getResourceAsStream(classRef + ".class");
+            if (resource == null) {
+                return null;
+            }
+            ClassNode classNode = new ClassNode();
+            new ClassReader(resource).accept(classNode, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            return classNode;
+        } catch (Exception ex) {
+            this.logger.debug("Could not read header of {}, the mixin will not be deferred: {}", classRef, ex.getMessage());
+            return null;
+        } finally {
+            Closeables.closeQuietly(resource);
+        }
+    }
+    
+    /**
+     * Prepare any deferred mixins which target the specified class, or the
+     * deferred mixin itself if the specified class is a deferred mixin.
+     * 
+     * @param className Class being transformed
+     */
+    synchronized void prepareDeferredMixinsFor(String className) {
+        if (this.deferredMixins.isEmpty()) {
+            return;
+        }
+        
+        DeferredMixin self = this.deferredMixins.get(className);
+        if (self != null) {
+            this.prepareDeferred(self);
+        }
+        
+        List<DeferredMixin> deferredFor = this.deferredMapping.get(className);
+        if (deferredFor == null || !this.mixinMapping.containsKey(className)) {
+            // No deferred mixins, or the target was removed by the plugin
+            return;
+        }
+        
+        for (DeferredMixin deferred : new ArrayList<DeferredMixin>(deferredFor)) {
+            this.prepareDeferred(deferred);
+        }
+    }
+    
+    /**
+     * Prepare the specified deferred mixin if its metadata is requested before
+     * any of its targets are loaded
+     * 
+     * @param mixinClassRef Mixin class reference (internal name)
+     * @return true if a deferred mixin was prepared
+     */
+    static boolean prepareDeferredMixin(String mixinClassRef) {
+        MixinConfig owner = MixinConfig.deferredMixinOwners.isEmpty() ? null : MixinConfig.deferredMixinOwners.get(mixinClassRef);
+        if (owner == null) {
+            return false;
+        }
+        synchronized (owner) {
+            DeferredMixin deferred = owner.deferredMixins.get(mixinClassRef.replace('/', '.'));
+            return deferred != null && owner.prepareDeferred(deferred);
+        }
+    }
+
+    /**
+     * Prepare and validate a deferred mixin, this performs the same steps for
+     * the mixin as {@link #prepare}, plugin target selection and {@link
+     * #postInitialise} would have performed if the mixin had not been deferred.
+     * If this config has not reached {@link #postInitialise} yet the mixin is
+     * validated there along with the others.
+     */
+    private boolean prepareDeferred(DeferredMixin deferred) {
+        String fqMixinClass = this.mixinPackage + deferred.name;
+        this.deferredMixins.remove(fqMixinClass);
+        MixinConfig.deferredMixinOwners.remove(fqMixinClass.replace('.', '/'));
+        for (String targetClassName : deferred.targets) {
+            List<DeferredMixin> deferredFor = this.deferredMapping.get(targetClassName);
+            if (deferredFor != null) {
+                deferredFor.remove(deferred);
+                if (deferredFor.isEmpty()) {
+                    this.deferredMapping.remove(targetClassName);
+                }
+            }
+        }
+        
+        MixinInfo mixin = null;
+        boolean prepared = false;
+        try {
+            mixin = new MixinInfo(this.service, this, deferred.name, this.plugin, deferred.ignorePlugin, this.extensions, deferred.order);
+            mixin.parseTargets();
+            for (String targetClass : mixin.getTargetClasses()) {
+                if (!deferred.targets.contains(targetClass.replace('/', '.'))) {
+                    throw new InvalidMixinException(mixin, String.format("Deferred mixin %s targets %s which was not declared in the mixin header, "
+                            + "the mixin bytecode was altered after it was deferred", mixin, targetClass));
+                }
+            }
+            if (mixin.getTargetClasses().size() > 0) {
+                for (String targetClass : mixin.getTargetClasses()) {
+                    String targetClassName = targetClass.replace('/', '.');
+                    if (deferred.targets.contains(targetClassName) && !this.mixinMapping.containsKey(targetClassName)) {
+                        // Target was removed by the config plugin
+                        continue;
+                    }
+                    this.mixinsFor(targetClassName).add(mixin);
+                    this.unhandledTargets.add(targetClassName);
+                }
+                for (IListener listener : this.listeners) {
+                    listener.onPrepare(mixin);
+                }
+                this.mixins.add(mixin);
+                prepared = true;
+            }
+        } catch (InvalidMixinException ex) {
+            if (this.required) {
+                throw ex;
+            }
+            this.logger.error(ex.getMessage(), ex);
+        } catch (Exception ex) {
+            if (this.required) {
+                throw new InvalidMixinException(mixin, "Error initialising mixin " + mixin + " - " + ex.getClass() + ": " + ex.getMessage(), ex);
+            }
+            this.logger.error(ex.getMessage(), ex);
+        }
+        
+        if (prepared && this.postInitialised) {
+            try {
+                mixin.validate();
+                for (IListener listener : this.listeners) {
+                    listener.onInit(mixin);
+                }
+            } catch (InvalidMixinException ex) {
+                this.logger.error(ex.getMixin() + ": " + ex.getMessage(), ex);
+                this.removeMixin(mixin);
+                this.mixins.remove(mixin);
+                prepared = false;
+            } catch (Exception ex) {
+                this.logger.error(ex.getMessage(), ex);
+                this.removeMixin(mixin);
+                this.mixins.remove(mixin);
+                prepared = false;
+            }
+        }
+        
+        // Discard targets which turned out to have no mixins, so that they are
+        // not reported as unhandled and are not needlessly processed
+        for (String targetClassName : deferred.targets) {
+            List<MixinInfo> mixinsFor = this.mixinMapping.get(targetClassName);
+            if (mixinsFor != null && mixinsFor.isEmpty() && !this.deferredMapping.containsKey(targetClassName)) {
+                this.mixinMapping.remove(targetClassName);
+                this.unhandledTargets.remove(targetClassName);
+            }
+        }
+        
+        return prepared;
+    }
+
     void postApply(String transformedName, ClassNode targetClass) {
         this.unhandledTargets.remove(transformedName);
     }
@@ -1043,6 +1384,44 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
         return this.mixins.size();
     }
 
+    /**
+     * Release the trees of all prepared mixins in this config
+     * 
+     * @return number of trees released
+     */
+    int releaseTrees() {
+        int released = 0;
+        for (MixinInfo mixin : this.mixins) {
+            if (mixin.releaseTree()) {
+                released++;
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Add the trees held by the pending and prepared mixins in this config to
+     * the supplied heap estimate
+     * 
+     * @param estimate estimate to add to
+     */
+    void estimateHeap(Estimate estimate) {
+        for (MixinInfo mixin : this.pendingMixins) {
+            estimate.entry(mixin.estimateTreeSize());
+        }
+        for (MixinInfo mixin : this.mixins) {
+            estimate.entry(mixin.estimateTreeSize());
+        }
+    }
+
+    /**
+     * Get the number of mixins whose preparation is still deferred, for debug
+     * logging
+     */
+    int getDeferredMixinCount() {
+        return this.deferredMixins.size();
+    }
+
     /**
      * Get the list of mixin classes we will be applying
      */
@@ -1206,7 +1585,17 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
         return this.mixinMapping.containsKey(targetClass);
     }
     
-    boolean hasPendingMixinsFor(String targetClass) {
+    /**
+     * Check whether this configuration bundle has mixins for the specified
+     * class which have not been prepared yet, either because the config has
+     * not been prepared or because the mixins were deferred and have not been
+     * prepared since. Deferred mixins whose target was removed by the config
+     * plugin are not counted.
+     * 
+     * @param targetClass target class
+     * @return true if this bundle has unprepared mixins for the target
+     */
+    synchronized boolean hasPendingMixinsFor(String targetClass) {
         if (this.packageMatch(targetClass)) {
             return false;
         }
@@ -1215,7 +1604,7 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
                 return true;
             }
         }
-        return false;
+        return this.deferredMapping.containsKey(targetClass) && this.mixinMapping.containsKey(targetClass);
     }
     
     /**
@@ -1249,6 +1638,9 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
             MixinInfo mixin = iter.next();
             if (mixin.getClassName().equals(mixinClass)) {
                 mixin.reloadMixin(classNode);
+                if (this.listeners.contains(MixinInheritanceTracker.INSTANCE)) {
+                    MixinInheritanceTracker.INSTANCE.onReload(mixin);
+                }
                 return mixin.getTargetClasses();
             }
         }
@@ -32,11 +32,14 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.zip.DataFormatException;
 
 import org.spongepowered.asm.launch.platform.GlobalMixinContextQuery;
 import org.spongepowered.asm.logging.Level;
 import org.spongepowered.asm.logging.ILogger;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -58,6 +61,7 @@ import org.spongepowered.asm.mixin.Pseudo;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.extensibility.IMixinConfig;
+import org.spongepowered.asm.mixin.extensibility.IMixinConfigPluginBatch.Hook;
 import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
 import org.spongepowered.asm.mixin.injection.Surrogate;
 import org.spongepowered.asm.mixin.injection.struct.InjectionInfo;
@@ -71,10 +75,13 @@ import org.spongepowered.asm.service.IMixinService;
 import org.spongepowered.asm.service.MixinService;
 import org.spongepowered.asm.util.Annotations;
 import org.spongepowered.asm.util.Bytecode;
+import org.spongepowered.asm.util.Compression;
 import org.spongepowered.asm.util.LanguageFeatures;
 import org.spongepowered.asm.util.asm.ASM;
 import org.spongepowered.asm.util.asm.MethodNodeEx;
 import org.spongepowered.asm.util.CompareUtil;
+import org.spongepowered.asm.util.perf.HeapAccounting;
+import org.spongepowered.asm.util.perf.HeapAccounting.Estimate;
 import org.spongepowered.asm.util.perf.Profiler;
 import org.spongepowered.asm.util.perf.Profiler.Section;
 
@@ -196,9 +203,20 @@ public class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
     class State {
         
         /**
-         * Initial ClassNode passed in to the creation of this state object
+         * Initial ClassNode passed in to the creation of this state object,
+         * null once the tree has been {@link #release released}
          */
-        private final ClassNode classNode;
+        private ClassNode classNode;
+        
+        /**
+         * Deflated bytecode written from the tree when it is released 
+         */
+        private byte[] classBytes;
+        
+        /**
+         * Length of the bytecode before it was deflated
+         */
+        private int classLength;
         
         /**
          * Mixin ClassInfo
@@ -265,10 +283,73 @@ public class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
             return this.classInfo;
         }
         
+        /**
+         * Get the tree this state was created from. If the tree has been
+         * released then a new tree is read for the caller but is not retained.
+         */
         ClassNode getClassNode() {
+            if (this.classNode == null) {
+                ClassNode classNode = new ClassNode(ASM.API_VERSION);
+                this.readClass(classNode);
+                return classNode;
+            }
             return this.classNode;
         }
 
+        /**
+         * Release the tree, keeping only deflated bytecode from which the tree
+         * is read again when it is next required. Has no effect while the state
+         * is being validated or if the tree cannot be written.
+         * 
+         * @return true if the tree was released
+         */
+        boolean release() {
+            if (this.classNode == null || this.validationClassNode != null) {
+                return false;
+            }
+            
+            try {
+                ClassWriter writer = new ClassWriter(0);
+                this.classNode.accept(writer);
+                byte[] bytes = writer.toByteArray();
+                this.classBytes = Compression.deflate(bytes);
+                this.classLength = bytes.length;
+            } catch (RuntimeException ex) {
+                MixinInfo.this.logger.debug("Could not release the tree for {}: {} {}", MixinInfo.this, ex.getClass().getName(), ex.getMessage());
+                return false;
+            }
+            
+            this.classNode = null;
+            return true;
+        }
+        
+        /**
+         * Estimate the heap retained by the trees or released bytecode held by
+         * this state
+         */
+        long estimateSize() {
+            long size = 0L;
+            if (this.classNode != null) {
+                size += Estimate.classNode(this.classNode);
+            } else if (this.classBytes != null) {
+                size += Estimate.array(this.classBytes.length, 1);
+            }
+            if (this.validationClassNode != null) {
+                size += Estimate.classNode(this.validationClassNode);
+            }
+            return size;
+        }
+        
+        private void readClass(ClassVisitor visitor) {
+            byte[] bytes;
+            try {
+                bytes = Compression.inflate(this.classBytes, this.classLength);
+            } catch (DataFormatException ex) {
+                throw new InvalidMixinException(MixinInfo.this, "Error reading the released tree of " + MixinInfo.this, ex);
+            }
+            new ClassReader(bytes).accept(visitor, ClassReader.EXPAND_FRAMES);
+        }
+
         MixinClassNode getValidationClassNode() {
             if (this.validationClassNode == null) {
                 throw new IllegalStateException("Attempted a validation task after validation is complete on " + this + " in " + MixinInfo.this);
@@ -308,7 +389,11 @@ public class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
          */
         MixinClassNode createClassNode(int flags) {
             MixinClassNode mixinClassNode = new MixinClassNode(MixinInfo.this);
-            this.classNode.accept(mixinClassNode);
+            if (this.classNode != null) {
+                this.classNode.accept(mixinClassNode);
+            } else {
+                this.readClass(mixinClassNode);
+            }
             return mixinClassNode;
         }
 
@@ -788,7 +873,7 @@ public class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
     /**
      * Intrinsic order (for sorting mixins with identical priority)
      */
-    private final transient int order = MixinInfo.mixinOrder++;
+    private final transient int order;
     
     /**
      * Service 
@@ -825,6 +910,18 @@ public class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      */
     private final transient Extensions extensions;
 
+    /**
+     * True if the tree should be released once all targets have been
+     * processed, see {@link Option#RELEASE_TREES}
+     */
+    private final transient boolean releaseTree;
+    
+    /**
+     * Targets which this mixin has not yet been applied to, created when the
+     * mixin is first applied if {@link #releaseTree} is set
+     */
+    private transient Set<String> unprocessedTargets;
+
     /**
      * Holds state that currently is not fully initialised or validated
      */
@@ -845,6 +942,25 @@ public class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      *      this mixin
      */
     MixinInfo(IMixinService service, MixinConfig parent, String name, PluginHandle plugin, boolean ignorePlugin, Extensions extensions) {
+        this(service, parent, name, plugin, ignorePlugin, extensions, MixinInfo.mixinOrder++);
+    }
+    
+    /**
+     * Internal ctor, called by {@link MixinConfig} when preparing a mixin
+     * whose preparation was deferred, the order is allocated when the mixin
+     * is first declared so that mixins with equal priority are applied in the
+     * same order regardless of when they are prepared
+     * 
+     * @param parent configuration which owns this mixin, the parent
+     * @param name name of this mixin (class name stub)
+     * @param plugin mixin config companion plugin handle
+     * @param ignorePlugin true to prevent the plugin from filtering targets of
+     *      this mixin
+     * @param order order allocated to this mixin
+     */
+    MixinInfo(IMixinService service, MixinConfig parent, String name, PluginHandle plugin, boolean ignorePlugin, Extensions extensions,
+            int order) {
+        this.order = order;
         this.service = service;
         this.parent = parent;
         this.name = name;
@@ -852,6 +968,7 @@ public class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
         this.plugin = plugin;
         this.phase = parent.getEnvironment().getPhase();
         this.strict = parent.getEnvironment().getOption(Option.DEBUG_TARGETS);
+        this.releaseTree = parent.getEnvironment().getOption(Option.RELEASE_TREES);
         this.extensions = extensions;
         
         // Read the class bytes and transform
@@ -1104,6 +1221,13 @@ public class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
         return this.parent;
     }
 
+    /**
+     * Get the companion plugin handle for the parent config
+     */
+    PluginHandle getPluginHandle() {
+        return this.plugin;
+    }
+
     /**
      * Get the parent config which declares this mixin
      */
@@ -1219,6 +1343,15 @@ public class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
         return this.getState().createClassNode(flags);
     }
     
+    /**
+     * Get the tree this mixin's current state was created from. Unlike
+     * {@link #getClassNode} the returned node is <b>not</b> a copy and must be
+     * treated as read-only
+     */
+    ClassNode getStateClassNode() {
+        return this.getState().getClassNode();
+    }
+    
     /**
      * Get the target class names as declared for this mixin
      */
@@ -1353,7 +1486,7 @@ public class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      * Called immediately before the mixin is applied to targetClass
      */
     public void preApply(String transformedName, ClassNode targetClass) throws Exception {
-        if (this.plugin.isAvailable()) {
+        if (this.plugin.hasHook(Hook.PRE_APPLY)) {
             Section pluginTimer = this.profiler.begin("plugin");
             try {
                 this.plugin.preApply(transformedName, targetClass, this.className, this);
@@ -1367,7 +1500,7 @@ public class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      * Called immediately after the mixin is applied to targetClass
      */
     public void postApply(String transformedName, ClassNode targetClass) throws Exception {
-        if (this.plugin.isAvailable()) {
+        if (this.plugin.hasHook(Hook.POST_APPLY)) {
             Section pluginTimer = this.profiler.begin("plugin");
             try {
                 this.plugin.postApply(transformedName, targetClass, this.className, this);
@@ -1378,6 +1511,36 @@ public class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
         
         this.parent.postApply(transformedName, targetClass);
         this.info.addAppliedMixin(this);
+        
+        if (this.releaseTree) {
+            if (this.unprocessedTargets == null) {
+                this.unprocessedTargets = new HashSet<String>(this.targetClassNames);
+            }
+            this.unprocessedTargets.remove(transformedName.replace('.', '/'));
+            if (this.unprocessedTargets.isEmpty()) {
+                this.releaseTree();
+            }
+        }
+    }
+    
+    /**
+     * Release the tree of this mixin, keeping only deflated bytecode from
+     * which a new tree is read if the mixin is applied to a late target or
+     * reloaded
+     * 
+     * @return true if the tree was released
+     */
+    boolean releaseTree() {
+        return this.pendingState == null && this.state != null && this.state.release();
+    }
+    
+    /**
+     * Estimate the heap retained by the trees held by this mixin, used for
+     * {@link HeapAccounting heap accounting}
+     */
+    long estimateTreeSize() {
+        State state = this.pendingState != null ? this.pendingState : this.state;
+        return state != null ? state.estimateSize() : 0L;
     }
     
     /* (non-Javadoc)
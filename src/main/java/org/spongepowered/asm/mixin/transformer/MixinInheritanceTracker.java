@@ -30,16 +30,52 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.MethodNode;
 
 import org.spongepowered.asm.mixin.transformer.MixinConfig.IListener;
 import org.spongepowered.asm.util.Bytecode;
+import org.spongepowered.asm.util.Bytecode.Visibility;
 
 public enum MixinInheritanceTracker implements IListener {
 	INSTANCE;
 
+	/**
+	 * Signature table of the methods in a mixin which could override a method
+	 * in a parent mixin, built once when the mixin is initialised so that
+	 * override queries do not need to create a new tree for each child. The
+	 * table holds the method nodes themselves so that it remains valid when
+	 * the mixin's tree is released, only the overridable methods of child
+	 * mixins are retained.
+	 */
+	static final class MethodTable {
+		/**
+		 * Internal name of the mixin's package, including the trailing slash
+		 */
+		final String packagePrefix;
+
+		/**
+		 * Non-static, non-private methods keyed by name and descriptor
+		 */
+		private final Map<String, MethodNode> methods;
+
+		MethodTable(ClassNode classNode) {
+			this.packagePrefix = classNode.name.substring(0, classNode.name.lastIndexOf('/') + 1);
+
+			Map<String, MethodNode> methods = new HashMap<String, MethodNode>();
+			for (MethodNode method : classNode.methods) {
+				if (!Bytecode.isStatic(method) && Bytecode.getVisibility(method) != Visibility.PRIVATE) {
+					methods.put(method.name.concat(method.desc), method);
+				}
+			}
+			this.methods = methods.isEmpty() ? Collections.<String, MethodNode>emptyMap() : methods;
+		}
+
+		MethodNode get(String signature) {
+			return this.methods.get(signature);
+		}
+	}
+
 	@Override
 	public void onPrepare(MixinInfo mixin) {
 	}
@@ -49,6 +85,7 @@ public enum MixinInheritanceTracker implements IListener {
 		ClassInfo mixinInfo = mixin.getClassInfo();
 		assert mixinInfo.isMixin(); //The mixin should certainly be a mixin
 
+		boolean hasParent = false;
 		for (ClassInfo superType = mixinInfo.getSuperClass(); superType != null && superType.isMixin(); superType = superType.getSuperClass()) {
 			List<MixinInfo> children = parentMixins.get(superType.getName());
 
@@ -57,44 +94,68 @@ public enum MixinInheritanceTracker implements IListener {
 			}
 
 			children.add(mixin);
+			hasParent = true;
+		}
+
+		//Only mixins with mixin parents are ever queried, so only they need a table
+		if (hasParent) {
+			methodTables.put(mixin, new MethodTable(mixin.getStateClassNode()));
 		}
 	}
 
+	/**
+	 * Called when a mixin is reloaded (hot-swapped) so that its method table
+	 * reflects the new bytecode
+	 * 
+	 * @param mixin mixin which was reloaded
+	 */
+	void onReload(MixinInfo mixin) {
+		if (methodTables.containsKey(mixin)) {
+			methodTables.put(mixin, new MethodTable(mixin.getStateClassNode()));
+		}
+	}
+
+	/**
+	 * Find methods in child mixins of the specified mixin which override the
+	 * specified method. The returned methods belong to the mixins' original
+	 * trees and must be treated as read-only.
+	 * 
+	 * @param owner parent mixin
+	 * @param name method name
+	 * @param desc method descriptor
+	 * @return overriding methods, empty if none
+	 */
 	public List<MethodNode> findOverrides(ClassInfo owner, String name, String desc) {
 		return findOverrides(owner.getName(), name, desc);
 	}
 
-	@SuppressWarnings("fallthrough")
 	public List<MethodNode> findOverrides(String owner, String name, String desc) {
 		List<MixinInfo> children = parentMixins.get(owner);
 		if (children == null) return Collections.emptyList();
 
-		List<MethodNode> out = new ArrayList<MethodNode>(children.size());
+		String signature = name.concat(desc);
+		List<MethodNode> out = null;
 
 		for (MixinInfo child : children) {
-			ClassNode node = child.getClassNode(ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
-
-			MethodNode method = Bytecode.findMethod(node, name, desc);
-			if (method == null || Bytecode.isStatic(method)) continue;
-
-			switch (Bytecode.getVisibility(method)) {
-			case PRIVATE:
-				break;
+			MethodTable table = methodTables.get(child);
+			MethodNode method = table != null ? table.get(signature) : null;
+			if (method == null) continue;
 
-			case PACKAGE:
-				int ownerSplit = owner.lastIndexOf('/');
-				int childSplit = node.name.lastIndexOf('/');
-				//There is a reasonable chance mixins are in the same package, so it is viable that a package private method is overridden
-				if (ownerSplit != childSplit || (ownerSplit > 0 && !owner.regionMatches(0, node.name, 0, ownerSplit + 1))) break;
+			//There is a reasonable chance mixins are in the same package, so it is viable that a package private method is overridden
+			if (Bytecode.getVisibility(method) == Visibility.PACKAGE && !isInPackage(owner, table.packagePrefix)) continue;
 
-			default:
-				out.add(method);
-				break;
-			}
+			if (out == null) out = new ArrayList<MethodNode>(children.size());
+			out.add(method);
 		}
 
-		return out.isEmpty() ? Collections.<MethodNode>emptyList() : out;
+		return out == null ? Collections.<MethodNode>emptyList() : out;
+	}
+
+	private static boolean isInPackage(String owner, String packagePrefix) {
+		return owner.length() > packagePrefix.length() && owner.startsWith(packagePrefix) && owner.indexOf('/', packagePrefix.length()) < 0;
 	}
 
 	private final Map<String, List<MixinInfo>> parentMixins = new HashMap<String, List<MixinInfo>>();
+
+	private final Map<MixinInfo, MethodTable> methodTables = new HashMap<MixinInfo, MethodTable>();
 }
\ No newline at end of file
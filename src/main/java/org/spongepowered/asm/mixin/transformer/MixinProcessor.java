@@ -41,6 +41,8 @@ import org.spongepowered.asm.mixin.extensibility.*;
 import org.spongepowered.asm.mixin.extensibility.IMixinErrorHandler.ErrorAction;
 import org.spongepowered.asm.mixin.injection.InjectionPoint;
 import org.spongepowered.asm.mixin.injection.selectors.ITargetSelectorDynamic;
+import org.spongepowered.asm.mixin.injection.selectors.MemberMatcher;
+import org.spongepowered.asm.mixin.injection.struct.MemberInfo;
 import org.spongepowered.asm.mixin.throwables.ClassAlreadyLoadedException;
 import org.spongepowered.asm.mixin.throwables.MixinApplyError;
 import org.spongepowered.asm.mixin.throwables.MixinException;
@@ -50,6 +52,7 @@ import org.spongepowered.asm.mixin.transformer.MixinCoprocessor.ProcessResult;
 import org.spongepowered.asm.mixin.transformer.MixinInfo.Variant;
 import org.spongepowered.asm.mixin.transformer.ext.Extensions;
 import org.spongepowered.asm.mixin.transformer.ext.IHotSwap;
+import org.spongepowered.asm.mixin.transformer.ext.extensions.ExtensionCheckClass;
 import org.spongepowered.asm.mixin.transformer.ext.extensions.ExtensionClassExporter;
 import org.spongepowered.asm.mixin.transformer.meta.MixinMerged;
 import org.spongepowered.asm.mixin.transformer.throwables.IllegalClassLoadError;
@@ -57,11 +60,16 @@ import org.spongepowered.asm.mixin.transformer.throwables.InvalidMixinException;
 import org.spongepowered.asm.mixin.transformer.throwables.MixinTransformerError;
 import org.spongepowered.asm.mixin.transformer.throwables.ReEntrantTransformerError;
 import org.spongepowered.asm.service.IMixinAuditTrail;
+import org.spongepowered.asm.service.IMixinMetrics.Stage;
 import org.spongepowered.asm.service.IMixinService;
 import org.spongepowered.asm.service.MixinService;
 import org.spongepowered.asm.util.Annotations;
 import org.spongepowered.asm.util.PrettyPrinter;
 import org.spongepowered.asm.util.ReEntranceLock;
+import org.spongepowered.asm.util.perf.HeapAccounting;
+import org.spongepowered.asm.util.perf.HeapAccounting.Estimate;
+import org.spongepowered.asm.util.perf.HeapAccounting.ISource;
+import org.spongepowered.asm.util.perf.MixinMetrics;
 import org.spongepowered.asm.util.perf.Profiler;
 import org.spongepowered.asm.util.perf.Profiler.Section;
 
@@ -138,6 +146,19 @@ public class MixinProcessor implements IMixinProcessor {
         
     }
 
+    /**
+     * Heap accounting source, counts the trees held by the mixins in each
+     * config
+     */
+    private static final ISource<MixinProcessor> HEAP_SOURCE = new ISource<MixinProcessor>() {
+        @Override
+        public void estimate(MixinProcessor owner, Estimate estimate) {
+            for (MixinConfig config : new ArrayList<MixinConfig>(owner.configs)) {
+                config.estimateHeap(estimate);
+            }
+        }
+    };
+    
     /**
      * Log all the things
      */
@@ -231,6 +252,7 @@ public class MixinProcessor implements IMixinProcessor {
         
         this.profiler = Profiler.getProfiler("mixin");
         this.auditTrail = this.service.getAuditTrail();
+        HeapAccounting.register(HeapAccounting.MIXIN_TREES, this, MixinProcessor.HEAP_SOURCE);
     }
 
     @Override
@@ -281,17 +303,53 @@ public class MixinProcessor implements IMixinProcessor {
         if (environment.getOption(Option.DEBUG_PROFILER)) {
             Profiler.printAuditSummary();
         }
+        
+        if (environment.getOption(Option.METRICS)) {
+            HeapAccounting.printReport();
+        }
+        
+        // Raises background verification failures if configured to do so
+        this.extensions.<ExtensionCheckClass>getExtension(ExtensionCheckClass.class).audit();
+    }
+
+    /**
+     * Select and prepare the configs for the specified environment without
+     * transforming a class. Tools which apply mixins outside of a class-loading
+     * environment use this to visit each phase in turn before applying mixins.
+     * 
+     * @param environment Environment to select
+     */
+    public synchronized void selectEnvironment(MixinEnvironment environment) {
+        this.lock.push();
+        try {
+            this.checkSelect(environment);
+        } finally {
+            this.lock.pop();
+        }
     }
 
-    synchronized boolean applyMixins(MixinEnvironment environment, String name, ClassNode targetClassNode) {
+    /**
+     * Apply mixins and postprocessors to the supplied class
+     * 
+     * @param environment Current environment
+     * @param name Class transformed name
+     * @param targetClassNode Class tree
+     * @param wovenMixins Mixins which were already applied to the class ahead
+     *      of time, or <tt>null</tt> if the class was not woven
+     * @return true if the class was transformed
+     */
+    synchronized boolean applyMixins(MixinEnvironment environment, String name, ClassNode targetClassNode, Set<String> wovenMixins) {
         if (name == null || this.errorState) {
             return false;
         }
         
         boolean locked = this.lock.push().check();
         Section mixinTimer = this.profiler.begin("mixin");
+        MixinMetrics.classInspected(name);
+        long start = MixinMetrics.begin();
 
         if (locked) {
+            MixinMetrics.reEntrance(name);
             for (MixinConfig config : this.pendingConfigs) {
                 if (config.hasPendingMixinsFor(name)) {
                     ReEntrantTransformerError error = new ReEntrantTransformerError("Re-entrance error.");
@@ -299,6 +357,14 @@ public class MixinProcessor implements IMixinProcessor {
                     throw error;
                 }
             }
+            // Deferred mixins cannot be prepared re-entrantly, and would otherwise be skipped for this target
+            for (MixinConfig config : this.configs) {
+                if (config.hasPendingMixinsFor(name)) {
+                    ReEntrantTransformerError error = new ReEntrantTransformerError("Re-entrance error.");
+                    MixinProcessor.logger.warn("Re-entrance detected for {} with deferred mixins, this will cause serious problems.", name, error);
+                    throw error;
+                }
+            }
         } else {
             try {
                 this.checkSelect(environment);
@@ -312,6 +378,14 @@ public class MixinProcessor implements IMixinProcessor {
         boolean transformed = false;
         
         try {
+            if (!locked) {
+                this.prepareDeferredMixins(environment, name);
+            }
+            
+            if (wovenMixins != null && this.isFullyWoven(name, targetClassNode, wovenMixins)) {
+                return false;
+            }
+            
             ProcessResult result = this.coprocessors.process(name, targetClassNode);
             transformed |= result.isTransformed();
             
@@ -356,7 +430,11 @@ public class MixinProcessor implements IMixinProcessor {
                     }
                     
                     // Get and sort mixins for the class
-                    mixins.addAll(config.getMixinsFor(name));
+                    for (MixinInfo mixin : config.getMixinsFor(name)) {
+                        if (wovenMixins == null || !wovenMixins.contains(mixin.getClassName())) {
+                            mixins.add(mixin);
+                        }
+                    }
                 }
             }
             
@@ -407,10 +485,71 @@ public class MixinProcessor implements IMixinProcessor {
         } finally {
             this.lock.pop();
             mixinTimer.end();
+            MixinMetrics.end(Stage.APPLY, name, start);
+            if (transformed) {
+                MixinMetrics.classTransformed(name);
+            }
+            if (this.lock.getDepth() == 0) {
+                HeapAccounting.publish();
+            }
         }
         return transformed;
     }
 
+    /**
+     * Release the trees of all prepared mixins if the environment has reached
+     * the phase specified by {@link Option#RELEASE_TREES_PHASE}
+     */
+    private void releaseTrees(MixinEnvironment environment) {
+        String phaseName = environment.getOptionValue(Option.RELEASE_TREES_PHASE);
+        if (phaseName == null || phaseName.isEmpty() || environment.getPhase() != Phase.forName(phaseName.toUpperCase(Locale.ROOT))) {
+            return;
+        }
+        
+        int released = 0;
+        for (MixinConfig config : this.configs) {
+            released += config.releaseTrees();
+        }
+        MixinProcessor.logger.log(this.verboseLoggingLevel, "Released trees of {} mixins at {}", released, environment.getPhase());
+    }
+
+    /**
+     * Prepare mixins which were deferred until the specified class is loaded,
+     * see {@link Option#LAZY_PREPARE}
+     */
+    private void prepareDeferredMixins(MixinEnvironment environment, String name) {
+        for (MixinConfig config : this.configs) {
+            try {
+                config.prepareDeferredMixinsFor(name);
+            } catch (InvalidMixinException ex) {
+                this.handleMixinPrepareError(config, ex, environment);
+            }
+        }
+    }
+
+    /**
+     * Check whether all mixins for the specified class were applied ahead of
+     * time, and if so mark the class as handled by the configs which target it
+     */
+    private boolean isFullyWoven(String name, ClassNode targetClassNode, Set<String> wovenMixins) {
+        for (MixinConfig config : this.configs) {
+            if (config.hasMixinsFor(name)) {
+                for (MixinInfo mixin : config.getMixinsFor(name)) {
+                    if (!wovenMixins.contains(mixin.getClassName())) {
+                        return false;
+                    }
+                }
+            }
+        }
+        
+        for (MixinConfig config : this.configs) {
+            if (config.hasMixinsFor(name)) {
+                config.postApply(name, targetClassNode);
+            }
+        }
+        return true;
+    }
+
     private String getInvalidClassError(String name, ClassNode targetClassNode, MixinConfig ownedByConfig) {
         if (ownedByConfig.getClasses().contains(name)) {
             return String.format("Illegal classload request for %s. Mixin is defined in %s and cannot be referenced directly", name, ownedByConfig);
@@ -464,6 +603,12 @@ public class MixinProcessor implements IMixinProcessor {
         if (this.transformedCount > 0) {
             MixinProcessor.logger.log(this.verboseLoggingLevel, "Ending {}, applied {} mixins", this.currentEnvironment, this.transformedCount);
         }
+        if (this.currentEnvironment != environment) {
+            // Selectors are parsed again as needed in the new phase
+            MemberInfo.clearCache();
+            MemberMatcher.clearCache();
+        }
+        boolean phaseChanged = this.currentEnvironment != null && this.currentEnvironment != environment;
         String action = this.currentEnvironment == environment ? "Checking for additional" : "Preparing";
         MixinProcessor.logger.log(this.verboseLoggingLevel, "{} mixins for {}", action, environment);
         
@@ -476,6 +621,7 @@ public class MixinProcessor implements IMixinProcessor {
         int totalMixins = this.prepareConfigs(environment, this.extensions);
         this.currentEnvironment = environment;
         this.transformedCount = 0;
+        this.releaseTrees(environment);
 
         prepareTimer.end();
         
@@ -494,6 +640,12 @@ public class MixinProcessor implements IMixinProcessor {
 
         this.profiler.mark(environment.getPhase().toString() + ":apply");
         Profiler.setActive(environment.getOption(Option.DEBUG_PROFILER));
+        
+        // Raise background verification failures from the previous phase now
+        // that the new phase is fully selected
+        if (phaseChanged) {
+            this.extensions.<ExtensionCheckClass>getExtension(ExtensionCheckClass.class).raiseFailures();
+        }
     }
 
     /**
@@ -561,20 +713,26 @@ public class MixinProcessor implements IMixinProcessor {
             }
         }
         
+        ConfigTargetIndex targetIndex = null;
         for (MixinConfig config : this.pendingConfigs) {
             IMixinConfigPlugin plugin = config.getPlugin();
             if (plugin == null) {
                 continue;
             }
             
-            Set<String> otherTargets = new HashSet<String>();
-            for (MixinConfig otherConfig : this.pendingConfigs) {
-                if (!otherConfig.equals(config)) {
-                    otherTargets.addAll(otherConfig.getTargets());
+            if (targetIndex == null) {
+                targetIndex = new ConfigTargetIndex();
+                for (MixinConfig indexedConfig : this.pendingConfigs) {
+                    targetIndex.add(indexedConfig);
                 }
             }
             
-            plugin.acceptTargets(config.getTargetsSet(), Collections.<String>unmodifiableSet(otherTargets));
+            ConfigTargetIndex.OtherTargets otherTargets = targetIndex.except(config);
+            try {
+                plugin.acceptTargets(config.getTargetsSet(), otherTargets);
+            } finally {
+                targetIndex.release(otherTargets, config);
+            }
         }
 
         for (MixinConfig config : this.pendingConfigs) {
@@ -27,7 +27,9 @@ package org.spongepowered.asm.mixin.transformer;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -177,6 +179,21 @@ public class MixinTargetContext extends ClassContext implements IMixinContext {
      * SourceMap stratum 
      */
     private final File stratum;
+    
+    /**
+     * Memoised descriptor transformations (field and method descriptors) for
+     * this mixin and target. The inner class mappings and the mixin hierarchy
+     * of the target are fixed for the lifetime of the context, so the result
+     * of transforming a particular descriptor never changes.
+     */
+    private final Map<String, String> transformedDescriptors = new HashMap<String, String>();
+
+    /**
+     * Memoised type name transformations, these are kept separately from
+     * descriptors since an internal name can be indistinguishable from a
+     * primitive descriptor
+     */
+    private final Map<String, String> transformedTypes = new HashMap<String, String>();
 
     /**
      * Minimum class version required to apply this mixin, target class will be
@@ -476,31 +493,23 @@ public class MixinTargetContext extends ClassContext implements IMixinContext {
             AbstractInsnNode lastInsn = null;
             for (Iterator<AbstractInsnNode> iter = method.instructions.iterator(); iter.hasNext();) {
                 AbstractInsnNode insn = iter.next();
-                IActivity insnActivity = this.activities.begin(Bytecode.getOpcodeName(insn) + " ");
-    
-                if (insn instanceof MethodInsnNode) {
-                    MethodInsnNode methodNode = (MethodInsnNode)insn;
-                    insnActivity.append("%s::%s%s", methodNode.owner, methodNode.name, methodNode.desc);
-                    this.transformMethodRef(method, iter, new MemberRef.Method(methodNode));
-                } else if (insn instanceof FieldInsnNode) {
-                    FieldInsnNode fieldNode = (FieldInsnNode)insn;
-                    insnActivity.append("%s::%s:%s", fieldNode.owner, fieldNode.name, fieldNode.desc);
-                    this.transformFieldRef(method, iter, new MemberRef.Field(fieldNode));
-                    this.checkFinal(method, iter, fieldNode);
-                } else if (insn instanceof TypeInsnNode) {
-                    TypeInsnNode typeNode = (TypeInsnNode)insn;
-                    insnActivity.append(typeNode.desc);
-                    this.transformTypeNode(method, iter, typeNode, lastInsn);
-                } else if (insn instanceof LdcInsnNode) {
-                    this.transformConstantNode(method, iter, (LdcInsnNode)insn);
-                } else if (insn instanceof InvokeDynamicInsnNode) {
-                    InvokeDynamicInsnNode invokeNode = (InvokeDynamicInsnNode)insn;
-                    insnActivity.append("%s %s", invokeNode.name, invokeNode.desc);
-                    this.transformInvokeDynamicNode(method, iter, invokeNode);
+                
+                // Only these insn types can reference the mixin, its inner
+                // classes or other mixins, so skip everything else without
+                // the overhead of describing the activity
+                switch (insn.getType()) {
+                    case AbstractInsnNode.METHOD_INSN:
+                    case AbstractInsnNode.FIELD_INSN:
+                    case AbstractInsnNode.TYPE_INSN:
+                    case AbstractInsnNode.LDC_INSN:
+                    case AbstractInsnNode.INVOKE_DYNAMIC_INSN:
+                        this.transformInsn(method, iter, insn, lastInsn);
+                        break;
+                    default:
+                        break;
                 }
                 
                 lastInsn = insn;
-                insnActivity.end();
             }
             activity.end();
         } catch (InvalidMixinException ex) {
@@ -512,6 +521,41 @@ public class MixinTargetContext extends ClassContext implements IMixinContext {
         }
     }
 
+    /**
+     * Transform a single instruction which may reference the mixin
+     * 
+     * @param method Method being processed
+     * @param iter Insn iterator
+     * @param insn Insn to transform
+     * @param lastInsn Previous insn in the method
+     */
+    private void transformInsn(MethodNode method, Iterator<AbstractInsnNode> iter, AbstractInsnNode insn, AbstractInsnNode lastInsn) {
+        IActivity insnActivity = this.activities.begin(Bytecode.getOpcodeName(insn) + " ");
+        
+        if (insn instanceof MethodInsnNode) {
+            MethodInsnNode methodNode = (MethodInsnNode)insn;
+            insnActivity.append("%s::%s%s", methodNode.owner, methodNode.name, methodNode.desc);
+            this.transformMethodRef(method, iter, new MemberRef.Method(methodNode));
+        } else if (insn instanceof FieldInsnNode) {
+            FieldInsnNode fieldNode = (FieldInsnNode)insn;
+            insnActivity.append("%s::%s:%s", fieldNode.owner, fieldNode.name, fieldNode.desc);
+            this.transformFieldRef(method, iter, new MemberRef.Field(fieldNode));
+            this.checkFinal(method, iter, fieldNode);
+        } else if (insn instanceof TypeInsnNode) {
+            TypeInsnNode typeNode = (TypeInsnNode)insn;
+            insnActivity.append(typeNode.desc);
+            this.transformTypeNode(method, iter, typeNode, lastInsn);
+        } else if (insn instanceof LdcInsnNode) {
+            this.transformConstantNode(method, iter, (LdcInsnNode)insn);
+        } else if (insn instanceof InvokeDynamicInsnNode) {
+            InvokeDynamicInsnNode invokeNode = (InvokeDynamicInsnNode)insn;
+            insnActivity.append("%s %s", invokeNode.name, invokeNode.desc);
+            this.transformInvokeDynamicNode(method, iter, invokeNode);
+        }
+        
+        insnActivity.end();
+    }
+
     /**
      * Pre-flight checks on a method to be transformed, checks the validity of
      * {@link SoftOverride} annotations and any other required validation tasks
@@ -560,7 +604,7 @@ public class MixinTargetContext extends ClassContext implements IMixinContext {
             }
 
             localVarActivity.next("var=%s", local.name);
-            local.desc = this.transformSingleDescriptor(Type.getType(local.desc));
+            local.desc = this.transformSingleDescriptor(local.desc, false);
         }
         localVarActivity.end();
     }
@@ -963,6 +1007,16 @@ public class MixinTargetContext extends ClassContext implements IMixinContext {
     }
     
     private String transformSingleDescriptor(String desc, boolean isObject) {
+        Map<String, String> cache = isObject ? this.transformedTypes : this.transformedDescriptors;
+        String transformed = cache.get(desc);
+        if (transformed == null) {
+            transformed = this.transformSingleDescriptorUncached(desc, isObject);
+            cache.put(desc, transformed);
+        }
+        return transformed;
+    }
+    
+    private String transformSingleDescriptorUncached(String desc, boolean isObject) {
         IActivity descriptorActivity = this.activities.begin("desc=%s", desc);
         boolean isArray = false;
         String type = desc;
@@ -1011,6 +1065,16 @@ public class MixinTargetContext extends ClassContext implements IMixinContext {
     }
     
     private String transformMethodDescriptor(String desc) {
+        String transformed = this.transformedDescriptors.get(desc);
+        if (transformed == null) {
+            // Descriptors containing only primitives never need transforming
+            transformed = desc.indexOf('L') < 0 ? desc : this.transformMethodDescriptorUncached(desc);
+            this.transformedDescriptors.put(desc, transformed);
+        }
+        return transformed;
+    }
+    
+    private String transformMethodDescriptorUncached(String desc) {
         StringBuilder newDesc = new StringBuilder();
         newDesc.append('(');
         for (Type arg : Type.getArgumentTypes(desc)) {
@@ -1334,8 +1398,10 @@ public class MixinTargetContext extends ClassContext implements IMixinContext {
                 
                 methodActivity.next("Validate");
                 if (injectInfo.isValid()) {
-                    methodActivity.next("Prepare");
-                    injectInfo.prepare();
+                    if (!this.targetClass.isParallelDiscovery()) {
+                        methodActivity.next("Prepare");
+                        injectInfo.prepare();
+                    }
                     this.injectors.add(injectInfo);
                 }
                 
@@ -1353,6 +1419,38 @@ public class MixinTargetContext extends ClassContext implements IMixinContext {
         }
     }
 
+    /**
+     * Get the injectors discovered in the {@link #prepareInjections()} pass
+     */
+    List<InjectionInfo> getInjectors() {
+        return Collections.<InjectionInfo>unmodifiableList(this.injectors);
+    }
+
+    /**
+     * Register the injection points located by parallel discovery, this
+     * completes the work deferred by {@link #prepareInjections()} when
+     * injection point discovery is running in parallel
+     */
+    void registerInjections() {
+        this.activities.clear();
+        
+        try {
+            IActivity registerActivity = this.activities.begin("Prepare");
+            IActivity prepareActivity = this.activities.begin("?");
+            for (InjectionInfo injectInfo : this.injectors) {
+                prepareActivity.next(injectInfo.toString());
+                injectInfo.prepare();
+            }
+            registerActivity.end();
+        } catch (InvalidMixinException ex) {
+            ex.prepend(this.activities);
+            throw ex;
+        } catch (Exception ex) {
+            throw new InvalidMixinException(this, "Unexpecteded " + ex.getClass().getSimpleName() + " whilst transforming the mixin class:", ex,
+                    this.activities);
+        }
+    }
+
     InjectionInfo getFirstInjectionInfo() {
         return injectors.isEmpty() ? null : injectors.get(0);
     }
@@ -24,8 +24,11 @@
  */
 package org.spongepowered.asm.mixin.transformer;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.util.List;
+import java.util.Set;
 
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.launch.MixinInitialisationError;
@@ -36,9 +39,14 @@ import org.spongepowered.asm.mixin.throwables.MixinException;
 import org.spongepowered.asm.mixin.transformer.ext.Extensions;
 import org.spongepowered.asm.mixin.transformer.ext.IExtensionRegistry;
 import org.spongepowered.asm.mixin.transformer.ext.IHotSwap;
+import org.spongepowered.asm.mixin.transformer.throwables.MixinTransformerError;
+import org.spongepowered.asm.service.IMixinMetrics.Stage;
 import org.spongepowered.asm.transformers.TreeTransformer;
 import org.spongepowered.asm.util.Constants;
 import org.spongepowered.asm.util.asm.ASM;
+import org.spongepowered.asm.util.perf.MixinMetrics;
+
+import com.google.common.base.Strings;
 
 /**
  * Transformer which manages the mixin configuration and application process
@@ -93,6 +101,11 @@ public final class MixinTransformer extends TreeTransformer implements IMixinTra
      * Class generator 
      */
     private final MixinClassGenerator generator;
+    
+    /**
+     * Classes woven ahead of time, if a manifest was supplied
+     */
+    private final WovenClassManifest wovenClasses;
 
     MixinTransformer() {
         MixinEnvironment environment = MixinEnvironment.getCurrentEnvironment();
@@ -108,11 +121,13 @@ public final class MixinTransformer extends TreeTransformer implements IMixinTra
         this.syntheticClassRegistry = new SyntheticClassRegistry();
         this.extensions = new Extensions(this.syntheticClassRegistry);
         
+        MixinMetrics.init(environment);
         this.hotSwapper = this.initHotSwapper(environment);
         this.nestHostCoprocessor = new MixinCoprocessorNestHost();
 
         this.processor = new MixinProcessor(environment, this.extensions, this.hotSwapper, this.nestHostCoprocessor);
         this.generator = new MixinClassGenerator(environment, this.extensions);
+        this.wovenClasses = this.initWovenClasses(environment);
         
         DefaultExtensions.create(environment, this.extensions, this.syntheticClassRegistry, this.nestHostCoprocessor);
     }
@@ -137,6 +152,22 @@ public final class MixinTransformer extends TreeTransformer implements IMixinTra
         return null;
     }
     
+    private WovenClassManifest initWovenClasses(MixinEnvironment environment) {
+        String path = environment.getOptionValue(Option.WOVEN_MANIFEST);
+        if (Strings.isNullOrEmpty(path)) {
+            return null;
+        }
+        
+        try {
+            WovenClassManifest manifest = WovenClassManifest.read(new File(path));
+            MixinProcessor.logger.info("Loaded woven class manifest with {} classes from {}", manifest.size(), path);
+            return manifest;
+        } catch (IOException ex) {
+            MixinProcessor.logger.error("Woven class manifest {} could not be read, all mixins will be applied: {}", path, ex.getMessage());
+        }
+        return null;
+    }
+    
     /* (non-Javadoc)
      * @see org.spongepowered.asm.mixin.transformer.IMixinTransformer
      *      #getExtensions()
@@ -236,9 +267,14 @@ public final class MixinTransformer extends TreeTransformer implements IMixinTra
      */
     @Override
     public byte[] transformClass(MixinEnvironment environment, String name, byte[] classBytes) {
+        long start = MixinMetrics.begin();
         ClassNode classNode = this.readClass(name, classBytes);
-        if (this.processor.applyMixins(environment, name, classNode)) {
-            return this.writeClass(classNode);
+        MixinMetrics.end(Stage.READ, name, start);
+        if (this.processor.applyMixins(environment, name, classNode, this.getWovenMixins(name, classBytes))) {
+            start = MixinMetrics.begin();
+            byte[] transformed = this.writeClass(classNode);
+            MixinMetrics.end(Stage.WRITE, name, start);
+            return transformed;
         }
         return classBytes;
     }
@@ -253,7 +289,35 @@ public final class MixinTransformer extends TreeTransformer implements IMixinTra
      */
     @Override
     public boolean transformClass(MixinEnvironment environment, String name, ClassNode classNode) {
-        return this.processor.applyMixins(environment, name, classNode);
+        return this.processor.applyMixins(environment, name, classNode, this.getWovenMixins(name, null));
+    }
+    
+    /**
+     * Get the mixins which were woven into the specified class ahead of time.
+     * A class listed in the woven class manifest whose bytes do not match the
+     * woven bytes, or which is transformed without its bytes, cannot be
+     * processed safely since mixins would be applied again to woven code.
+     * 
+     * @param name Class transformed name
+     * @param classBytes Class bytecode, or null if the bytes are not available
+     * @return woven mixins, or null if the class is not listed in the manifest
+     */
+    private Set<String> getWovenMixins(String name, byte[] classBytes) {
+        if (this.wovenClasses == null || !this.wovenClasses.contains(name)) {
+            return null;
+        }
+        
+        if (classBytes == null) {
+            throw new MixinTransformerError(String.format("Woven class %s was transformed without its bytes, the woven bytes cannot be verified "
+                    + "against the woven class manifest", name));
+        }
+        
+        Set<String> wovenMixins = this.wovenClasses.getWovenMixins(name, classBytes);
+        if (wovenMixins == null) {
+            throw new MixinTransformerError(String.format("Woven class %s does not match the bytes recorded in the woven class manifest, "
+                    + "re-run the weaver or remove the class from the manifest", name));
+        }
+        return wovenMixins;
     }
     
     /**
@@ -26,11 +26,15 @@ package org.spongepowered.asm.mixin.transformer;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import org.spongepowered.asm.logging.ILogger;
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.mixin.extensibility.IMixinConfigPlugin;
+import org.spongepowered.asm.mixin.extensibility.IMixinConfigPluginBatch;
+import org.spongepowered.asm.mixin.extensibility.IMixinConfigPluginBatch.Hook;
 import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
 import org.spongepowered.asm.mixin.throwables.CompanionPluginError;
 import org.spongepowered.asm.service.IMixinService;
@@ -87,6 +91,12 @@ class PluginHandle {
      * Reflection objects for calling legacy (pre 0.8) preApply and postApply
      */
     private Method mdPreApply, mdPostApply;
+    
+    /**
+     * Hooks requested by the plugin, plugins which don't implement {@link
+     * IMixinConfigPluginBatch} receive all of the per-mixin hooks
+     */
+    private Set<Hook> hooks = EnumSet.<Hook>of(Hook.SHOULD_APPLY, Hook.PRE_APPLY, Hook.POST_APPLY);
 
     PluginHandle(MixinConfig parent, IMixinService service, String pluginClassName) {
         IMixinConfigPlugin plugin = null;
@@ -114,10 +124,31 @@ class PluginHandle {
         return this.plugin != null;
     }
 
+    /**
+     * Get whether the plugin wants to receive the specified hook
+     */
+    boolean hasHook(Hook hook) {
+        return this.plugin != null && this.hooks.contains(hook);
+    }
+
     void onLoad(String mixinPackage) {
         if (this.plugin != null) {
             this.plugin.onLoad(mixinPackage);
+            this.initHooks();
+        }
+    }
+
+    private void initHooks() {
+        if (!(this.plugin instanceof IMixinConfigPluginBatch)) {
+            return;
         }
+        
+        Set<Hook> hooks = ((IMixinConfigPluginBatch)this.plugin).getHooks();
+        if (hooks != null) {
+            this.hooks = hooks.isEmpty() ? EnumSet.<Hook>noneOf(Hook.class) : EnumSet.<Hook>copyOf(hooks);
+        }
+        PluginHandle.logger.debug("Companion plugin [{}] for mixin config [{}] requested hooks {}", this.plugin.getClass().getName(), this.parent,
+                this.hooks);
     }
 
     String getRefMapperConfig() {
@@ -129,20 +160,40 @@ class PluginHandle {
     }
 
     boolean shouldApplyMixin(String targetName, String className) {
-        return this.plugin == null || this.plugin.shouldApplyMixin(targetName, className);
+        return !this.hasHook(Hook.SHOULD_APPLY) || this.plugin.shouldApplyMixin(targetName, className);
+    }
+    
+    /**
+     * Called once per target before any mixins from the config are applied
+     */
+    void preApplyTarget(String targetClassName, ClassNode targetClass, List<IMixinInfo> mixins) {
+        if (!this.hasHook(Hook.PRE_APPLY_TARGET)) {
+            return;
+        }
+        this.checkFailed();
+        ((IMixinConfigPluginBatch)this.plugin).preApplyTarget(targetClassName, targetClass, mixins);
+    }
+    
+    /**
+     * Called once per target after all mixins from the config are applied
+     */
+    void postApplyTarget(String targetClassName, ClassNode targetClass, List<IMixinInfo> mixins) {
+        if (!this.hasHook(Hook.POST_APPLY_TARGET)) {
+            return;
+        }
+        this.checkFailed();
+        ((IMixinConfigPluginBatch)this.plugin).postApplyTarget(targetClassName, targetClass, mixins);
     }
     
     /**
      * Called immediately before the mixin is applied to targetClass
      */
     public void preApply(String targetClassName, ClassNode targetClass, String mixinClassName, MixinInfo mixinInfo) throws Exception {
-        if (this.plugin == null) {
+        if (!this.hasHook(Hook.PRE_APPLY)) {
             return;
         }
         
-        if (this.mode == CompatibilityMode.FAILED) {
-            throw new IllegalStateException("Companion plugin failure for [" + this.parent + "] plugin [" + this.plugin.getClass() + "]");
-        }
+        this.checkFailed();
         
         if (this.mode == CompatibilityMode.COMPATIBLE) {
             try {
@@ -167,13 +218,11 @@ class PluginHandle {
      * Called immediately after the mixin is applied to targetClass
      */
     public void postApply(String targetClassName, ClassNode targetClass, String mixinClassName, MixinInfo mixinInfo) throws Exception {
-        if (this.plugin == null) {
+        if (!this.hasHook(Hook.POST_APPLY)) {
             return;
         }
         
-        if (this.mode == CompatibilityMode.FAILED) {
-            throw new IllegalStateException("Companion plugin failure for [" + this.parent + "] plugin [" + this.plugin.getClass() + "]");
-        }
+        this.checkFailed();
         
         if (this.mode == CompatibilityMode.COMPATIBLE) {
             try {
@@ -194,6 +243,12 @@ class PluginHandle {
         }
     }
 
+    private void checkFailed() {
+        if (this.mode == CompatibilityMode.FAILED) {
+            throw new IllegalStateException("Companion plugin failure for [" + this.parent + "] plugin [" + this.plugin.getClass() + "]");
+        }
+    }
+
     private void initReflection() {
         if (this.mdPreApply != null) {
             return;
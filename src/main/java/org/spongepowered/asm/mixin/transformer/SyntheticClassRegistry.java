@@ -30,6 +30,9 @@ import java.util.Map;
 import org.spongepowered.asm.mixin.throwables.MixinError;
 import org.spongepowered.asm.service.ISyntheticClassInfo;
 import org.spongepowered.asm.service.ISyntheticClassRegistry;
+import org.spongepowered.asm.util.perf.HeapAccounting;
+import org.spongepowered.asm.util.perf.HeapAccounting.Estimate;
+import org.spongepowered.asm.util.perf.HeapAccounting.ISource;
 
 /**
  * Implementation of synthetic class registry. This exists to maintain a list of
@@ -42,12 +45,26 @@ import org.spongepowered.asm.service.ISyntheticClassRegistry;
  */
 class SyntheticClassRegistry implements ISyntheticClassRegistry {
     
+    /**
+     * Heap accounting source, counts the registered synthetic class structs
+     */
+    private static final ISource<SyntheticClassRegistry> HEAP_SOURCE = new ISource<SyntheticClassRegistry>() {
+        @Override
+        public void estimate(SyntheticClassRegistry owner, Estimate estimate) {
+            estimate.add(Estimate.hashMap(owner.classes.size()));
+            for (String name : owner.classes.keySet()) {
+                estimate.entry(Estimate.string(name) + Estimate.object(4, 4));
+            }
+        }
+    };
+    
     /**
      * Map of class name to {@link ISyntheticClassInfo} structs
      */
     private final Map<String, ISyntheticClassInfo> classes = new HashMap<String, ISyntheticClassInfo>();
 
     SyntheticClassRegistry() {
+        HeapAccounting.register(HeapAccounting.SYNTHETIC_CLASSES, this, SyntheticClassRegistry.HEAP_SOURCE);
     }
 
     /* (non-Javadoc)
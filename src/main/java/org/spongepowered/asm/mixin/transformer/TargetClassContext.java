@@ -157,6 +157,12 @@ final class TargetClassContext extends ClassContext implements ITargetClassConte
      */
     private boolean forceExport;
     
+    /**
+     * True if injection point discovery for this class should be run on the
+     * discovery worker pool
+     */
+    private final boolean parallelDiscovery;
+    
     TargetClassContext(MixinEnvironment env, Extensions extensions, String sessionId, String name, ClassNode classNode, SortedSet<MixinInfo> mixins) {
         this.env = env;
         this.extensions = extensions;
@@ -169,6 +175,7 @@ final class TargetClassContext extends ClassContext implements ITargetClassConte
         this.mixins = mixins;
         this.sourceMap = new SourceMap(classNode.sourceFile);
         this.sourceMap.addFile(this.classNode);
+        this.parallelDiscovery = env.getOption(Option.PARALLEL_DISCOVERY);
     }
     
     @Override
@@ -188,6 +195,14 @@ final class TargetClassContext extends ClassContext implements ITargetClassConte
         return this.forceExport;
     }
     
+    /**
+     * Get whether injection point discovery should run in parallel for this
+     * class, see {@link Option#PARALLEL_DISCOVERY}
+     */
+    boolean isParallelDiscovery() {
+        return this.parallelDiscovery;
+    }
+    
     /**
      * Get the transformer extensions
      */
@@ -375,7 +390,7 @@ final class TargetClassContext extends ClassContext implements ITargetClassConte
      * @param method method to get a target handle for
      * @return new or existing target handle for the supplied method
      */
-    Target getTargetMethod(MethodNode method) {
+    synchronized Target getTargetMethod(MethodNode method) {
         if (!this.classNode.methods.contains(method)) {
             throw new IllegalArgumentException("Invalid target method supplied to getTargetMethod()");
         }
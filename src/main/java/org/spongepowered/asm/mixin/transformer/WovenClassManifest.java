@@ -0,0 +1,188 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.io.Files;
+
+/**
+ * Manifest of classes which had mixins applied ahead of time by an offline
+ * weaving tool. When a manifest is supplied via
+ * {@link Option#WOVEN_MANIFEST}, classes whose bytes are identical to the
+ * woven bytes recorded in the manifest are not processed again for the mixins
+ * which were already applied to them.
+ */
+public final class WovenClassManifest {
+    
+    /**
+     * Header written to manifest files
+     */
+    private static final String HEADER = "# Mixin woven class manifest: class, crc32 of woven bytes, applied mixins";
+    
+    /**
+     * A woven class
+     */
+    static final class Entry {
+        
+        final long checksum;
+        
+        final Set<String> mixins;
+        
+        Entry(long checksum, Set<String> mixins) {
+            this.checksum = checksum;
+            this.mixins = mixins;
+        }
+        
+    }
+    
+    /**
+     * Woven classes by transformed name
+     */
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+
+    /**
+     * Create an empty manifest
+     */
+    public WovenClassManifest() {
+    }
+
+    /**
+     * Get the number of woven classes in this manifest
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+    
+    /**
+     * Add a woven class to the manifest
+     * 
+     * @param className Class transformed name
+     * @param wovenBytes Bytecode of the class after weaving
+     * @param mixins Names of the mixins which were applied to the class
+     */
+    public synchronized void add(String className, byte[] wovenBytes, Collection<String> mixins) {
+        this.entries.put(className, new Entry(WovenClassManifest.checksum(wovenBytes), new HashSet<String>(mixins)));
+    }
+    
+    /**
+     * Get whether the specified class is listed in this manifest
+     * 
+     * @param className Class transformed name
+     */
+    synchronized boolean contains(String className) {
+        return this.entries.containsKey(className);
+    }
+    
+    /**
+     * Get the mixins which were woven into the specified class, if the
+     * supplied bytes are the bytes which were produced by the weaver
+     * 
+     * @param className Class transformed name
+     * @param classBytes Class bytes being transformed
+     * @return woven mixins, or <tt>null</tt> if the class was not woven or has
+     *      changed since it was woven
+     */
+    synchronized Set<String> getWovenMixins(String className, byte[] classBytes) {
+        Entry entry = this.entries.get(className);
+        if (entry == null || entry.checksum != WovenClassManifest.checksum(classBytes)) {
+            return null;
+        }
+        return Collections.<String>unmodifiableSet(entry.mixins);
+    }
+    
+    /**
+     * Write this manifest to the specified file
+     * 
+     * @param file File to write
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void write(File file) throws IOException {
+        StringBuilder sb = new StringBuilder(WovenClassManifest.HEADER).append('\n');
+        for (Map.Entry<String, Entry> entry : this.entries.entrySet()) {
+            String[] mixins = entry.getValue().mixins.toArray(new String[0]);
+            Arrays.sort(mixins);
+            sb.append(entry.getKey()).append('\t').append(Long.toHexString(entry.getValue().checksum)).append('\t');
+            sb.append(Joiner.on(',').join(mixins)).append('\n');
+        }
+        Files.write(sb.toString(), file, Charsets.UTF_8);
+    }
+    
+    /**
+     * Read a manifest from the specified file
+     * 
+     * @param file File to read
+     * @return manifest
+     * @throws IOException if the file cannot be read or is not a valid
+     *      manifest
+     */
+    public static WovenClassManifest read(File file) throws IOException {
+        WovenClassManifest manifest = new WovenClassManifest();
+        for (String line : Files.readLines(file, Charsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            
+            String[] parts = line.split("\t", -1);
+            if (parts.length != 3) {
+                throw new IOException("Invalid woven class manifest entry: " + line);
+            }
+            
+            Set<String> mixins = new HashSet<String>();
+            for (String mixin : parts[2].split(",")) {
+                if (!mixin.isEmpty()) {
+                    mixins.add(mixin);
+                }
+            }
+            
+            try {
+                manifest.entries.put(parts[0], new Entry(Long.parseLong(parts[1], 16), mixins));
+            } catch (NumberFormatException ex) {
+                throw new IOException("Invalid woven class manifest entry: " + line);
+            }
+        }
+        return manifest;
+    }
+
+    private static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
+    }
+    
+}
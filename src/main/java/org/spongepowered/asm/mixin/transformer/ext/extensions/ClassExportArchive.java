@@ -0,0 +1,281 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer.ext.extensions;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.ClassNode;
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.asm.ASM;
+
+/**
+ * Writes exported classes into a single jar from a background thread. The
+ * exporting thread only takes a copy of the class tree, the class is then
+ * serialised and compressed by the writer thread. The queue between them is
+ * bounded so that exporting threads block rather than accumulating an
+ * unbounded backlog of class trees if the writer falls behind.
+ * 
+ * <p>Computing stack map frames requires class hierarchy information which can
+ * only be safely obtained on the transforming thread, so classes are exported
+ * <em>without</em> frames. Max stack and locals are recomputed.</p>
+ * 
+ * <p>Entries in a jar cannot be replaced once written, so if a class is
+ * exported again, for example after it is re-transformed by a hot swap, the
+ * new version is written alongside the original as a numbered entry, eg.
+ * <tt>Foo.2.class</tt>.</p>
+ */
+final class ClassExportArchive implements Runnable {
+    
+    /**
+     * Maximum number of classes waiting to be written
+     */
+    private static final int QUEUE_SIZE = 256;
+    
+    /**
+     * Time to wait for the writer to finish when closing, in seconds
+     */
+    private static final int CLOSE_TIMEOUT = 30;
+    
+    /**
+     * A class waiting to be written
+     */
+    static final class Entry {
+        
+        /**
+         * Entry name without the .class extension
+         */
+        final String name;
+        
+        final ClassNode classNode;
+        
+        Entry(String name, ClassNode classNode) {
+            this.name = name;
+            this.classNode = classNode;
+        }
+        
+    }
+    
+    /**
+     * Marks the end of the queue
+     */
+    private static final Entry END = new Entry(null, null);
+    
+    private static final ILogger logger = MixinService.getService().getLogger("mixin");
+    
+    private final File file;
+    
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<Entry>(ClassExportArchive.QUEUE_SIZE);
+    
+    /**
+     * Number of versions of each class already written, only accessed by the
+     * writer thread
+     */
+    private final Map<String, Integer> written = new HashMap<String, Integer>();
+    
+    private final Thread thread;
+    
+    /**
+     * Set once the archive is closed or the writer has failed, exports are
+     * discarded after this point
+     */
+    private volatile boolean closed;
+    
+    ClassExportArchive(File file) {
+        this.file = file;
+        this.thread = new Thread(this, "Mixin Export Writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        
+        Runtime.getRuntime().addShutdownHook(new Thread("Mixin Export Shutdown") {
+            @Override
+            public void run() {
+                ClassExportArchive.this.close();
+            }
+        });
+    }
+    
+    File getFile() {
+        return this.file;
+    }
+    
+    /**
+     * Queue a class to be written to the archive, blocks if the writer is too
+     * far behind
+     * 
+     * @param fileName name of the entry to write (.class will be automatically
+     *      appended)
+     * @param classNode class to write, the tree is copied before this method
+     *      returns
+     */
+    void export(String fileName, ClassNode classNode) {
+        if (this.closed) {
+            return;
+        }
+        
+        Entry entry = new Entry(fileName, ClassExportArchive.copy(classNode));
+        try {
+            while (!this.closed) {
+                if (this.queue.offer(entry, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Write any queued classes and close the archive
+     */
+    void close() {
+        if (this.closed) {
+            return;
+        }
+        
+        boolean interrupted = false;
+        while (this.thread.isAlive()) {
+            try {
+                if (this.queue.offer(ClassExportArchive.END, 100, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        
+        try {
+            this.thread.join(TimeUnit.SECONDS.toMillis(ClassExportArchive.CLOSE_TIMEOUT));
+        } catch (InterruptedException ex) {
+            interrupted = true;
+        }
+        this.closed = true;
+        
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public void run() {
+        this.file.getParentFile().mkdirs();
+        JarOutputStream out = null;
+        int count = 0;
+        try {
+            out = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(this.file)));
+            List<Entry> batch = new ArrayList<Entry>();
+            while (true) {
+                batch.add(this.queue.take());
+                this.queue.drainTo(batch);
+                for (Entry entry : batch) {
+                    if (entry == ClassExportArchive.END) {
+                        return;
+                    }
+                    if (this.write(out, entry)) {
+                        count++;
+                    }
+                }
+                batch.clear();
+                out.flush();
+            }
+        } catch (InterruptedException ex) {
+            // closing
+        } catch (IOException ex) {
+            ClassExportArchive.logger.error("Error writing class export archive {}, further classes will not be exported. {}: {}", this.file,
+                    ex.getClass().getName(), ex.getMessage());
+        } finally {
+            this.closed = true;
+            this.queue.clear();
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ex) {
+                    // oh well
+                }
+            }
+            ClassExportArchive.logger.debug("Exported {} classes to {}", count, this.file);
+        }
+    }
+    
+    private boolean write(JarOutputStream out, Entry entry) throws IOException {
+        byte[] bytecode;
+        try {
+            ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            entry.classNode.accept(cw);
+            bytecode = cw.toByteArray();
+        } catch (Exception ex) {
+            ClassExportArchive.logger.warn("Exporting class {} failed. {}: {}", entry.name, ex.getClass().getName(), ex.getMessage());
+            return false;
+        }
+        
+        Integer previous = this.written.get(entry.name);
+        int version = previous != null ? previous.intValue() + 1 : 1;
+        this.written.put(entry.name, Integer.valueOf(version));
+        String entryName = version > 1 ? entry.name + "." + version + ".class" : entry.name + ".class";
+        if (version > 1) {
+            ClassExportArchive.logger.info("Class {} was exported again, writing version {} to {}", entry.name, version, entryName);
+        }
+        
+        out.putNextEntry(new ZipEntry(entryName));
+        out.write(bytecode);
+        out.closeEntry();
+        return true;
+    }
+    
+    /**
+     * Copy a class tree, discarding frames since they will not be written
+     */
+    private static ClassNode copy(ClassNode classNode) {
+        ClassNode copy = new ClassNode(ASM.API_VERSION);
+        classNode.accept(new ClassVisitor(ASM.API_VERSION, copy) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return new MethodVisitor(ASM.API_VERSION, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                    @Override
+                    public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+                        // discard
+                    }
+                };
+            }
+        });
+        return copy;
+    }
+
+}
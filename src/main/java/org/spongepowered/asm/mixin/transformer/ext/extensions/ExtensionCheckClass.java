@@ -24,22 +24,55 @@
  */
 package org.spongepowered.asm.mixin.transformer.ext.extensions;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.util.CheckClassAdapter;
+import org.spongepowered.asm.logging.ILogger;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.mixin.MixinEnvironment.Option;
 import org.spongepowered.asm.mixin.throwables.MixinException;
 import org.spongepowered.asm.mixin.transformer.ext.IExtension;
 import org.spongepowered.asm.mixin.transformer.ext.ITargetClassContext;
+import org.spongepowered.asm.service.MixinService;
 import org.spongepowered.asm.transformers.MixinClassWriter;
+import org.spongepowered.asm.util.asm.ASM;
+
+import com.google.common.base.Joiner;
 
 /**
  * Mixin transformer module which runs CheckClassAdapter on the post-mixin
- * bytecode
+ * bytecode, either on the transforming thread or, when
+ * {@link Option#DEBUG_VERIFY_ASYNC} is enabled, on a snapshot of the class in
+ * a background thread.
+ * 
+ * <p>Background failures are raised on the transforming thread at the next
+ * phase change or audit when {@link Option#DEBUG_VERIFY_ASYNC_FAIL} is
+ * enabled. The shutdown hook only waits for verification and logs a summary,
+ * it never halts the JVM since that would pre-empt other shutdown hooks such
+ * as the class export writer.</p>
  */
 public class ExtensionCheckClass implements IExtension {
     
+    /**
+     * Maximum number of snapshots waiting to be verified, when the queue is
+     * full the transforming thread verifies the snapshot itself
+     */
+    private static final int QUEUE_SIZE = 1024;
+    
+    /**
+     * Time to wait for background verification to finish at shutdown, in
+     * seconds
+     */
+    private static final int SHUTDOWN_TIMEOUT = 60;
+    
     /**
      * Exception thrown when checkclass fails
      */
@@ -61,14 +94,95 @@ public class ExtensionCheckClass implements IExtension {
         
     }
     
+    /**
+     * Logger
+     */
+    private static final ILogger logger = MixinService.getService().getLogger("mixin");
+    
+    /**
+     * Background verification pool, created on first use
+     */
+    private ThreadPoolExecutor executor;
+    
+    private final AtomicInteger verified = new AtomicInteger();
+    
+    /**
+     * Messages for failed background verifications, also used as the monitor
+     * for {@link #pending} and {@link #raised}
+     */
+    private final List<String> failures = new ArrayList<String>();
+    
+    /**
+     * Number of snapshots submitted but not yet verified
+     */
+    private int pending;
+    
+    /**
+     * Number of failures which have already been raised
+     */
+    private int raised;
+    
+    /**
+     * Whether to raise background failures on the transforming thread
+     */
+    private volatile boolean failOnError;
+    
     /* (non-Javadoc)
      * @see org.spongepowered.asm.mixin.transformer.ext.IExtension#checkActive(
      *      org.spongepowered.asm.mixin.MixinEnvironment)
      */
     @Override
     public boolean checkActive(MixinEnvironment environment) {
+        // Failures from the previous phase are raised by the processor once
+        // selection has completed, see raiseFailures
+        this.failOnError = environment.getOption(Option.DEBUG_VERIFY_ASYNC_FAIL);
         return environment.getOption(Option.DEBUG_VERIFY);
     }
+    
+    /**
+     * Wait for background verification of the classes transformed so far and
+     * raise any failures, called when the environment is audited
+     */
+    public void audit() {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ExtensionCheckClass.SHUTDOWN_TIMEOUT);
+        synchronized (this.failures) {
+            try {
+                for (long remaining; this.pending > 0 && (remaining = deadline - System.currentTimeMillis()) > 0;) {
+                    this.failures.wait(remaining);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (this.pending > 0) {
+                ExtensionCheckClass.logger.warn("Background verification of {} classes did not finish within {}s", this.pending,
+                        ExtensionCheckClass.SHUTDOWN_TIMEOUT);
+            }
+        }
+        this.raiseFailures();
+    }
+    
+    /**
+     * Throw a {@link ValidationFailedException} for failures which have not
+     * been raised yet, if {@link Option#DEBUG_VERIFY_ASYNC_FAIL} is enabled.
+     * Called by the processor once a new phase has been fully selected, so
+     * that the processor state is consistent when the exception is thrown.
+     */
+    public void raiseFailures() {
+        if (!this.failOnError) {
+            return;
+        }
+        
+        List<String> failed;
+        synchronized (this.failures) {
+            if (this.raised == this.failures.size()) {
+                return;
+            }
+            failed = new ArrayList<String>(this.failures.subList(this.raised, this.failures.size()));
+            this.raised = this.failures.size();
+        }
+        throw new ValidationFailedException(String.format("Background verification failed for %d classes: %s", failed.size(),
+                Joiner.on("; ").join(failed)));
+    }
 
     /* (non-Javadoc)
      * @see org.spongepowered.asm.mixin.transformer.IMixinTransformerModule
@@ -84,6 +198,12 @@ public class ExtensionCheckClass implements IExtension {
      */
     @Override
     public void postApply(ITargetClassContext context) {
+        MixinEnvironment env = MixinEnvironment.getCurrentEnvironment();
+        if (env.getOption(Option.DEBUG_VERIFY_ASYNC)) {
+            this.verifyAsync(env, context.getClassNode());
+            return;
+        }
+        
         try {
             context.getClassNode().accept(new CheckClassAdapter(new MixinClassWriter(ClassWriter.COMPUTE_FRAMES)));
         } catch (RuntimeException ex) {
@@ -91,6 +211,112 @@ public class ExtensionCheckClass implements IExtension {
         }
     }
     
+    private void verifyAsync(MixinEnvironment env, ClassNode classNode) {
+        final ClassNode snapshot = new ClassNode(ASM.API_VERSION);
+        classNode.accept(snapshot);
+        ThreadPoolExecutor executor = this.getExecutor(env);
+        synchronized (this.failures) {
+            this.pending++;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ExtensionCheckClass.this.verify(snapshot);
+            }
+        });
+    }
+    
+    void verify(ClassNode classNode) {
+        try {
+            // Frames are not computed since this requires ClassInfo, which can
+            // only be used on the transforming thread
+            classNode.accept(new CheckClassAdapter(new ClassWriter(0)));
+            this.verified.incrementAndGet();
+        } catch (RuntimeException ex) {
+            ValidationFailedException failure = new ValidationFailedException(ex.getMessage(), ex);
+            String className = classNode.name.replace('/', '.');
+            synchronized (this.failures) {
+                this.failures.add(className + ": " + failure.getMessage());
+            }
+            ExtensionCheckClass.logger.error("Background verification of {} failed: {}", className, failure.getMessage());
+        } finally {
+            synchronized (this.failures) {
+                this.pending--;
+                this.failures.notifyAll();
+            }
+        }
+    }
+    
+    private synchronized ThreadPoolExecutor getExecutor(MixinEnvironment env) {
+        if (this.executor == null) {
+            int threads = 1;
+            String value = env.getOptionValue(Option.DEBUG_VERIFY_ASYNC_THREADS);
+            try {
+                threads = Math.max(Integer.parseInt(value), 1);
+            } catch (NumberFormatException ex) {
+                ExtensionCheckClass.logger.warn("Invalid background verification thread count '{}', using {}", value, threads);
+            }
+            
+            final AtomicInteger count = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(ExtensionCheckClass.QUEUE_SIZE), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable task) {
+                            Thread thread = new Thread(task, "Mixin Verify Thread #" + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+            
+            Runtime.getRuntime().addShutdownHook(new Thread("Mixin Verify Shutdown") {
+                @Override
+                public void run() {
+                    ExtensionCheckClass.this.shutdown();
+                }
+            });
+            ExtensionCheckClass.logger.debug("Starting background verification with {} worker thread(s)", threads);
+        }
+        return this.executor;
+    }
+    
+    /**
+     * Wait for background verification to finish and log a summary. Failures
+     * cannot affect the exit status at this point, they are raised at the
+     * next phase change or audit instead.
+     */
+    void shutdown() {
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(ExtensionCheckClass.SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                ExtensionCheckClass.logger.warn("Background verification did not finish within {}s", ExtensionCheckClass.SHUTDOWN_TIMEOUT);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        
+        List<String> failed;
+        int unraised;
+        synchronized (this.failures) {
+            failed = new ArrayList<String>(this.failures);
+            unraised = this.failOnError ? this.failures.size() - this.raised : 0;
+        }
+        
+        if (failed.isEmpty()) {
+            ExtensionCheckClass.logger.info("Background verification passed for {} classes", this.verified.get());
+            return;
+        }
+        
+        ExtensionCheckClass.logger.error("Background verification failed for {} of {} classes:", failed.size(), failed.size() + this.verified.get());
+        for (String failure : failed) {
+            ExtensionCheckClass.logger.error("  {}", failure);
+        }
+        
+        if (unraised > 0) {
+            ExtensionCheckClass.logger.error("{} background verification failures were detected after the last phase change or audit and could "
+                    + "not be raised, the exit status is not affected", unraised);
+        }
+    }
+    
     /* (non-Javadoc)
      * @see org.spongepowered.asm.mixin.transformer.ext.IExtension
      *      #export(org.spongepowered.asm.mixin.MixinEnvironment,
@@ -56,6 +56,7 @@ public class ExtensionClassExporter implements IExtension {
     
     private static final String EXPORT_CLASS_DIR = "class";
     private static final String EXPORT_JAVA_DIR = "java";
+    private static final String EXPORT_ARCHIVE = "class.jar";
 
     /**
      * Logger
@@ -72,8 +73,15 @@ public class ExtensionClassExporter implements IExtension {
      */
     private final IDecompiler decompiler;
     
+    /**
+     * Background archive writer when debug.export.archive is enabled 
+     */
+    private final ClassExportArchive archive;
+    
     public ExtensionClassExporter(MixinEnvironment env) {
-        this.decompiler = this.initDecompiler(env, new File(Constants.DEBUG_OUTPUT_DIR, ExtensionClassExporter.EXPORT_JAVA_DIR));
+        this.archive = this.initArchive(env, new File(Constants.DEBUG_OUTPUT_DIR, ExtensionClassExporter.EXPORT_ARCHIVE));
+        this.decompiler = this.archive == null
+                ? this.initDecompiler(env, new File(Constants.DEBUG_OUTPUT_DIR, ExtensionClassExporter.EXPORT_JAVA_DIR)) : null;
 
         try {
             MoreFiles.deleteRecursively(this.classExportDir.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
@@ -86,6 +94,15 @@ public class ExtensionClassExporter implements IExtension {
         return this.decompiler != null;
     }
     
+    private ClassExportArchive initArchive(MixinEnvironment env, File archiveFile) {
+        if (!env.getOption(Option.DEBUG_EXPORT) || !env.getOption(Option.DEBUG_EXPORT_ARCHIVE)) {
+            return null;
+        }
+        
+        ExtensionClassExporter.logger.info("Exported classes will be written to {} in a separate thread and will not be decompiled", archiveFile);
+        return new ClassExportArchive(archiveFile);
+    }
+    
     private IDecompiler initDecompiler(MixinEnvironment env, File outputPath) {
         if (!env.getOption(Option.DEBUG_EXPORT_DECOMPILE)) {
             return null;
@@ -139,9 +156,13 @@ public class ExtensionClassExporter implements IExtension {
             if (force || filter == null || this.applyFilter(filter, name)) {
                 Section exportTimer = Profiler.getProfiler("export").begin("debug.export");
                 
-                File outputFile = this.dumpClass(name.replace('.', '/'), classNode);
-                if (this.decompiler != null) {
-                    this.decompiler.decompile(outputFile);
+                if (this.archive != null) {
+                    this.archive.export(name.replace('.', '/'), classNode);
+                } else {
+                    File outputFile = this.dumpClass(name.replace('.', '/'), classNode);
+                    if (this.decompiler != null) {
+                        this.decompiler.decompile(outputFile);
+                    }
                 }
                 exportTimer.end();
             }
@@ -0,0 +1,116 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.service;
+
+/**
+ * Metrics listener, notified of transformer activity for monitoring purposes.
+ * Listeners are discovered using {@link java.util.ServiceLoader} when the
+ * transformer starts, or can be registered using {@link
+ * org.spongepowered.asm.util.perf.MixinMetrics#register}. Listeners are called
+ * on the transforming thread and should return quickly. A listener which
+ * throws is logged and removed, it cannot abort the transformation.
+ * 
+ * <p>Aggregated counters and timings are also available from {@link
+ * org.spongepowered.asm.util.perf.MixinMetrics} and over JMX, listeners are
+ * only needed to forward events to an external metrics system.</p>
+ */
+public interface IMixinMetrics {
+    
+    /**
+     * Timed stages of a class transformation
+     */
+    public enum Stage {
+        
+        /**
+         * Reading class bytes into a tree
+         */
+        READ,
+        
+        /**
+         * Applying mixins and post-processors to the tree
+         */
+        APPLY,
+        
+        /**
+         * Writing the tree back to bytes
+         */
+        WRITE
+        
+    }
+    
+    /**
+     * Called when a class is passed to the transformer
+     * 
+     * @param className Class name
+     */
+    public abstract void onClassInspected(String className);
+    
+    /**
+     * Called when a class was modified by the transformer
+     * 
+     * @param className Class name
+     */
+    public abstract void onClassTransformed(String className);
+    
+    /**
+     * Called when a mixin is applied to a target class
+     * 
+     * @param className Target class name
+     * @param mixinName Mixin name
+     */
+    public abstract void onMixinApplied(String className, String mixinName);
+    
+    /**
+     * Called when an injector has performed its injections
+     * 
+     * @param injectorType Injector annotation, eg. <tt>&#64;Inject</tt>
+     * @param count Number of successful injections
+     */
+    public abstract void onInjection(String injectorType, int count);
+    
+    /**
+     * Called when a class has to be loaded to build class metadata
+     * 
+     * @param className Class name
+     */
+    public abstract void onMetadataLoad(String className);
+    
+    /**
+     * Called when re-entrance into the transformer is detected
+     * 
+     * @param className Name of the class being transformed re-entrantly
+     */
+    public abstract void onReEntrance(String className);
+    
+    /**
+     * Called when a transformation stage completes
+     * 
+     * @param stage Stage
+     * @param className Class name
+     * @param nanos Time taken in nanoseconds
+     */
+    public abstract void onStage(Stage stage, String className, long nanos);
+
+}
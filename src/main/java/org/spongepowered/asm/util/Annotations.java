@@ -27,9 +27,12 @@ package org.spongepowered.asm.util;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import org.objectweb.asm.Type;
@@ -47,6 +50,7 @@ import org.spongepowered.asm.util.asm.IAnnotationHandle;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 
 /**
  * Utility class for working with ASM annotations
@@ -144,6 +148,85 @@ public final class Annotations {
 
     }
     
+    /**
+     * Index of the positions of the entries in an annotation list or an
+     * annotation value list, used to accelerate repeated lookups in long
+     * lists. The index retains the entries it was built from and is only used
+     * if the list still contains exactly those entries, which is checked by
+     * identity and is much cheaper than comparing descriptors, since mixin
+     * annotation descriptors share long common prefixes.
+     */
+    private static final class ListIndex {
+        
+        /**
+         * Entries in the list when the index was built
+         */
+        private final Object[] entries;
+        
+        /**
+         * Position of the first occurrence of each key in the list
+         */
+        private final Map<String, Integer> positions;
+        
+        ListIndex(List<?> list, boolean annotations) {
+            this.entries = list.toArray();
+            this.positions = new HashMap<String, Integer>(this.entries.length * 2);
+            for (int pos = 0; pos < this.entries.length; pos++) {
+                String key = ListIndex.keyOf(this.entries[pos], annotations);
+                if (key != null && !this.positions.containsKey(key)) {
+                    this.positions.put(key, Integer.valueOf(pos));
+                }
+            }
+        }
+        
+        boolean isValid(List<?> list) {
+            if (list.size() != this.entries.length) {
+                return false;
+            }
+            for (int pos = 0; pos < this.entries.length; pos++) {
+                if (list.get(pos) != this.entries[pos]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        int find(String key) {
+            Integer pos = this.positions.get(key);
+            return pos != null ? pos.intValue() : -1;
+        }
+        
+        private static String keyOf(Object entry, boolean annotations) {
+            if (annotations) {
+                return ((AnnotationNode)entry).desc;
+            }
+            return entry instanceof String ? (String)entry : null;
+        }
+        
+    }
+    
+    /**
+     * Annotation lists with at least this many entries are indexed
+     */
+    private static final int ANNOTATION_INDEX_THRESHOLD = 4;
+    
+    /**
+     * Annotation value lists with at least this many entries (keys and
+     * values) are indexed
+     */
+    private static final int VALUE_INDEX_THRESHOLD = 8;
+    
+    /**
+     * Descriptors of annotation classes, computing these is by far the most
+     * expensive part of a typical annotation lookup
+     */
+    private static final ConcurrentMap<Class<?>, String> descriptors = new MapMaker().weakKeys().<Class<?>, String>makeMap();
+    
+    /**
+     * Indexes for long annotation and value lists, keyed by list identity
+     */
+    private static final ConcurrentMap<List<?>, ListIndex> indexes = new MapMaker().weakKeys().<List<?>, ListIndex>makeMap();
+    
     /**
      * Annotations which are eligible for merge via {@link #mergeAnnotations}
      */
@@ -188,6 +271,22 @@ public final class Annotations {
         return Type.getType(annotationType).getInternalName();
     }
 
+    /**
+     * Returns the bytecode descriptor of an annotation, as used in the <tt>
+     * desc</tt> of annotation nodes
+     * 
+     * @param annotationType annotation
+     * @return annotation's type descriptor
+     */
+    private static String getDescriptor(Class<? extends Annotation> annotationType) {
+        String desc = Annotations.descriptors.get(annotationType);
+        if (desc == null) {
+            desc = Type.getDescriptor(annotationType);
+            Annotations.descriptors.put(annotationType, desc);
+        }
+        return desc;
+    }
+
     /**
      * Returns the simple name of an annotation, mainly used for printing
      * annotation names in error messages/user-facing strings
@@ -219,7 +318,7 @@ public final class Annotations {
      * @param value Values (interleaved key/value pairs) to set
      */
     public static void setVisible(FieldNode field, Class<? extends Annotation> annotationClass, Object... value) {
-        AnnotationNode node = Annotations.createNode(Type.getDescriptor(annotationClass), value);
+        AnnotationNode node = Annotations.createNode(Annotations.getDescriptor(annotationClass), value);
         field.visibleAnnotations = Annotations.add(field.visibleAnnotations, node);
     }
     
@@ -232,7 +331,7 @@ public final class Annotations {
      * @param value Values (interleaved key/value pairs) to set
      */
     public static void setInvisible(FieldNode field, Class<? extends Annotation> annotationClass, Object... value) {
-        AnnotationNode node = Annotations.createNode(Type.getDescriptor(annotationClass), value);
+        AnnotationNode node = Annotations.createNode(Annotations.getDescriptor(annotationClass), value);
         field.invisibleAnnotations = Annotations.add(field.invisibleAnnotations, node);
     }
     
@@ -245,7 +344,7 @@ public final class Annotations {
      * @param value Values (interleaved key/value pairs) to set
      */
     public static void setVisible(MethodNode method, Class<? extends Annotation> annotationClass, Object... value) {
-        AnnotationNode node = Annotations.createNode(Type.getDescriptor(annotationClass), value);
+        AnnotationNode node = Annotations.createNode(Annotations.getDescriptor(annotationClass), value);
         method.visibleAnnotations = Annotations.add(method.visibleAnnotations, node);
     }
     
@@ -258,7 +357,7 @@ public final class Annotations {
      * @param value Values (interleaved key/value pairs) to set
      */
     public static void setInvisible(MethodNode method, Class<? extends Annotation> annotationClass, Object... value) {
-        AnnotationNode node = Annotations.createNode(Type.getDescriptor(annotationClass), value);
+        AnnotationNode node = Annotations.createNode(Annotations.getDescriptor(annotationClass), value);
         method.invisibleAnnotations = Annotations.add(method.invisibleAnnotations, node);
     }
 
@@ -301,7 +400,7 @@ public final class Annotations {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getVisible(FieldNode field, Class<? extends Annotation> annotationClass) {
-        return Annotations.get(field.visibleAnnotations, Type.getDescriptor(annotationClass));
+        return Annotations.get(field.visibleAnnotations, Annotations.getDescriptor(annotationClass));
     }
 
     /**
@@ -313,7 +412,7 @@ public final class Annotations {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getInvisible(FieldNode field, Class<? extends Annotation> annotationClass) {
-        return Annotations.get(field.invisibleAnnotations, Type.getDescriptor(annotationClass));
+        return Annotations.get(field.invisibleAnnotations, Annotations.getDescriptor(annotationClass));
     }
 
     /**
@@ -325,7 +424,7 @@ public final class Annotations {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getVisible(MethodNode method, Class<? extends Annotation> annotationClass) {
-        return Annotations.get(method.visibleAnnotations, Type.getDescriptor(annotationClass));
+        return Annotations.get(method.visibleAnnotations, Annotations.getDescriptor(annotationClass));
     }
 
     /**
@@ -337,7 +436,7 @@ public final class Annotations {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getInvisible(MethodNode method, Class<? extends Annotation> annotationClass) {
-        return Annotations.get(method.invisibleAnnotations, Type.getDescriptor(annotationClass));
+        return Annotations.get(method.invisibleAnnotations, Annotations.getDescriptor(annotationClass));
     }
 
     /**
@@ -375,7 +474,7 @@ public final class Annotations {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getVisible(ClassNode classNode, Class<? extends Annotation> annotationClass) {
-        return Annotations.get(classNode.visibleAnnotations, Type.getDescriptor(annotationClass));
+        return Annotations.get(classNode.visibleAnnotations, Annotations.getDescriptor(annotationClass));
     }
 
     /**
@@ -387,7 +486,7 @@ public final class Annotations {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getInvisible(ClassNode classNode, Class<? extends Annotation> annotationClass) {
-        return Annotations.get(classNode.invisibleAnnotations, Type.getDescriptor(annotationClass));
+        return Annotations.get(classNode.invisibleAnnotations, Annotations.getDescriptor(annotationClass));
     }
 
     /**
@@ -404,7 +503,7 @@ public final class Annotations {
         if (paramIndex < 0) {
             return Annotations.getVisible(method, annotationClass);
         }
-        return Annotations.getParameter(method.visibleParameterAnnotations, Type.getDescriptor(annotationClass), paramIndex);
+        return Annotations.getParameter(method.visibleParameterAnnotations, Annotations.getDescriptor(annotationClass), paramIndex);
     }
 
     /**
@@ -421,7 +520,7 @@ public final class Annotations {
         if (paramIndex < 0) {
             return Annotations.getInvisible(method, annotationClass);
         }
-        return Annotations.getParameter(method.invisibleParameterAnnotations, Type.getDescriptor(annotationClass), paramIndex);
+        return Annotations.getParameter(method.invisibleParameterAnnotations, Annotations.getDescriptor(annotationClass), paramIndex);
     }
 
     /**
@@ -454,6 +553,11 @@ public final class Annotations {
         if (annotations == null) {
             return null;
         }
+        
+        if (annotations.size() >= Annotations.ANNOTATION_INDEX_THRESHOLD) {
+            int pos = Annotations.find(annotations, annotationType, true);
+            return pos < 0 ? null : annotations.get(pos);
+        }
 
         for (AnnotationNode annotation : annotations) {
             if (annotationType.equals(annotation.desc)) {
@@ -463,11 +567,29 @@ public final class Annotations {
 
         return null;
     }
+    
+    /**
+     * Find the position of the specified key in an indexed list, building or
+     * rebuilding the index if required
+     * 
+     * @param list list to search, annotation nodes or annotation values
+     * @param key annotation descriptor or value key to search for
+     * @param annotations true if the list is a list of annotation nodes
+     * @return position of the key, or -1 if not found
+     */
+    private static int find(List<?> list, String key, boolean annotations) {
+        ListIndex index = Annotations.indexes.get(list);
+        if (index == null || !index.isValid(list)) {
+            index = new ListIndex(list, annotations);
+            Annotations.indexes.put(list, index);
+        }
+        return index.find(key);
+    }
 
     private static AnnotationNode getSingle(List<AnnotationNode> annotations, Class<? extends Annotation>[] annotationClasses) {
         List<AnnotationNode> nodes = new ArrayList<AnnotationNode>();
         for (Class<? extends Annotation> annotationClass : annotationClasses) {
-            AnnotationNode annotation = Annotations.get(annotations, Type.getDescriptor(annotationClass));
+            AnnotationNode annotation = Annotations.get(annotations, Annotations.getDescriptor(annotationClass));
             if (annotation != null) {
                 nodes.add(annotation);
             }
@@ -557,6 +679,11 @@ public final class Annotations {
         if (annotation == null || annotation.values == null) {
             return null;
         }
+        
+        if (annotation.values.size() >= Annotations.VALUE_INDEX_THRESHOLD) {
+            int pos = Annotations.find(annotation.values, key, false);
+            return pos < 0 || pos + 1 >= annotation.values.size() ? null : (T)annotation.values.get(pos + 1);
+        }
 
         // Keys and value are stored in successive pairs, search for the key and if found return the following entry
         for (Object value : annotation.values) {
@@ -0,0 +1,110 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Utility class for deflating and inflating byte arrays whose uncompressed
+ * length is known to the caller
+ */
+public final class Compression {
+
+    private Compression() {
+    }
+
+    /**
+     * Deflate the supplied bytes, favouring speed over size
+     *
+     * @param bytes Bytes to deflate
+     * @return Deflated bytes in zlib format
+     */
+    public static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflate bytes previously deflated by {@link #deflate}
+     *
+     * @param bytes Deflated bytes in zlib format
+     * @param length Length of the bytes before they were deflated
+     * @return Inflated bytes
+     * @throws DataFormatException if the data are corrupt or do not inflate
+     *      to the expected length
+     */
+    public static byte[] inflate(byte[] bytes, int length) throws DataFormatException {
+        return Compression.inflate(bytes, length, false);
+    }
+
+    /**
+     * Inflate the supplied bytes. When <tt>nowrap</tt> is set the input is raw
+     * deflate data (as stored in zip entries) and must be followed by an extra
+     * dummy byte, as required by {@link Inflater}.
+     *
+     * @param bytes Deflated bytes
+     * @param length Length of the bytes before they were deflated
+     * @param nowrap True if the input has no zlib header and checksum
+     * @return Inflated bytes
+     * @throws DataFormatException if the data are corrupt or do not inflate
+     *      to the expected length
+     */
+    public static byte[] inflate(byte[] bytes, int length, boolean nowrap) throws DataFormatException {
+        Inflater inflater = new Inflater(nowrap);
+        try {
+            inflater.setInput(bytes);
+            byte[] out = new byte[length];
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                int count = inflater.inflate(out, offset, length - offset);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += count;
+            }
+            if (offset != length) {
+                throw new DataFormatException("Unexpected end of data, expected " + length + " bytes but inflated " + offset);
+            }
+            return out;
+        } finally {
+            inflater.end();
+        }
+    }
+
+}
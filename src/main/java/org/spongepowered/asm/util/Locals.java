@@ -30,6 +30,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
@@ -51,6 +52,9 @@ import org.spongepowered.asm.mixin.transformer.ClassInfo.FrameData;
 import org.spongepowered.asm.mixin.transformer.ClassInfo.Method;
 import org.spongepowered.asm.util.asm.ASM;
 import org.spongepowered.asm.util.asm.MixinVerifier;
+import org.spongepowered.asm.util.perf.HeapAccounting;
+import org.spongepowered.asm.util.perf.HeapAccounting.Estimate;
+import org.spongepowered.asm.util.perf.HeapAccounting.ISource;
 import org.spongepowered.asm.util.throwables.LVTGeneratorError;
 
 /**
@@ -266,6 +270,22 @@ public final class Locals {
      */
     private static final Map<String, List<LocalVariableNode>> calculatedLocalVariables = new HashMap<String, List<LocalVariableNode>>();
     
+    static {
+        HeapAccounting.register(HeapAccounting.LOCALS, Locals.class, new ISource<Class<?>>() {
+            @Override
+            public void estimate(Class<?> owner, Estimate estimate) {
+                estimate.add(Estimate.hashMap(Locals.calculatedLocalVariables.size()));
+                for (Entry<String, List<LocalVariableNode>> entry : Locals.calculatedLocalVariables.entrySet()) {
+                    long size = Estimate.string(entry.getKey()) + Estimate.list(entry.getValue().size());
+                    for (LocalVariableNode local : entry.getValue()) {
+                        size += local == null ? 0L : Estimate.object(6, 4) + Estimate.string(local.name) + Estimate.string(local.desc);
+                    }
+                    estimate.entry(size);
+                }
+            }
+        });
+    }
+    
     private Locals() {
         // utility class
     }
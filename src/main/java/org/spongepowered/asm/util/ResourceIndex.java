@@ -0,0 +1,533 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+
+/**
+ * Index of the resources available in a set of class path sources. Jar and zip
+ * sources are indexed by reading their central directory once, directories are
+ * indexed by walking them once. Resources can then be located with a single
+ * hash lookup and entries in jars are read directly from the recorded offset
+ * rather than by probing each source in turn. No file handles or mappings are
+ * retained between reads.
+ * 
+ * <p>Multi-release jars are honoured on Java 9 and later, the entry under
+ * <tt>META-INF/versions</tt> with the highest version supported by the
+ * runtime is served in place of the base entry.</p>
+ * 
+ * <p>Sources which cannot be indexed (non-file URLs, zip64 archives, etc.)
+ * cause the index to become <em>incomplete</em>, in which case a miss in the
+ * index is not authoritative and callers should fall back to whatever lookup
+ * they would have performed without the index. A miss in a complete index is
+ * authoritative for the indexed sources.</p>
+ */
+public final class ResourceIndex {
+    
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int CEN_SIGNATURE = 0x02014b50;
+    private static final int LOC_SIGNATURE = 0x04034b50;
+    
+    private static final int EOCD_SIZE = 22;
+    private static final int CEN_SIZE = 46;
+    private static final int LOC_SIZE = 30;
+    
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    
+    private static final int FLAG_ENCRYPTED = 0x1;
+    
+    private static final String VERSIONS_PREFIX = "META-INF/versions/";
+    
+    /**
+     * Java version used to select multi-release entries, 0 if the runtime
+     * does not support multi-release jars
+     */
+    private static final int RELEASE_VERSION = JavaVersion.current() >= JavaVersion.JAVA_9 ? (int)JavaVersion.current() : 0;
+    
+    /**
+     * A source, either an archive or a directory
+     */
+    abstract static class Container {
+        
+        final File file;
+        
+        Container(File file) {
+            this.file = file;
+        }
+        
+        abstract InputStream open(Entry entry) throws IOException;
+        
+        abstract byte[] read(Entry entry) throws IOException;
+        
+        @Override
+        public String toString() {
+            return this.file.toString();
+        }
+        
+    }
+    
+    /**
+     * A zip or jar archive
+     */
+    static final class Archive extends Container {
+        
+        Archive(File file) {
+            super(file);
+        }
+        
+        @Override
+        InputStream open(Entry entry) throws IOException {
+            return new ByteArrayInputStream(this.read(entry));
+        }
+        
+        @Override
+        byte[] read(Entry entry) throws IOException {
+            RandomAccessFile raf = new RandomAccessFile(this.file, "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                ByteBuffer header = ByteBuffer.allocate(ResourceIndex.LOC_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                ResourceIndex.readFully(channel, header, entry.offset);
+                if (header.getInt(0) != ResourceIndex.LOC_SIGNATURE) {
+                    throw new IOException("Invalid local header for " + entry.name + " in " + this.file);
+                }
+                
+                long dataPos = entry.offset + ResourceIndex.LOC_SIZE + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+                if (entry.method == ResourceIndex.METHOD_STORED) {
+                    byte[] data = new byte[entry.size];
+                    ResourceIndex.readFully(channel, ByteBuffer.wrap(data), dataPos);
+                    return data;
+                }
+                
+                // Inflater requires an extra dummy byte when nowrap is set
+                byte[] compressed = new byte[entry.compressedSize + 1];
+                ResourceIndex.readFully(channel, ByteBuffer.wrap(compressed, 0, entry.compressedSize), dataPos);
+                try {
+                    return Compression.inflate(compressed, entry.size, true);
+                } catch (DataFormatException ex) {
+                    throw new IOException("Corrupt entry " + entry.name + " in " + this.file, ex);
+                }
+            } finally {
+                ResourceIndex.closeQuietly(raf);
+            }
+        }
+        
+    }
+    
+    /**
+     * A directory on the class path
+     */
+    static final class Directory extends Container {
+        
+        Directory(File file) {
+            super(file);
+        }
+        
+        @Override
+        InputStream open(Entry entry) throws IOException {
+            return new FileInputStream(new File(this.file, entry.name));
+        }
+        
+        @Override
+        byte[] read(Entry entry) throws IOException {
+            InputStream stream = this.open(entry);
+            try {
+                return ByteStreams.toByteArray(stream);
+            } finally {
+                Closeables.closeQuietly(stream);
+            }
+        }
+        
+    }
+    
+    /**
+     * An indexed resource
+     */
+    static final class Entry {
+        
+        final Container container;
+        
+        final String name;
+        
+        final int method;
+        
+        final int compressedSize;
+        
+        final int size;
+        
+        final int offset;
+        
+        Entry(Container container, String name, int method, int compressedSize, int size, int offset) {
+            this.container = container;
+            this.name = name;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.offset = offset;
+        }
+        
+    }
+    
+    /**
+     * Indexed resources, the first source to supply a resource wins
+     */
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    
+    /**
+     * Sources which have been added to the index
+     */
+    private final Set<String> sources = new HashSet<String>();
+    
+    /**
+     * False if any source could not be indexed
+     */
+    private volatile boolean complete = true;
+    
+    /**
+     * Add a source to the index. Sources should be added in class path order
+     * since resources supplied by sources which were added earlier take
+     * precedence. Adding a source which was already added has no effect.
+     * 
+     * @param source source to add
+     * @return true if the source was indexed, false if it could not be indexed
+     *      and the index is now incomplete
+     */
+    public synchronized boolean add(URL source) {
+        if (source == null || !this.sources.add(source.toString())) {
+            return true;
+        }
+        
+        File file = null;
+        try {
+            if ("file".equals(source.getProtocol())) {
+                file = Files.toFile(source);
+            }
+        } catch (URISyntaxException ex) {
+            // file is null
+        } catch (IllegalArgumentException ex) {
+            // file is null
+        }
+        
+        if (file == null) {
+            this.complete = false;
+            return false;
+        }
+        
+        if (file.isDirectory()) {
+            this.indexDirectory(new Directory(file));
+            return true;
+        }
+        
+        if (!file.isFile()) {
+            // Missing sources contribute nothing
+            return true;
+        }
+        
+        try {
+            if (this.indexArchive(new Archive(file))) {
+                return true;
+            }
+        } catch (IOException ex) {
+            // incomplete
+        }
+        this.complete = false;
+        return false;
+    }
+    
+    /**
+     * Get whether all sources added to this index were indexed successfully.
+     * If the index is incomplete then a resource missing from the index may
+     * still be available from a source which could not be indexed.
+     */
+    public boolean isComplete() {
+        return this.complete;
+    }
+    
+    /**
+     * Get the number of indexed resources
+     */
+    public int size() {
+        return this.entries.size();
+    }
+    
+    /**
+     * Get whether the specified resource is present in the index
+     * 
+     * @param name resource path
+     * @return true if the resource is indexed
+     */
+    public boolean contains(String name) {
+        return this.entries.containsKey(name);
+    }
+    
+    /**
+     * Open a stream for the specified resource
+     * 
+     * @param name resource path
+     * @return stream or null if the resource is not indexed
+     * @throws IOException if the resource is indexed but could not be read
+     */
+    public InputStream getResourceAsStream(String name) throws IOException {
+        Entry entry = this.entries.get(name);
+        return entry != null ? entry.container.open(entry) : null;
+    }
+    
+    /**
+     * Read the contents of the specified resource
+     * 
+     * @param name resource path
+     * @return resource contents or null if the resource is not indexed
+     * @throws IOException if the resource is indexed but could not be read
+     */
+    public byte[] getResourceBytes(String name) throws IOException {
+        Entry entry = this.entries.get(name);
+        return entry != null ? entry.container.read(entry) : null;
+    }
+    
+    /**
+     * Walk the specified directory without recursion. Symbolic links are
+     * followed, as they are by the classloader, but each real directory is
+     * only walked once so that link cycles terminate.
+     */
+    private void indexDirectory(Directory directory) {
+        Set<String> visited = new HashSet<String>();
+        LinkedList<File> dirs = new LinkedList<File>();
+        LinkedList<String> prefixes = new LinkedList<String>();
+        dirs.add(directory.file);
+        prefixes.add("");
+        
+        while (!dirs.isEmpty()) {
+            File dir = dirs.removeFirst();
+            String prefix = prefixes.removeFirst();
+            try {
+                if (!visited.add(dir.getCanonicalPath())) {
+                    continue;
+                }
+            } catch (IOException ex) {
+                continue;
+            }
+            
+            File[] files = dir.listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                String name = prefix + file.getName();
+                if (file.isDirectory()) {
+                    dirs.add(file);
+                    prefixes.add(name + "/");
+                } else if (file.isFile()) {
+                    this.entries.putIfAbsent(name, new Entry(directory, name, ResourceIndex.METHOD_STORED, 0, 0, 0));
+                }
+            }
+        }
+    }
+    
+    private boolean indexArchive(Archive archive) throws IOException {
+        File file = archive.file;
+        long length = file.length();
+        if (length < ResourceIndex.EOCD_SIZE || length > Integer.MAX_VALUE) {
+            return false;
+        }
+        
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            // Locate the end of central directory record, which is followed by
+            // a variable-length comment
+            int tailSize = (int)Math.min(length, ResourceIndex.EOCD_SIZE + ResourceIndex.MAX_COMMENT_SIZE);
+            ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+            ResourceIndex.readFully(raf.getChannel(), tail, length - tailSize);
+            
+            int eocd = -1;
+            for (int pos = tailSize - ResourceIndex.EOCD_SIZE; pos >= 0; pos--) {
+                if (tail.getInt(pos) == ResourceIndex.EOCD_SIGNATURE) {
+                    eocd = pos;
+                    break;
+                }
+            }
+            if (eocd < 0) {
+                return false;
+            }
+            
+            int count = tail.getShort(eocd + 10) & 0xFFFF;
+            long cenSize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+            long cenOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+            if (count == 0xFFFF || cenOffset == 0xFFFFFFFFL) {
+                // zip64, not supported
+                return false;
+            }
+            
+            // Offsets are relative to the start of the archive, which is not
+            // necessarily the start of the file if the archive has a prefix
+            long cenPos = length - tailSize + eocd - cenSize;
+            long base = cenPos - cenOffset;
+            if (cenPos < 0 || base < 0) {
+                return false;
+            }
+            
+            ByteBuffer cen = ByteBuffer.allocate((int)cenSize).order(ByteOrder.LITTLE_ENDIAN);
+            ResourceIndex.readFully(raf.getChannel(), cen, cenPos);
+            
+            // Entries from this archive, versioned entries are collected
+            // separately and applied once the whole directory has been read
+            Map<String, Entry> archiveEntries = new LinkedHashMap<String, Entry>();
+            List<Entry> versioned = new ArrayList<Entry>();
+            
+            int pos = 0;
+            for (int index = 0; index < count; index++) {
+                if (pos + ResourceIndex.CEN_SIZE > cenSize || cen.getInt(pos) != ResourceIndex.CEN_SIGNATURE) {
+                    return false;
+                }
+                int flags = cen.getShort(pos + 8) & 0xFFFF;
+                int method = cen.getShort(pos + 10) & 0xFFFF;
+                long compressedSize = cen.getInt(pos + 20) & 0xFFFFFFFFL;
+                long size = cen.getInt(pos + 24) & 0xFFFFFFFFL;
+                int nameLength = cen.getShort(pos + 28) & 0xFFFF;
+                int extraLength = cen.getShort(pos + 30) & 0xFFFF;
+                int commentLength = cen.getShort(pos + 32) & 0xFFFF;
+                long offset = (cen.getInt(pos + 42) & 0xFFFFFFFFL) + base;
+                
+                byte[] nameBytes = new byte[nameLength];
+                cen.position(pos + ResourceIndex.CEN_SIZE);
+                cen.get(nameBytes);
+                String name = new String(nameBytes, Charsets.UTF_8);
+                pos += ResourceIndex.CEN_SIZE + nameLength + extraLength + commentLength;
+                
+                if (name.endsWith("/")) {
+                    continue;
+                }
+                if ((flags & ResourceIndex.FLAG_ENCRYPTED) != 0 || offset > Integer.MAX_VALUE || size > Integer.MAX_VALUE
+                        || (method != ResourceIndex.METHOD_STORED && method != ResourceIndex.METHOD_DEFLATED)) {
+                    return false;
+                }
+                
+                Entry entry = new Entry(archive, name, method, (int)compressedSize, (int)size, (int)offset);
+                if (!archiveEntries.containsKey(name)) {
+                    archiveEntries.put(name, entry);
+                }
+                if (ResourceIndex.RELEASE_VERSION > 0 && name.startsWith(ResourceIndex.VERSIONS_PREFIX)) {
+                    versioned.add(entry);
+                }
+            }
+            
+            if (!versioned.isEmpty() && ResourceIndex.isMultiRelease(archive, archiveEntries.get(JarFile.MANIFEST_NAME))) {
+                ResourceIndex.applyVersionedEntries(archiveEntries, versioned);
+            }
+            
+            for (Map.Entry<String, Entry> entry : archiveEntries.entrySet()) {
+                this.entries.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            return true;
+        } finally {
+            ResourceIndex.closeQuietly(raf);
+        }
+    }
+    
+    private static boolean isMultiRelease(Archive archive, Entry manifestEntry) throws IOException {
+        if (manifestEntry == null) {
+            return false;
+        }
+        Manifest manifest = new Manifest(new ByteArrayInputStream(archive.read(manifestEntry)));
+        return Boolean.parseBoolean(manifest.getMainAttributes().getValue(new Attributes.Name("Multi-Release")));
+    }
+    
+    /**
+     * Replace base entries with the versioned entry with the highest version
+     * which is supported by the runtime. Versioned entries also remain
+     * available under their full names.
+     */
+    private static void applyVersionedEntries(Map<String, Entry> archiveEntries, List<Entry> versioned) {
+        Map<String, Integer> selected = new HashMap<String, Integer>();
+        for (Entry entry : versioned) {
+            int pos = entry.name.indexOf('/', ResourceIndex.VERSIONS_PREFIX.length());
+            if (pos < 0 || pos == entry.name.length() - 1) {
+                continue;
+            }
+            int version;
+            try {
+                version = Integer.parseInt(entry.name.substring(ResourceIndex.VERSIONS_PREFIX.length(), pos));
+            } catch (NumberFormatException ex) {
+                continue;
+            }
+            String name = entry.name.substring(pos + 1);
+            Integer current = selected.get(name);
+            if (version >= JavaVersion.JAVA_9 && version <= ResourceIndex.RELEASE_VERSION && (current == null || version > current.intValue())) {
+                archiveEntries.put(name, entry);
+                selected.put(name, Integer.valueOf(version));
+            }
+        }
+    }
+    
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, pos);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            pos += read;
+        }
+    }
+    
+    private static void closeQuietly(RandomAccessFile raf) {
+        try {
+            raf.close();
+        } catch (IOException ex) {
+            // oh well
+        }
+    }
+
+}
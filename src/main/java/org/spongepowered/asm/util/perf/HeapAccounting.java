@@ -0,0 +1,501 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util.perf;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.PrettyPrinter;
+import org.spongepowered.asm.util.PrettyPrinter.Alignment;
+
+/**
+ * Estimates the heap retained by mixin internal structures, by category.
+ * Structures register a {@link ISource source} which walks the structure when
+ * an estimate is requested, so nothing is tracked between estimates. Sizes are
+ * calculated for a 64-bit VM with compressed references and are intended for
+ * comparing runs rather than as an exact measure.
+ * 
+ * <p>Most structures are not thread-safe, so estimates are only calculated on
+ * the transformer thread. Other threads read the last {@link #publish
+ * published} estimate using {@link #getPublished}.</p>
+ */
+public final class HeapAccounting {
+    
+    /**
+     * Class metadata cache
+     */
+    public static final String CLASS_INFO = "ClassInfo cache";
+    
+    /**
+     * Trees and released bytecode held by mixins
+     */
+    public static final String MIXIN_TREES = "Mixin trees";
+    
+    /**
+     * Generated local variable tables
+     */
+    public static final String LOCALS = "Locals LVT cache";
+    
+    /**
+     * Reference map tables
+     */
+    public static final String REFERENCE_MAPS = "Reference maps";
+    
+    /**
+     * Synthetic class registry
+     */
+    public static final String SYNTHETIC_CLASSES = "Synthetic classes";
+    
+    /**
+     * Bytecode retained by the hot-swap agent class loader
+     */
+    public static final String AGENT_CLASSLOADER = "Agent class loader";
+    
+    /**
+     * Profiler sections
+     */
+    public static final String PROFILER = "Profiler sections";
+    
+    /**
+     * Method mapper registries
+     */
+    public static final String METHOD_MAPPER = "Method mapper";
+    
+    /**
+     * Parsed selector caches
+     */
+    public static final String SELECTORS = "Parsed selectors";
+    
+    /**
+     * Categories in report order, categories with no sources are reported as
+     * empty
+     */
+    private static final String[] CATEGORIES = {
+        HeapAccounting.CLASS_INFO,
+        HeapAccounting.MIXIN_TREES,
+        HeapAccounting.LOCALS,
+        HeapAccounting.REFERENCE_MAPS,
+        HeapAccounting.SYNTHETIC_CLASSES,
+        HeapAccounting.AGENT_CLASSLOADER,
+        HeapAccounting.PROFILER,
+        HeapAccounting.METHOD_MAPPER,
+        HeapAccounting.SELECTORS
+    };
+    
+    /**
+     * Number of attempts to estimate a source which is modified concurrently
+     */
+    private static final int ATTEMPTS = 3;
+
+    /**
+     * A source of retained heap. Sources must not hold a strong reference to
+     * their owner, since owners are only weakly referenced so that registering
+     * a source does not keep its owner alive.
+     * 
+     * @param <T> owner type
+     */
+    public interface ISource<T> {
+        
+        /**
+         * Add the heap retained by the owner to the supplied estimate
+         * 
+         * @param owner object which owns the structure
+         * @param estimate estimate to add to
+         */
+        public abstract void estimate(T owner, Estimate estimate);
+        
+    }
+    
+    /**
+     * Estimate for a single category, also provides size estimates for common
+     * structures
+     */
+    public static final class Estimate {
+        
+        private static final int HEADER = 12;
+        
+        private static final int ARRAY_HEADER = 16;
+        
+        private static final int REFERENCE = 4;
+        
+        /**
+         * Approximate size of an instruction node including its share of the
+         * instruction list, most instructions share their strings with the
+         * constant pool of the class they were read from
+         */
+        private static final int INSN = 40;
+        
+        private final String category;
+        
+        private int entries;
+        
+        private long bytes;
+        
+        Estimate(String category) {
+            this.category = category;
+        }
+        
+        public String getCategory() {
+            return this.category;
+        }
+        
+        /**
+         * Number of entries counted in this category
+         */
+        public int getEntries() {
+            return this.entries;
+        }
+        
+        /**
+         * Estimated size of this category in bytes
+         */
+        public long getBytes() {
+            return this.bytes;
+        }
+        
+        /**
+         * Add an entry of the specified size
+         * 
+         * @param bytes estimated size of the entry
+         * @return fluent interface
+         */
+        public Estimate entry(long bytes) {
+            this.entries++;
+            this.bytes += bytes;
+            return this;
+        }
+        
+        /**
+         * Add overhead which is not counted as an entry
+         * 
+         * @param bytes estimated size
+         * @return fluent interface
+         */
+        public Estimate add(long bytes) {
+            this.bytes += bytes;
+            return this;
+        }
+        
+        void reset() {
+            this.entries = 0;
+            this.bytes = 0L;
+        }
+        
+        /**
+         * Size of an object with the specified number of reference fields and
+         * bytes of primitive fields
+         */
+        public static long object(int references, int primitiveBytes) {
+            return Estimate.align(Estimate.HEADER + references * Estimate.REFERENCE + primitiveBytes);
+        }
+        
+        /**
+         * Size of an array
+         */
+        public static long array(int length, int elementSize) {
+            return Estimate.align(Estimate.ARRAY_HEADER + (long)length * elementSize);
+        }
+        
+        /**
+         * Size of an array of references
+         */
+        public static long references(int length) {
+            return Estimate.array(length, Estimate.REFERENCE);
+        }
+        
+        /**
+         * Size of a string, assuming compact (latin-1) storage
+         */
+        public static long string(String string) {
+            return string != null ? Estimate.object(1, 6) + Estimate.array(string.length(), 1) : 0L;
+        }
+        
+        /**
+         * Size of an <tt>ArrayList</tt> without its elements
+         */
+        public static long list(int size) {
+            return Estimate.object(1, 8) + Estimate.references(size);
+        }
+
+        /**
+         * Size of a <tt>HashMap</tt> or <tt>HashSet</tt> without its keys
+         * and values
+         */
+        public static long hashMap(int size) {
+            int capacity = 16;
+            while (capacity * 3 < size * 4) {
+                capacity <<= 1;
+            }
+            return Estimate.object(4, 16) + Estimate.references(capacity) + size * Estimate.object(3, 4);
+        }
+        
+        /**
+         * Size of a <tt>TreeMap</tt> without its keys and values
+         */
+        public static long treeMap(int size) {
+            return Estimate.object(3, 8) + size * Estimate.object(5, 1);
+        }
+        
+        /**
+         * Size of a class tree
+         */
+        public static long classNode(ClassNode classNode) {
+            long size = Estimate.object(28, 8) + Estimate.string(classNode.name) + Estimate.string(classNode.superName)
+                    + Estimate.string(classNode.signature) + Estimate.list(classNode.interfaces.size())
+                    + Estimate.list(classNode.fields.size()) + Estimate.list(classNode.methods.size())
+                    + Estimate.annotations(classNode.visibleAnnotations) + Estimate.annotations(classNode.invisibleAnnotations);
+            for (FieldNode field : classNode.fields) {
+                size += Estimate.object(10, 4) + Estimate.string(field.name) + Estimate.string(field.desc) + Estimate.string(field.signature)
+                        + Estimate.annotations(field.visibleAnnotations) + Estimate.annotations(field.invisibleAnnotations);
+            }
+            for (MethodNode method : classNode.methods) {
+                size += Estimate.methodNode(method);
+            }
+            return size;
+        }
+        
+        /**
+         * Size of a method tree
+         */
+        public static long methodNode(MethodNode method) {
+            int localVariables = method.localVariables != null ? method.localVariables.size() : 0;
+            return Estimate.object(26, 16) + Estimate.string(method.name) + Estimate.string(method.desc) + Estimate.string(method.signature)
+                    + Estimate.object(3, 4) + (long)method.instructions.size() * Estimate.INSN
+                    + Estimate.list(localVariables) + localVariables * Estimate.object(6, 4)
+                    + Estimate.list(method.tryCatchBlocks.size()) + method.tryCatchBlocks.size() * Estimate.object(6, 0)
+                    + Estimate.annotations(method.visibleAnnotations) + Estimate.annotations(method.invisibleAnnotations);
+        }
+        
+        private static long annotations(List<AnnotationNode> annotations) {
+            if (annotations == null) {
+                return 0L;
+            }
+            long size = Estimate.list(annotations.size());
+            for (AnnotationNode annotation : annotations) {
+                int values = annotation.values != null ? annotation.values.size() : 0;
+                size += Estimate.object(2, 0) + Estimate.string(annotation.desc) + Estimate.list(values) + values * Estimate.INSN;
+            }
+            return size;
+        }
+
+        private static long align(long size) {
+            return (size + 7L) & ~7L;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s: %d entries, %s", this.category, this.entries, HeapAccounting.format(this.bytes));
+        }
+        
+    }
+    
+    /**
+     * A registered source
+     */
+    static final class Registration<T> {
+        
+        final String category;
+        
+        private final WeakReference<T> owner;
+        
+        private final ISource<T> source;
+        
+        Registration(String category, T owner, ISource<T> source) {
+            this.category = category;
+            this.owner = new WeakReference<T>(owner);
+            this.source = source;
+        }
+        
+        boolean isValid() {
+            return this.owner.get() != null;
+        }
+        
+        void estimate(Estimate estimate) {
+            T owner = this.owner.get();
+            if (owner != null) {
+                this.source.estimate(owner, estimate);
+            }
+        }
+        
+    }
+    
+    private static final List<Registration<?>> sources = new CopyOnWriteArrayList<Registration<?>>();
+    
+    /**
+     * Last estimate published by the transformer thread
+     */
+    private static volatile List<Estimate> published = Collections.<Estimate>emptyList();
+    
+    /**
+     * Set when another thread reads the published estimate, the transformer
+     * thread then publishes a new estimate at the next opportunity
+     */
+    private static volatile boolean refreshRequested;
+    
+    private HeapAccounting() {
+    }
+    
+    /**
+     * Register a source of retained heap. The owner is only weakly referenced
+     * and the registration is discarded when the owner is collected, sources
+     * for static structures can use the declaring class as the owner.
+     * 
+     * @param category category to report the source under
+     * @param owner object which owns the structure
+     * @param source source which estimates the structure
+     * @param <T> owner type
+     */
+    public static <T> void register(String category, T owner, ISource<T> source) {
+        HeapAccounting.sources.add(new Registration<T>(category, owner, source));
+    }
+    
+    /**
+     * Estimate the heap retained by all registered sources. Must only be
+     * called on the transformer thread. Structures which are modified by
+     * another thread while being estimated are retried, sources which cannot
+     * be estimated are omitted.
+     * 
+     * @return estimates by category, in report order
+     */
+    public static List<Estimate> estimate() {
+        Map<String, Estimate> estimates = new LinkedHashMap<String, Estimate>();
+        for (String category : HeapAccounting.CATEGORIES) {
+            estimates.put(category, new Estimate(category));
+        }
+        
+        List<Registration<?>> expired = null;
+        for (Iterator<Registration<?>> iter = HeapAccounting.sources.iterator(); iter.hasNext();) {
+            Registration<?> registration = iter.next();
+            if (!registration.isValid()) {
+                if (expired == null) {
+                    expired = new ArrayList<Registration<?>>();
+                }
+                expired.add(registration);
+                continue;
+            }
+            
+            Estimate estimate = estimates.get(registration.category);
+            if (estimate == null) {
+                estimates.put(registration.category, estimate = new Estimate(registration.category));
+            }
+            
+            Estimate partial = new Estimate(registration.category);
+            for (int attempt = 1; attempt <= HeapAccounting.ATTEMPTS; attempt++) {
+                try {
+                    partial.reset();
+                    registration.estimate(partial);
+                    estimate.entries += partial.entries;
+                    estimate.bytes += partial.bytes;
+                    break;
+                } catch (ConcurrentModificationException ex) {
+                    if (attempt == HeapAccounting.ATTEMPTS) {
+                        MixinService.getService().getLogger("mixin").debug("Could not estimate {} heap, the structure is being modified", registration.category);
+                    }
+                } catch (RuntimeException ex) {
+                    MixinService.getService().getLogger("mixin").debug("Could not estimate {} heap: {} {}", registration.category,
+                            ex.getClass().getName(), ex.getMessage());
+                    break;
+                }
+            }
+        }
+        
+        if (expired != null) {
+            HeapAccounting.sources.removeAll(expired);
+        }
+        
+        return new ArrayList<Estimate>(estimates.values());
+    }
+    
+    /**
+     * Publish a new estimate if one was requested since the last estimate was
+     * published. Must only be called on the transformer thread, and only
+     * between transformations.
+     */
+    public static void publish() {
+        if (!HeapAccounting.refreshRequested) {
+            return;
+        }
+        HeapAccounting.refreshRequested = false;
+        try {
+            HeapAccounting.published = Collections.unmodifiableList(HeapAccounting.estimate());
+        } catch (RuntimeException ex) {
+            MixinService.getService().getLogger("mixin").debug("Could not publish heap estimate: {} {}", ex.getClass().getName(), ex.getMessage());
+        }
+    }
+    
+    /**
+     * Get the last estimate published by the transformer thread and request a
+     * new one. Safe to call from any thread. The estimate is empty until the
+     * transformer thread first publishes, and is not refreshed while no
+     * classes are being transformed.
+     * 
+     * @return last published estimates by category, in report order
+     */
+    public static List<Estimate> getPublished() {
+        HeapAccounting.refreshRequested = true;
+        return HeapAccounting.published;
+    }
+    
+    /**
+     * Estimate the heap retained by all registered sources and log a report
+     * to the audit logger
+     */
+    public static void printReport() {
+        List<Estimate> estimates = HeapAccounting.estimate();
+        PrettyPrinter printer = new PrettyPrinter();
+        printer.add("Mixin Heap Estimate").centre().hr();
+        printer.table("Category", "Entries", Alignment.RIGHT, "Estimated Size", Alignment.RIGHT).th().hr();
+        long total = 0L;
+        for (Estimate estimate : estimates) {
+            printer.tr(estimate.getCategory(), estimate.getEntries(), HeapAccounting.format(estimate.getBytes()));
+            total += estimate.getBytes();
+        }
+        printer.hr().tr("Total", "", HeapAccounting.format(total));
+        printer.log(MixinService.getService().getLogger("mixin.audit"));
+    }
+    
+    static String format(long bytes) {
+        if (bytes < 1024L) {
+            return bytes + " B";
+        } else if (bytes < 1024L * 1024L) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+}
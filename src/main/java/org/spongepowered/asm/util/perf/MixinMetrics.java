@@ -0,0 +1,502 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util.perf;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.ObjectName;
+
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.mixin.transformer.ClassInfo;
+import org.spongepowered.asm.service.IMixinMetrics;
+import org.spongepowered.asm.service.IMixinMetrics.Stage;
+import org.spongepowered.asm.service.MixinService;
+
+/**
+ * Live counters and timings for the mixin transformer. Metrics are collected
+ * when {@link Option#METRICS} is enabled, in which case they are also
+ * published over JMX, or when an {@link IMixinMetrics} listener is registered.
+ * When neither is the case the notification methods return immediately.
+ */
+public final class MixinMetrics implements MixinMetricsMXBean {
+    
+    /**
+     * JMX object name for the metrics MBean
+     */
+    public static final String OBJECT_NAME = "org.spongepowered.mixin:type=Metrics";
+    
+    /**
+     * Number of histogram buckets, bucket <tt>n</tt> counts durations below
+     * <tt>2<sup>n</sup></tt> microseconds
+     */
+    private static final int BUCKETS = 32;
+    
+    /**
+     * Snapshot of a timing histogram
+     */
+    public static final class Timing {
+        
+        private final long count;
+        private final long totalMicros;
+        private final long maxMicros;
+        private final long p50Micros;
+        private final long p90Micros;
+        private final long p99Micros;
+        
+        Timing(long count, long totalMicros, long maxMicros, long p50Micros, long p90Micros, long p99Micros) {
+            this.count = count;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+        }
+        
+        public long getCount() {
+            return this.count;
+        }
+        
+        public long getTotalMicros() {
+            return this.totalMicros;
+        }
+        
+        public long getMeanMicros() {
+            return this.count > 0 ? this.totalMicros / this.count : 0;
+        }
+        
+        public long getMaxMicros() {
+            return this.maxMicros;
+        }
+        
+        /**
+         * Median, accurate to the next power of two
+         */
+        public long getP50Micros() {
+            return this.p50Micros;
+        }
+        
+        /**
+         * 90th percentile, accurate to the next power of two
+         */
+        public long getP90Micros() {
+            return this.p90Micros;
+        }
+        
+        /**
+         * 99th percentile, accurate to the next power of two
+         */
+        public long getP99Micros() {
+            return this.p99Micros;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("count=%d mean=%dus p50=%dus p90=%dus p99=%dus max=%dus", this.count, this.getMeanMicros(), this.p50Micros,
+                    this.p90Micros, this.p99Micros, this.maxMicros);
+        }
+        
+    }
+    
+    /**
+     * Histogram with power-of-two buckets
+     */
+    static final class Histogram {
+        
+        private final AtomicLongArray buckets = new AtomicLongArray(MixinMetrics.BUCKETS);
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+        
+        void record(long nanos) {
+            long micros = Math.max(nanos / 1000L, 0L);
+            int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), MixinMetrics.BUCKETS - 1);
+            this.buckets.incrementAndGet(bucket);
+            this.total.addAndGet(micros);
+            for (long current = this.max.get(); micros > current && !this.max.compareAndSet(current, micros); current = this.max.get()) {
+                // retry
+            }
+        }
+        
+        Timing snapshot() {
+            long[] counts = new long[MixinMetrics.BUCKETS];
+            long sum = 0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                counts[bucket] = this.buckets.get(bucket);
+                sum += counts[bucket];
+            }
+            return new Timing(sum, this.total.get(), this.max.get(), Histogram.percentile(counts, sum, 50),
+                    Histogram.percentile(counts, sum, 90), Histogram.percentile(counts, sum, 99));
+        }
+        
+        void reset() {
+            for (int bucket = 0; bucket < MixinMetrics.BUCKETS; bucket++) {
+                this.buckets.set(bucket, 0);
+            }
+            this.total.set(0);
+            this.max.set(0);
+        }
+        
+        private static long percentile(long[] counts, long sum, int percent) {
+            if (sum == 0) {
+                return 0;
+            }
+            long rank = (sum * percent + 99) / 100;
+            long seen = 0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank) {
+                    return 1L << bucket;
+                }
+            }
+            return 1L << (counts.length - 1);
+        }
+        
+    }
+    
+    private static final MixinMetrics instance = new MixinMetrics();
+    
+    private static final List<IMixinMetrics> listeners = new CopyOnWriteArrayList<IMixinMetrics>();
+    
+    private static volatile boolean active;
+    
+    private static boolean initialised;
+    
+    private final AtomicLong classesInspected = new AtomicLong();
+    private final AtomicLong classesTransformed = new AtomicLong();
+    private final AtomicLong mixinsApplied = new AtomicLong();
+    private final AtomicLong classInfoHits = new AtomicLong();
+    private final AtomicLong classInfoMisses = new AtomicLong();
+    private final AtomicLong metadataLoads = new AtomicLong();
+    private final AtomicLong reEntrances = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> injections = new ConcurrentHashMap<String, AtomicLong>();
+    private final Histogram[] timings = new Histogram[Stage.values().length];
+    
+    private MixinMetrics() {
+        for (int i = 0; i < this.timings.length; i++) {
+            this.timings[i] = new Histogram();
+        }
+    }
+    
+    /**
+     * Discover metrics listeners and, if metrics are enabled, register the
+     * metrics MBean. Only the first call has any effect.
+     * 
+     * @param environment Environment to read options from
+     */
+    public static synchronized void init(MixinEnvironment environment) {
+        if (MixinMetrics.initialised) {
+            return;
+        }
+        MixinMetrics.initialised = true;
+        ILogger logger = MixinService.getService().getLogger("mixin");
+        
+        try {
+            Iterator<IMixinMetrics> iter = ServiceLoader.<IMixinMetrics>load(IMixinMetrics.class, MixinMetrics.class.getClassLoader()).iterator();
+            while (iter.hasNext()) {
+                IMixinMetrics listener = iter.next();
+                logger.debug("Registering metrics listener {}", listener.getClass().getName());
+                MixinMetrics.listeners.add(listener);
+            }
+        } catch (ServiceConfigurationError err) {
+            logger.warn("Error loading metrics listener: {}", err.getMessage());
+        }
+        
+        if (environment.getOption(Option.METRICS)) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(MixinMetrics.instance, new ObjectName(MixinMetrics.OBJECT_NAME));
+                logger.info("Mixin metrics are available over JMX as {}", MixinMetrics.OBJECT_NAME);
+            } catch (Exception ex) {
+                logger.warn("Mixin metrics could not be registered with the MBean server: {}: {}", ex.getClass().getName(), ex.getMessage());
+            }
+            MixinMetrics.active = true;
+        }
+        
+        if (!MixinMetrics.listeners.isEmpty()) {
+            MixinMetrics.active = true;
+        }
+    }
+    
+    /**
+     * Register a metrics listener, enables metrics collection
+     * 
+     * @param listener Listener to register
+     */
+    public static void register(IMixinMetrics listener) {
+        MixinMetrics.listeners.add(listener);
+        MixinMetrics.active = true;
+    }
+    
+    /**
+     * Remove a listener which threw an exception, a faulty listener must never
+     * abort or alter the transformation it is being notified about
+     * 
+     * @param listener Listener which failed
+     * @param th Exception thrown by the listener
+     */
+    private static void removeListener(IMixinMetrics listener, Throwable th) {
+        if (MixinMetrics.listeners.remove(listener)) {
+            MixinService.getService().getLogger("mixin").warn("Metrics listener {} threw {}: {}, the listener has been removed",
+                    listener.getClass().getName(), th.getClass().getName(), th.getMessage(), th);
+        }
+    }
+    
+    /**
+     * Get whether metrics are being collected
+     */
+    public static boolean isActive() {
+        return MixinMetrics.active;
+    }
+    
+    /**
+     * Get the current metrics
+     */
+    public static MixinMetricsMXBean getMetrics() {
+        return MixinMetrics.instance;
+    }
+    
+    public static void classInspected(String className) {
+        if (MixinMetrics.active) {
+            MixinMetrics.instance.classesInspected.incrementAndGet();
+            for (IMixinMetrics listener : MixinMetrics.listeners) {
+                try {
+                    listener.onClassInspected(className);
+                } catch (Throwable th) {
+                    MixinMetrics.removeListener(listener, th);
+                }
+            }
+        }
+    }
+    
+    public static void classTransformed(String className) {
+        if (MixinMetrics.active) {
+            MixinMetrics.instance.classesTransformed.incrementAndGet();
+            for (IMixinMetrics listener : MixinMetrics.listeners) {
+                try {
+                    listener.onClassTransformed(className);
+                } catch (Throwable th) {
+                    MixinMetrics.removeListener(listener, th);
+                }
+            }
+        }
+    }
+    
+    public static void mixinApplied(String className, String mixinName) {
+        if (MixinMetrics.active) {
+            MixinMetrics.instance.mixinsApplied.incrementAndGet();
+            for (IMixinMetrics listener : MixinMetrics.listeners) {
+                try {
+                    listener.onMixinApplied(className, mixinName);
+                } catch (Throwable th) {
+                    MixinMetrics.removeListener(listener, th);
+                }
+            }
+        }
+    }
+    
+    public static void injection(String injectorType, int count) {
+        if (MixinMetrics.active) {
+            AtomicLong counter = MixinMetrics.instance.injections.get(injectorType);
+            if (counter == null) {
+                AtomicLong existing = MixinMetrics.instance.injections.putIfAbsent(injectorType, counter = new AtomicLong());
+                if (existing != null) {
+                    counter = existing;
+                }
+            }
+            counter.addAndGet(count);
+            for (IMixinMetrics listener : MixinMetrics.listeners) {
+                try {
+                    listener.onInjection(injectorType, count);
+                } catch (Throwable th) {
+                    MixinMetrics.removeListener(listener, th);
+                }
+            }
+        }
+    }
+    
+    public static void classInfoLookup(boolean hit) {
+        if (MixinMetrics.active) {
+            (hit ? MixinMetrics.instance.classInfoHits : MixinMetrics.instance.classInfoMisses).incrementAndGet();
+        }
+    }
+    
+    public static void metadataLoad(String className) {
+        if (MixinMetrics.active) {
+            MixinMetrics.instance.metadataLoads.incrementAndGet();
+            for (IMixinMetrics listener : MixinMetrics.listeners) {
+                try {
+                    listener.onMetadataLoad(className);
+                } catch (Throwable th) {
+                    MixinMetrics.removeListener(listener, th);
+                }
+            }
+        }
+    }
+    
+    public static void reEntrance(String className) {
+        if (MixinMetrics.active) {
+            MixinMetrics.instance.reEntrances.incrementAndGet();
+            for (IMixinMetrics listener : MixinMetrics.listeners) {
+                try {
+                    listener.onReEntrance(className);
+                } catch (Throwable th) {
+                    MixinMetrics.removeListener(listener, th);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Begin timing a stage
+     * 
+     * @return start time to pass to {@link #end}, or 0 if metrics are not
+     *      being collected
+     */
+    public static long begin() {
+        return MixinMetrics.active ? System.nanoTime() : 0L;
+    }
+    
+    /**
+     * Finish timing a stage
+     * 
+     * @param stage Stage
+     * @param className Class name
+     * @param start Value returned from {@link #begin}
+     */
+    public static void end(Stage stage, String className, long start) {
+        if (start != 0L && MixinMetrics.active) {
+            long nanos = System.nanoTime() - start;
+            MixinMetrics.instance.timings[stage.ordinal()].record(nanos);
+            for (IMixinMetrics listener : MixinMetrics.listeners) {
+                try {
+                    listener.onStage(stage, className, nanos);
+                } catch (Throwable th) {
+                    MixinMetrics.removeListener(listener, th);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public long getClassesInspected() {
+        return this.classesInspected.get();
+    }
+    
+    @Override
+    public long getClassesTransformed() {
+        return this.classesTransformed.get();
+    }
+    
+    @Override
+    public long getMixinsApplied() {
+        return this.mixinsApplied.get();
+    }
+    
+    @Override
+    public Map<String, Long> getInjections() {
+        Map<String, Long> injections = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : this.injections.entrySet()) {
+            injections.put(entry.getKey(), entry.getValue().get());
+        }
+        return injections;
+    }
+    
+    @Override
+    public Map<String, Long> getHeapEstimate() {
+        Map<String, Long> estimate = new LinkedHashMap<String, Long>();
+        for (HeapAccounting.Estimate category : HeapAccounting.getPublished()) {
+            estimate.put(category.getCategory(), category.getBytes());
+        }
+        return estimate;
+    }
+    
+    @Override
+    public int getClassInfoCacheSize() {
+        return ClassInfo.getCacheSize();
+    }
+    
+    @Override
+    public long getClassInfoCacheHits() {
+        return this.classInfoHits.get();
+    }
+    
+    @Override
+    public long getClassInfoCacheMisses() {
+        return this.classInfoMisses.get();
+    }
+    
+    @Override
+    public long getMetadataClassLoads() {
+        return this.metadataLoads.get();
+    }
+    
+    @Override
+    public long getReEntrances() {
+        return this.reEntrances.get();
+    }
+    
+    @Override
+    public Timing getReadTime() {
+        return this.timings[Stage.READ.ordinal()].snapshot();
+    }
+    
+    @Override
+    public Timing getApplyTime() {
+        return this.timings[Stage.APPLY.ordinal()].snapshot();
+    }
+    
+    @Override
+    public Timing getWriteTime() {
+        return this.timings[Stage.WRITE.ordinal()].snapshot();
+    }
+    
+    @Override
+    public void reset() {
+        this.classesInspected.set(0);
+        this.classesTransformed.set(0);
+        this.mixinsApplied.set(0);
+        this.classInfoHits.set(0);
+        this.classInfoMisses.set(0);
+        this.metadataLoads.set(0);
+        this.reEntrances.set(0);
+        this.injections.clear();
+        for (Histogram timing : this.timings) {
+            timing.reset();
+        }
+    }
+
+}
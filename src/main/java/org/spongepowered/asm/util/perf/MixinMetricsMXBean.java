@@ -0,0 +1,109 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util.perf;
+
+import java.util.Map;
+
+/**
+ * Management interface for mixin transformer metrics, registered with the
+ * platform MBean server as {@link MixinMetrics#OBJECT_NAME} when metrics are
+ * enabled
+ */
+public interface MixinMetricsMXBean {
+    
+    /**
+     * Number of classes passed to the transformer
+     */
+    public abstract long getClassesInspected();
+    
+    /**
+     * Number of classes modified by the transformer
+     */
+    public abstract long getClassesTransformed();
+    
+    /**
+     * Number of mixins applied to target classes
+     */
+    public abstract long getMixinsApplied();
+    
+    /**
+     * Successful injections, keyed by injector annotation
+     */
+    public abstract Map<String, Long> getInjections();
+    
+    /**
+     * Number of entries in the class metadata cache
+     */
+    public abstract int getClassInfoCacheSize();
+    
+    /**
+     * Number of class metadata lookups served from the cache
+     */
+    public abstract long getClassInfoCacheHits();
+    
+    /**
+     * Number of class metadata lookups which missed the cache
+     */
+    public abstract long getClassInfoCacheMisses();
+    
+    /**
+     * Estimated heap retained by mixin internal structures in bytes, keyed by
+     * {@link HeapAccounting heap accounting} category. The estimate is taken
+     * on the transformer thread, reading it requests a fresh estimate which is
+     * returned by the next read once another class has been transformed.
+     */
+    public abstract Map<String, Long> getHeapEstimate();
+    
+    /**
+     * Number of classes loaded in order to build class metadata
+     */
+    public abstract long getMetadataClassLoads();
+    
+    /**
+     * Number of times re-entrance into the transformer was detected
+     */
+    public abstract long getReEntrances();
+    
+    /**
+     * Time spent reading classes into trees
+     */
+    public abstract MixinMetrics.Timing getReadTime();
+    
+    /**
+     * Time spent applying mixins and post-processors
+     */
+    public abstract MixinMetrics.Timing getApplyTime();
+    
+    /**
+     * Time spent writing trees back to bytes
+     */
+    public abstract MixinMetrics.Timing getWriteTime();
+    
+    /**
+     * Reset all counters and timings
+     */
+    public abstract void reset();
+
+}
@@ -32,6 +32,8 @@ import java.util.Map.Entry;
 import org.spongepowered.asm.service.MixinService;
 import org.spongepowered.asm.util.PrettyPrinter;
 import org.spongepowered.asm.util.PrettyPrinter.Alignment;
+import org.spongepowered.asm.util.perf.HeapAccounting.Estimate;
+import org.spongepowered.asm.util.perf.HeapAccounting.ISource;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
@@ -683,6 +685,16 @@ public final class Profiler {
         
     }
     
+    /**
+     * Heap accounting source, counts the sections of each profiler
+     */
+    private static final ISource<Profiler> HEAP_SOURCE = new ISource<Profiler>() {
+        @Override
+        public void estimate(Profiler owner, Estimate estimate) {
+            owner.estimate(estimate);
+        }
+    };
+    
     /**
      * All Profiler instances
      */
@@ -716,6 +728,7 @@ public final class Profiler {
     public Profiler(String id) {
         this.id = id;
         this.phases.add("Initial");
+        HeapAccounting.register(HeapAccounting.PROFILER, this, Profiler.HEAP_SOURCE);
     }
     
     @Override
@@ -888,6 +901,17 @@ public final class Profiler {
         }
     }
     
+    synchronized void estimate(Estimate estimate) {
+        estimate.add(Estimate.treeMap(this.sections.size()) + Estimate.list(this.phases.size()));
+        for (Section section : this.sections.values()) {
+            long size = Estimate.object(4, 8) + Estimate.string(section.getName());
+            if (section instanceof LiveSection) {
+                size += Estimate.object(0, 36) + Estimate.array(((LiveSection)section).times.length, 8);
+            }
+            estimate.entry(size);
+        }
+    }
+    
     /**
      * Get all recorded profiler sections
      */
@@ -0,0 +1,92 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.tools.weaver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.spongepowered.asm.service.IGlobalPropertyService;
+import org.spongepowered.asm.service.IPropertyKey;
+
+/**
+ * Global property service for the offline weaver, properties are simply held
+ * in a map for the lifetime of the weaving run
+ */
+public class GlobalPropertyServiceWeaver implements IGlobalPropertyService {
+    
+    class Key implements IPropertyKey {
+        
+        private final String key;
+
+        Key(String key) {
+            this.key = key;
+        }
+        
+        @Override
+        public String toString() {
+            return this.key;
+        }
+    }
+    
+    private final Map<String, Object> properties = new HashMap<String, Object>();
+    
+    public GlobalPropertyServiceWeaver() {
+        // Only usable inside the weaver, fail so that the service loader moves
+        // on to the property service of the real environment
+        if (!MixinServiceWeaver.isActive()) {
+            throw new IllegalStateException("Mixin weaver is not running");
+        }
+    }
+
+    @Override
+    public IPropertyKey resolveKey(String name) {
+        return new Key(name);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final synchronized <T> T getProperty(IPropertyKey key) {
+        return (T)this.properties.get(key.toString());
+    }
+
+    @Override
+    public final synchronized void setProperty(IPropertyKey key, Object value) {
+        this.properties.put(key.toString(), value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final synchronized <T> T getProperty(IPropertyKey key, T defaultValue) {
+        Object value = this.properties.get(key.toString());
+        return value != null ? (T)value : defaultValue;
+    }
+
+    @Override
+    public final synchronized String getPropertyString(IPropertyKey key, String defaultValue) {
+        Object value = this.properties.get(key.toString());
+        return value != null ? value.toString() : defaultValue;
+    }
+
+}
@@ -0,0 +1,280 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.tools.weaver;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.spongepowered.asm.launch.platform.container.ContainerHandleVirtual;
+import org.spongepowered.asm.launch.platform.container.IContainerHandle;
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.logging.LoggerAdapterConsole;
+import org.spongepowered.asm.mixin.MixinEnvironment.Phase;
+import org.spongepowered.asm.mixin.throwables.MixinException;
+import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
+import org.spongepowered.asm.mixin.transformer.IMixinTransformerFactory;
+import org.spongepowered.asm.service.IClassBytecodeProvider;
+import org.spongepowered.asm.service.IClassProvider;
+import org.spongepowered.asm.service.IClassTracker;
+import org.spongepowered.asm.service.IMixinAuditTrail;
+import org.spongepowered.asm.service.ITransformerProvider;
+import org.spongepowered.asm.service.MixinServiceAbstract;
+import org.spongepowered.asm.transformers.MixinClassReader;
+import org.spongepowered.asm.util.IConsumer;
+
+/**
+ * Mixin service for the offline weaver. Classes and resources are read from
+ * the weaver's {@link WeaverClassPath file-system class path}, there are no
+ * other transformers and no platform agents.
+ */
+public class MixinServiceWeaver extends MixinServiceAbstract implements IClassProvider, IClassBytecodeProvider {
+    
+    /**
+     * Class path supplied by the weaver, the service is only valid once this
+     * has been set
+     */
+    private static volatile WeaverClassPath classPath;
+
+    /**
+     * Class loader for classes the mixin subsystem needs to load, such as
+     * config plugins and custom injection points
+     */
+    private static URLClassLoader classLoader;
+    
+    /**
+     * Phase delegate supplied by the environment
+     */
+    private IConsumer<Phase> phaseConsumer;
+    
+    static void setClassPath(WeaverClassPath classPath) throws MalformedURLException {
+        MixinServiceWeaver.classLoader = new URLClassLoader(classPath.getURLs(), MixinServiceWeaver.class.getClassLoader());
+        MixinServiceWeaver.classPath = classPath;
+    }
+    
+    static boolean isActive() {
+        return MixinServiceWeaver.classPath != null;
+    }
+    
+    @Override
+    public String getName() {
+        return "Weaver";
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#isValid()
+     */
+    @Override
+    public boolean isValid() {
+        return MixinServiceWeaver.isActive();
+    }
+    
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.MixinServiceAbstract#wire(
+     *      org.spongepowered.asm.mixin.MixinEnvironment.Phase,
+     *      org.spongepowered.asm.util.IConsumer)
+     */
+    @Override
+    @Deprecated
+    public void wire(Phase phase, IConsumer<Phase> phaseConsumer) {
+        super.wire(phase, phaseConsumer);
+        this.phaseConsumer = phaseConsumer;
+    }
+    
+    /**
+     * Advance the environment to the specified phase
+     * 
+     * @param phase Phase to enter
+     */
+    void gotoPhase(Phase phase) {
+        if (this.phaseConsumer == null) {
+            throw new MixinException("The mixin environment was not initialised by the weaver");
+        }
+        this.phaseConsumer.accept(phase);
+    }
+
+    /**
+     * Create the mixin transformer using the factory offered to this service
+     * during bootstrap
+     */
+    IMixinTransformer createTransformer() {
+        IMixinTransformerFactory factory = this.getInternal(IMixinTransformerFactory.class);
+        if (factory == null) {
+            throw new MixinException("No mixin transformer factory was offered to the weaver service");
+        }
+        return factory.createTransformer();
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getPlatformAgents()
+     */
+    @Override
+    public Collection<String> getPlatformAgents() {
+        return Collections.<String>emptyList();
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getPrimaryContainer()
+     */
+    @Override
+    public IContainerHandle getPrimaryContainer() {
+        return new ContainerHandleVirtual(this.getName());
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getClassProvider()
+     */
+    @Override
+    public IClassProvider getClassProvider() {
+        return this;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getBytecodeProvider()
+     */
+    @Override
+    public IClassBytecodeProvider getBytecodeProvider() {
+        return this;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService
+     *      #getTransformerProvider()
+     */
+    @Override
+    public ITransformerProvider getTransformerProvider() {
+        return null;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getClassTracker()
+     */
+    @Override
+    public IClassTracker getClassTracker() {
+        return null;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getAuditTrail()
+     */
+    @Override
+    public IMixinAuditTrail getAuditTrail() {
+        return null;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.MixinServiceAbstract#createLogger(
+     *      java.lang.String)
+     */
+    @Override
+    protected ILogger createLogger(String name) {
+        return new LoggerAdapterConsole(name);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getResourceAsStream(
+     *      java.lang.String)
+     */
+    @Override
+    public InputStream getResourceAsStream(String name) {
+        try {
+            byte[] resource = MixinServiceWeaver.classPath.getResource(name);
+            return resource != null ? new ByteArrayInputStream(resource) : null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassProvider#getClassPath()
+     */
+    @Override
+    @Deprecated
+    public URL[] getClassPath() {
+        return MixinServiceWeaver.classLoader.getURLs();
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassProvider#findClass(
+     *      java.lang.String)
+     */
+    @Override
+    public Class<?> findClass(String name) throws ClassNotFoundException {
+        return Class.forName(name, true, MixinServiceWeaver.classLoader);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassProvider#findClass(
+     *      java.lang.String, boolean)
+     */
+    @Override
+    public Class<?> findClass(String name, boolean initialize) throws ClassNotFoundException {
+        return Class.forName(name, initialize, MixinServiceWeaver.classLoader);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassProvider#findAgentClass(
+     *      java.lang.String, boolean)
+     */
+    @Override
+    public Class<?> findAgentClass(String name, boolean initialize) throws ClassNotFoundException {
+        return Class.forName(name, initialize, MixinServiceWeaver.class.getClassLoader());
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassBytecodeProvider#getClassNode(
+     *      java.lang.String)
+     */
+    @Override
+    public ClassNode getClassNode(String name) throws ClassNotFoundException, IOException {
+        return this.getClassNode(name, true);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassBytecodeProvider#getClassNode(
+     *      java.lang.String, boolean)
+     */
+    @Override
+    public ClassNode getClassNode(String name, boolean runTransformers) throws ClassNotFoundException, IOException {
+        String className = name.replace('/', '.');
+        byte[] classBytes = MixinServiceWeaver.classPath.getResource(className.replace('.', '/') + ".class");
+        if (classBytes == null) {
+            throw new ClassNotFoundException(String.format("The specified class '%s' was not found", className));
+        }
+        
+        ClassNode classNode = new ClassNode();
+        ClassReader classReader = new MixinClassReader(classBytes, className);
+        classReader.accept(classNode, ClassReader.EXPAND_FRAMES);
+        return classNode;
+    }
+
+}
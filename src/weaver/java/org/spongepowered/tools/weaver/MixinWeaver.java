@@ -0,0 +1,410 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.tools.weaver;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.Remapper;
+import org.spongepowered.asm.launch.MixinBootstrap;
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.mixin.MixinEnvironment.Phase;
+import org.spongepowered.asm.mixin.Mixins;
+import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
+import org.spongepowered.asm.mixin.transformer.ClassInfo;
+import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
+import org.spongepowered.asm.mixin.transformer.MixinProcessor;
+import org.spongepowered.asm.mixin.transformer.WovenClassManifest;
+import org.spongepowered.asm.mixin.transformer.throwables.IllegalClassLoadError;
+import org.spongepowered.asm.service.ISyntheticClassRegistry;
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.Constants;
+import org.spongepowered.tools.weaver.WeaverClassPath.Source;
+
+import com.google.common.io.Files;
+
+/**
+ * Offline weaver which applies mixins to jars ahead of time, so that the cost
+ * of applying them is paid once at deploy time rather than on every launch.
+ * 
+ * <p>The weaver runs the regular {@link IMixinTransformer mixin transformer}
+ * against a {@link MixinServiceWeaver file-system service}. Every class in the
+ * input jars is passed through the transformer and a patched copy of each jar
+ * is written to the output directory, along with a jar containing any
+ * synthetic classes generated by the mixins and a {@link WovenClassManifest}
+ * which is passed to the runtime via {@link Option#WOVEN_MANIFEST} so that
+ * the mixins which were woven are not applied a second time.</p>
+ * 
+ * <p>Mixin application itself is not thread-safe, so classes are transformed
+ * one at a time. Reading and indexing the class path and writing the patched
+ * jars are performed on a pool of worker threads, overlapping with the
+ * transformation of the next jar.</p>
+ * 
+ * <p>Usage:</p>
+ * 
+ * <blockquote><pre>java -cp &lt;mixin&gt; org.spongepowered.tools.weaver.MixinWeaver
+ *    --in &lt;jar&gt; [--in &lt;jar&gt; ...] [--lib &lt;jar|dir&gt; ...]
+ *    [--config &lt;config.json&gt; ...] [--threads &lt;n&gt;] --out &lt;dir&gt;</pre>
+ * </blockquote>
+ * 
+ * <p>Configs declared in the <tt>MixinConfigs</tt> manifest attribute of the
+ * input jars are added automatically.</p>
+ */
+public final class MixinWeaver {
+    
+    /**
+     * Name of the manifest file written to the output directory
+     */
+    public static final String MANIFEST_NAME = "mixin-woven.txt";
+    
+    /**
+     * Name of the jar containing generated synthetic classes
+     */
+    public static final String SYNTHETIC_JAR_NAME = "mixin-synthetic.jar";
+    
+    /**
+     * Synthetic classes are generated with sequential names at runtime, woven
+     * synthetic classes are moved to their own package so that they can never
+     * collide with classes generated by mixins applied at runtime
+     */
+    private static final String SYNTHETIC_PREFIX = Constants.SYNTHETIC_PACKAGE.replace('.', '/') + "/";
+    private static final String WOVEN_SYNTHETIC_PREFIX = MixinWeaver.SYNTHETIC_PREFIX + "woven/";
+
+    /**
+     * Remaps references to synthetic classes into the woven synthetic package
+     */
+    static final class SyntheticRemapper extends Remapper {
+        
+        private final ISyntheticClassRegistry registry;
+        
+        /**
+         * Synthetic classes referenced by the classes remapped so far
+         */
+        final Set<String> referenced = new TreeSet<String>();
+        
+        private boolean remapped;
+
+        SyntheticRemapper(ISyntheticClassRegistry registry) {
+            this.registry = registry;
+        }
+        
+        @Override
+        public String map(String internalName) {
+            if (internalName.startsWith(MixinWeaver.SYNTHETIC_PREFIX) && this.registry.findSyntheticClass(internalName) != null) {
+                this.referenced.add(internalName);
+                this.remapped = true;
+                return MixinWeaver.WOVEN_SYNTHETIC_PREFIX + internalName.substring(MixinWeaver.SYNTHETIC_PREFIX.length());
+            }
+            return internalName;
+        }
+        
+        /**
+         * Remap the supplied class, returns the original bytes if the class
+         * does not reference any synthetic classes
+         */
+        byte[] remap(byte[] classBytes) {
+            this.remapped = false;
+            ClassReader reader = new ClassReader(classBytes);
+            ClassWriter writer = new ClassWriter(reader, 0);
+            reader.accept(new ClassRemapper(writer, this), 0);
+            return this.remapped ? writer.toByteArray() : classBytes;
+        }
+        
+    }
+    
+    private final List<File> inputs = new ArrayList<File>();
+    
+    private final List<File> libraries = new ArrayList<File>();
+    
+    private final Set<String> configs = new LinkedHashSet<String>();
+    
+    private File outputDir;
+    
+    private int threads = Runtime.getRuntime().availableProcessors();
+    
+    private ILogger logger;
+    
+    private MixinWeaver() {
+    }
+    
+    public static void main(String[] args) {
+        MixinWeaver weaver = new MixinWeaver();
+        try {
+            weaver.parseArgs(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println("Usage: MixinWeaver --in <jar> [--in <jar> ...] [--lib <jar|dir> ...] [--config <config.json> ...] "
+                    + "[--threads <n>] --out <dir>");
+            System.exit(2);
+            return;
+        }
+        
+        try {
+            weaver.run();
+        } catch (Throwable th) {
+            th.printStackTrace();
+            System.exit(1);
+        }
+    }
+    
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for argument " + arg);
+            }
+            String value = args[++i];
+            if ("--in".equals(arg)) {
+                this.inputs.add(new File(value));
+            } else if ("--lib".equals(arg)) {
+                this.libraries.add(new File(value));
+            } else if ("--config".equals(arg)) {
+                this.configs.add(value);
+            } else if ("--out".equals(arg)) {
+                this.outputDir = new File(value);
+            } else if ("--threads".equals(arg)) {
+                try {
+                    this.threads = Math.max(1, Integer.parseInt(value));
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Invalid thread count " + value);
+                }
+            } else {
+                throw new IllegalArgumentException("Unrecognised argument " + arg);
+            }
+        }
+        
+        if (this.inputs.isEmpty() || this.outputDir == null) {
+            throw new IllegalArgumentException("At least one input jar and an output directory must be specified");
+        }
+        for (File input : this.inputs) {
+            if (!input.isFile()) {
+                throw new IllegalArgumentException("Input jar " + input + " does not exist");
+            }
+        }
+    }
+
+    private void run() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        try {
+            WeaverClassPath classPath = new WeaverClassPath(this.inputs, this.libraries, executor);
+            try {
+                this.weave(classPath, executor);
+            } finally {
+                classPath.close();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void weave(WeaverClassPath classPath, ExecutorService executor) throws IOException {
+        MixinServiceWeaver.setClassPath(classPath);
+        MixinBootstrap.realInit();
+        
+        MixinServiceWeaver service = (MixinServiceWeaver)MixinService.getService();
+        this.logger = service.getLogger("mixin.weaver");
+        
+        for (Source source : classPath.getSources()) {
+            if (source.input) {
+                this.configs.addAll(source.configs);
+            }
+        }
+        if (this.configs.isEmpty()) {
+            throw new IllegalStateException("No mixin configs were specified or declared by the input jars");
+        }
+        for (String config : this.configs) {
+            Mixins.addConfiguration(config);
+        }
+        
+        IMixinTransformer transformer = service.createTransformer();
+        MixinProcessor processor = (MixinProcessor)transformer.getProcessor();
+        
+        // Visit each phase in turn so that the configs for every phase are
+        // selected before any class is woven
+        for (Phase phase : new Phase[] { Phase.PREINIT, Phase.INIT, Phase.DEFAULT }) {
+            service.gotoPhase(phase);
+            processor.selectEnvironment(MixinEnvironment.getCurrentEnvironment());
+        }
+        
+        MixinEnvironment environment = MixinEnvironment.getCurrentEnvironment();
+        SyntheticRemapper remapper = new SyntheticRemapper(transformer.getExtensions().getSyntheticClassRegistry());
+        WovenClassManifest manifest = new WovenClassManifest();
+        
+        if (!this.outputDir.isDirectory() && !this.outputDir.mkdirs()) {
+            throw new IOException("Could not create output directory " + this.outputDir);
+        }
+        
+        List<Future<Integer>> writes = new ArrayList<Future<Integer>>();
+        for (Source source : classPath.getSources()) {
+            if (!source.input) {
+                continue;
+            }
+            
+            Map<String, byte[]> patched = new HashMap<String, byte[]>();
+            for (String resource : source.resources) {
+                if (!resource.endsWith(".class") || resource.startsWith("META-INF/") || resource.endsWith("module-info.class")) {
+                    continue;
+                }
+                
+                String className = resource.substring(0, resource.length() - 6).replace('/', '.');
+                byte[] classBytes = source.read(resource);
+                byte[] woven;
+                try {
+                    woven = transformer.transformClass(environment, className, classBytes);
+                } catch (IllegalClassLoadError ex) {
+                    continue; // Mixin classes are left in place unchanged
+                }
+                
+                if (woven != classBytes) {
+                    woven = remapper.remap(woven);
+                    patched.put(resource, woven);
+                    manifest.add(className, woven, MixinWeaver.getMixinNames(className));
+                }
+            }
+            
+            this.logger.info("Wove {} of {} resources in {}", patched.size(), source.resources.size(), source);
+            writes.add(executor.submit(this.write(source, patched)));
+        }
+        
+        Map<String, byte[]> synthetic = new HashMap<String, byte[]>();
+        for (String name : remapper.referenced) {
+            byte[] classBytes = transformer.generateClass(environment, name.replace('/', '.'));
+            if (classBytes == null) {
+                throw new IllegalStateException("Synthetic class " + name + " could not be generated");
+            }
+            synthetic.put(MixinWeaver.WOVEN_SYNTHETIC_PREFIX + name.substring(MixinWeaver.SYNTHETIC_PREFIX.length()) + ".class",
+                    remapper.remap(classBytes));
+        }
+        if (!synthetic.isEmpty()) {
+            MixinWeaver.writeJar(new File(this.outputDir, MixinWeaver.SYNTHETIC_JAR_NAME), null, synthetic);
+        }
+        
+        int patchedCount = 0;
+        for (Future<Integer> write : writes) {
+            patchedCount += WeaverClassPath.get(write);
+        }
+        
+        File manifestFile = new File(this.outputDir, MixinWeaver.MANIFEST_NAME);
+        manifest.write(manifestFile);
+        
+        this.logger.info("Wove {} classes into {} jars in {}, {} synthetic classes were generated", manifest.size(), patchedCount, this.outputDir,
+                synthetic.size());
+        this.logger.info("Launch with -D{}={}{}", "mixin.wovenManifest", manifestFile.getAbsolutePath(),
+                synthetic.isEmpty() ? "" : " and add " + MixinWeaver.SYNTHETIC_JAR_NAME + " to the class path");
+    }
+
+    private Callable<Integer> write(final Source source, final Map<String, byte[]> patched) {
+        final File output = new File(this.outputDir, source.file.getName());
+        return new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                if (patched.isEmpty()) {
+                    Files.copy(source.file, output);
+                    return 0;
+                }
+                MixinWeaver.writeJar(output, source, patched);
+                return 1;
+            }
+        };
+    }
+    
+    /**
+     * Write a jar containing the supplied entries, followed by all other
+     * entries from the source jar (if supplied). Signature files are dropped
+     * since the patched classes no longer match them.
+     */
+    static void writeJar(File output, Source source, Map<String, byte[]> entries) throws IOException {
+        JarOutputStream jar = new JarOutputStream(new FileOutputStream(output));
+        try {
+            if (source != null) {
+                for (String resource : source.resources) {
+                    if (MixinWeaver.isSignature(resource)) {
+                        continue;
+                    }
+                    byte[] bytes = entries.get(resource);
+                    MixinWeaver.writeEntry(jar, resource, bytes != null ? bytes : source.read(resource));
+                }
+            } else {
+                List<String> names = new ArrayList<String>(entries.keySet());
+                Collections.sort(names);
+                for (String name : names) {
+                    MixinWeaver.writeEntry(jar, name, entries.get(name));
+                }
+            }
+        } finally {
+            jar.close();
+        }
+    }
+
+    private static void writeEntry(JarOutputStream jar, String name, byte[] bytes) throws IOException {
+        jar.putNextEntry(new JarEntry(name));
+        jar.write(bytes);
+        jar.closeEntry();
+    }
+
+    private static boolean isSignature(String resource) {
+        if (!resource.startsWith("META-INF/") || resource.indexOf('/', 9) > -1) {
+            return false;
+        }
+        return resource.endsWith(".SF") || resource.endsWith(".RSA") || resource.endsWith(".DSA") || resource.endsWith(".EC");
+    }
+
+    /**
+     * Get the mixins targetting the specified class. This includes mixins
+     * which failed to apply without error, these would fail in the same way
+     * at runtime so there is nothing to be gained by retrying them.
+     */
+    private static Set<String> getMixinNames(String className) {
+        Set<String> names = new TreeSet<String>();
+        ClassInfo classInfo = ClassInfo.fromCache(className);
+        if (classInfo != null) {
+            for (IMixinInfo mixin : classInfo.getMixins()) {
+                names.add(mixin.getClassName());
+            }
+        }
+        return names;
+    }
+
+}
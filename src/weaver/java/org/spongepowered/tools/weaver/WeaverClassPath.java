@@ -0,0 +1,284 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.tools.weaver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.spongepowered.asm.util.Constants;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+
+/**
+ * File-system class path for the weaver. Consists of the input jars, which are
+ * woven, followed by library jars and directories which are only used to
+ * resolve classes. Where a resource exists in more than one location the
+ * first location on the path wins, as it would on a regular class path.
+ */
+final class WeaverClassPath {
+    
+    /**
+     * A jar or directory on the class path
+     */
+    static final class Source {
+        
+        final File file;
+        
+        final boolean input;
+        
+        private final JarFile jar;
+        
+        /**
+         * All resources in this source, in jar order
+         */
+        final List<String> resources = new ArrayList<String>();
+        
+        /**
+         * Mixin configs declared in the jar manifest
+         */
+        final List<String> configs = new ArrayList<String>();
+        
+        Source(File file, boolean input) throws IOException {
+            this.file = file;
+            this.input = input;
+            if (file.isDirectory()) {
+                this.jar = null;
+                this.scan(file, "");
+            } else {
+                this.jar = new JarFile(file);
+                for (Enumeration<? extends ZipEntry> entries = this.jar.entries(); entries.hasMoreElements();) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory()) {
+                        this.resources.add(entry.getName());
+                    }
+                }
+                this.readConfigs(this.jar.getManifest());
+            }
+        }
+
+        private void scan(File dir, String prefix) {
+            File[] files = dir.listFiles();
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    this.scan(file, prefix + file.getName() + "/");
+                } else {
+                    this.resources.add(prefix + file.getName());
+                }
+            }
+        }
+
+        private void readConfigs(Manifest manifest) {
+            if (manifest == null) {
+                return;
+            }
+            String configs = manifest.getMainAttributes().getValue(new Attributes.Name(Constants.ManifestAttributes.MIXINCONFIGS));
+            if (configs != null) {
+                for (String config : configs.split(",")) {
+                    if (!config.trim().isEmpty()) {
+                        this.configs.add(config.trim());
+                    }
+                }
+            }
+        }
+        
+        byte[] read(String resource) throws IOException {
+            if (this.jar == null) {
+                return Files.toByteArray(new File(this.file, resource));
+            }
+            
+            ZipEntry entry = this.jar.getEntry(resource);
+            if (entry == null) {
+                return null;
+            }
+            InputStream stream = this.jar.getInputStream(entry);
+            try {
+                return ByteStreams.toByteArray(stream);
+            } finally {
+                Closeables.closeQuietly(stream);
+            }
+        }
+        
+        JarFile getJar() {
+            return this.jar;
+        }
+        
+        URL getURL() throws MalformedURLException {
+            return this.file.toURI().toURL();
+        }
+        
+        void close() throws IOException {
+            if (this.jar != null) {
+                this.jar.close();
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return this.file.getName();
+        }
+        
+    }
+    
+    private final List<Source> sources = new ArrayList<Source>();
+    
+    /**
+     * Resource name to the first source which contains it
+     */
+    private final Map<String, Source> index = new HashMap<String, Source>();
+    
+    /**
+     * Index the supplied inputs and libraries, each source is scanned on the
+     * supplied executor
+     * 
+     * @param inputs Jars to weave
+     * @param libraries Additional jars and directories to resolve classes from
+     * @param executor Executor to scan sources on
+     * @throws IOException if a source cannot be read
+     */
+    WeaverClassPath(List<File> inputs, List<File> libraries, ExecutorService executor) throws IOException {
+        List<Future<Source>> futures = new ArrayList<Future<Source>>();
+        for (File input : inputs) {
+            futures.add(executor.submit(WeaverClassPath.open(input, true)));
+        }
+        for (File library : libraries) {
+            futures.add(executor.submit(WeaverClassPath.open(library, false)));
+        }
+        
+        for (Future<Source> future : futures) {
+            Source source = WeaverClassPath.get(future);
+            this.sources.add(source);
+            for (String resource : source.resources) {
+                if (!this.index.containsKey(resource)) {
+                    this.index.put(resource, source);
+                }
+            }
+        }
+    }
+
+    private static Callable<Source> open(final File file, final boolean input) {
+        return new Callable<Source>() {
+            @Override
+            public Source call() throws Exception {
+                return new Source(file, input);
+            }
+        };
+    }
+    
+    static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+    
+    /**
+     * Get all sources in class path order
+     */
+    List<Source> getSources() {
+        return Collections.<Source>unmodifiableList(this.sources);
+    }
+    
+    /**
+     * Get the URLs of all sources, for creating a class loader
+     */
+    URL[] getURLs() throws MalformedURLException {
+        URL[] urls = new URL[this.sources.size()];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = this.sources.get(i).getURL();
+        }
+        return urls;
+    }
+    
+    /**
+     * Read a resource from the class path, falling back to the runtime class
+     * path of the weaver itself for platform classes
+     * 
+     * @param name Resource name
+     * @return resource bytes, or <tt>null</tt> if the resource was not found
+     * @throws IOException if the resource could not be read
+     */
+    byte[] getResource(String name) throws IOException {
+        Source source = this.index.get(name);
+        if (source != null) {
+            return source.read(name);
+        }
+        
+        InputStream stream = WeaverClassPath.class.getClassLoader().getResourceAsStream(name);
+        if (stream == null) {
+            return null;
+        }
+        try {
+            return ByteStreams.toByteArray(stream);
+        } finally {
+            Closeables.closeQuietly(stream);
+        }
+    }
+    
+    /**
+     * Close all sources
+     */
+    void close() {
+        for (Source source : this.sources) {
+            try {
+                source.close();
+            } catch (IOException ex) {
+                // don't care
+            }
+        }
+    }
+
+}